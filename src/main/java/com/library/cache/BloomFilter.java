@@ -0,0 +1,101 @@
+package com.library.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter over strings: {@link #mightContain} never returns false for a value that was
+ * {@linkplain #put put}, and returns true for other values with roughly the configured probability. Puts and
+ * lookups are lock-free, so one filter can be read by request threads while it is still being filled.
+ *
+ * <p>Bit positions come from one 64-bit hash split into two halves, combined as {@code h1 + i * h2}
+ * (Kirsch-Mitzenmacher), which behaves like independent hash functions at a fraction of the cost.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong insertions = new AtomicLong();
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Sized so that {@code expectedInsertions} values give a false-positive rate of {@code falsePositiveRate}.
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long n = Math.max(1, expectedInsertions);
+        long bits = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        if (bits > 64L * Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter for " + expectedInsertions + " values would be too large");
+        }
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The false-positive rate expected from the number of puts so far, {@code (1 - e^(-kn/m))^k}.
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions.get() / bitCount), hashCount);
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a over the chars, then MurmurHash3's 64-bit finalizer so both halves are well mixed
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
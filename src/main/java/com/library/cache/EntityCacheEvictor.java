@@ -0,0 +1,71 @@
+package com.library.cache;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts entities from the second-level cache after writes that bypass the persistence context, such as
+ * the native loan counter and book loan updates. A no-op when the l2-cache profile is not active.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Evicts now for reads later in this transaction and again once it completes, in case a concurrent
+    // transaction re-cached the pre-update row in between
+    public void evictBorrower(Long borrowerId) {
+        if (borrowerId == null) {
+            return;
+        }
+        evict(Borrower.class, borrowerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(Borrower.class, borrowerId);
+                }
+            });
+        }
+    }
+
+    public void evictBook(Long bookId) {
+        evict(Book.class, bookId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(Book.class, bookId);
+                }
+            });
+        }
+    }
+
+    // For set-based writes to the books table: every cached book, and cached query results such as findByIsbn
+    public void evictBooks() {
+        evictAllBooks();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictAllBooks();
+                }
+            });
+        }
+    }
+
+    private void evictAllBooks() {
+        entityManagerFactory.getCache().evict(Book.class);
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictDefaultQueryRegion();
+    }
+
+    private void evict(Class<?> entityClass, Object id) {
+        entityManagerFactory.getCache().evict(entityClass, id);
+    }
+}
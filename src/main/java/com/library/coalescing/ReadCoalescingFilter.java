@@ -0,0 +1,195 @@
+package com.library.coalescing;
+
+import com.library.config.CoalescingProperties;
+import com.library.datasource.ReadYourWritesTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Single-flight for the reads every kiosk makes at opening time: while a {@code GET /api/books} or
+ * {@code GET /api/borrowers/{id}/books} is being answered, identical requests wait for it and get a copy of its
+ * serialized body instead of running their own query and serialization. Nothing is kept once the first request
+ * finishes, so an answer is never older than a query that was still running when the request arrived.
+ *
+ * <p>Requests only join a read that started less than the window ago. Borrowers who changed their loans recently
+ * always read for themselves, the same rule that pins their reads to the primary. Only 200 responses are shared;
+ * if the first request fails, the waiting ones run on their own.
+ */
+public class ReadCoalescingFilter extends OncePerRequestFilter {
+
+    public static final String COALESCED_HEADER = "Coalesced-Response";
+
+    private static final String BOOKS = "/api/books";
+    private static final String BORROWED_BOOKS = "/api/borrowers/{id}/books";
+
+    private final long windowNanos;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Counter executed;
+    private final Counter joined;
+    private final Counter unshared;
+
+    public ReadCoalescingFilter(CoalescingProperties properties,
+                                ReadYourWritesTracker readYourWritesTracker,
+                                MeterRegistry meterRegistry) {
+        this.windowNanos = properties.getWindow().toNanos();
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.executed = requestCounter(meterRegistry, "executed");
+        this.joined = requestCounter(meterRegistry, "joined");
+        this.unshared = requestCounter(meterRegistry, "unshared");
+        Gauge.builder("library.coalescing.in_flight", flights, Map::size)
+                .description("Distinct coalescable reads currently being answered")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || windowNanos <= 0) {
+            return true;
+        }
+        String path = path(request);
+        if (BOOKS.equals(path)) {
+            return false;
+        }
+        if (!pathMatcher.match(BORROWED_BOOKS, path)) {
+            return true;
+        }
+        Long borrowerId = parseId(pathMatcher.extractUriTemplateVariables(BORROWED_BOOKS, path).get("id"));
+        return borrowerId == null || readYourWritesTracker.isRecentlyWritten(borrowerId);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = key(request);
+        Flight mine = new Flight(System.nanoTime());
+        Flight running = claim(key, mine);
+        if (running != null) {
+            SharedResponse shared = await(running);
+            if (shared != null) {
+                joined.increment();
+                shared.writeTo(response);
+                return;
+            }
+            unshared.increment();
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        executed.increment();
+        try {
+            ContentCachingResponseWrapper recordingResponse = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(request, recordingResponse);
+            SharedResponse shared = recordingResponse.getStatus() == HttpStatus.OK.value()
+                    ? new SharedResponse(recordingResponse.getContentType(), recordingResponse.getContentAsByteArray())
+                    : null;
+            // Waiters get the captured bytes before they are written here, so a slow client does not hold them up
+            land(key, mine, shared);
+            recordingResponse.copyBodyToResponse();
+        } finally {
+            // No-op after a successful land; otherwise waiters run the read themselves
+            land(key, mine, null);
+        }
+    }
+
+    // Removed before completing, so a request arriving after the answer starts a fresh read
+    private void land(String key, Flight mine, SharedResponse shared) {
+        flights.remove(key, mine);
+        mine.response.complete(shared);
+    }
+
+    /**
+     * Registers {@code mine} as the read for {@code key}, or returns the running read to wait for instead.
+     */
+    private Flight claim(String key, Flight mine) {
+        while (true) {
+            Flight running = flights.putIfAbsent(key, mine);
+            if (running == null) {
+                return null;
+            }
+            if (mine.startedAt - running.startedAt < windowNanos) {
+                return running;
+            }
+            if (flights.replace(key, running, mine)) {
+                return null;
+            }
+        }
+    }
+
+    private static SharedResponse await(Flight running) throws ServletException {
+        try {
+            return running.response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted while waiting for a coalesced read", e);
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    // The Accept header is part of the key because it can change the representation
+    private static String key(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return path(request) + (query != null ? '?' + query : "") + ' ' + request.getHeader(HttpHeaders.ACCEPT);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static Long parseId(String id) {
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("library.coalescing.requests.total")
+                .description("Coalescable reads by whether they ran, joined a running read, or ran after it failed")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class Flight {
+
+        private final long startedAt;
+        private final CompletableFuture<SharedResponse> response = new CompletableFuture<>();
+
+        private Flight(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+
+    private record SharedResponse(String contentType, byte[] body) {
+
+        void writeTo(HttpServletResponse response) throws IOException {
+            response.setStatus(HttpStatus.OK.value());
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            response.setHeader(COALESCED_HEADER, "true");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.availability-feed")
+public class AvailabilityFeedProperties {
+
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    private int batchSize = 500;
+
+    // A missing sequence number is either an uncommitted transaction or a rollback; keep looking for it this long
+    private Duration gapTimeout = Duration.ofMinutes(5);
+
+    // Events queued per connection before a client that cannot keep up is disconnected
+    private int subscriberBuffer = 1000;
+
+    private int senderThreads = 4;
+
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+
+    private Duration retention = Duration.ofDays(7);
+}
@@ -0,0 +1,23 @@
+package com.library.config;
+
+import com.library.service.BookService;
+import com.library.service.BorrowPipeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "library.borrow-pipeline.enabled", havingValue = "true")
+public class BorrowPipelineConfig {
+
+    @Bean
+    public BorrowPipeline borrowPipeline(BookService bookService,
+                                         BorrowPipelineProperties properties,
+                                         Counter successfulBorrowsCounter,
+                                         Counter failedBorrowsCounter,
+                                         MeterRegistry meterRegistry) {
+        return new BorrowPipeline(bookService, properties, successfulBorrowsCounter, failedBorrowsCounter, meterRegistry);
+    }
+}
@@ -0,0 +1,22 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.borrow-pipeline")
+public class BorrowPipelineProperties {
+
+    // Off by default: every borrow then commits on its own, on the request thread
+    private boolean enabled = false;
+
+    // How long the first borrow of a batch waits for others to share its commit
+    private Duration window = Duration.ofMillis(2);
+
+    private int maxBatchSize = 64;
+
+    // Borrows waiting for a batch; beyond this they take the direct path instead of queueing
+    private int queueCapacity = 10_000;
+}
@@ -0,0 +1,48 @@
+package com.library.config;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Hit ratio per second-level cache region, registered only when the l2-cache profile turns the cache on.
+ * The raw hit/miss/put counters come from hibernate-micrometer as hibernate.second.level.cache.*.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class CacheMetricsConfig {
+
+    private static final List<String> REGIONS = List.of(
+            Book.CACHE_REGION,
+            Borrower.CACHE_REGION,
+            RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> REGIONS.forEach(region -> Gauge.builder("library.cache.hit.ratio", statistics, s -> hitRatio(s, region))
+                .description("Second-level cache hits divided by lookups since startup")
+                .tag("region", region)
+                .register(registry));
+    }
+
+    static double hitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        if (regionStatistics == null) {
+            return Double.NaN;
+        }
+        long lookups = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return lookups == 0 ? Double.NaN : (double) regionStatistics.getHitCount() / lookups;
+    }
+}
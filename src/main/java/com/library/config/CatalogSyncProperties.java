@@ -0,0 +1,15 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "library.catalog-sync")
+public class CatalogSyncProperties {
+
+    // Rows per INSERT ... ON CONFLICT statement; four bind parameters each, well under PostgreSQL's 65535
+    private int statementRows = 1_000;
+
+    // Larger feeds are sent as several requests, each its own transaction
+    private int maxRequestRows = 10_000;
+}
@@ -0,0 +1,27 @@
+package com.library.config;
+
+import com.library.coalescing.ReadCoalescingFilter;
+import com.library.datasource.ReadYourWritesTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "library.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class CoalescingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ReadCoalescingFilter> readCoalescingFilter(CoalescingProperties properties,
+                                                                            ReadYourWritesTracker readYourWritesTracker,
+                                                                            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ReadCoalescingFilter> registration = new FilterRegistrationBean<>(
+                new ReadCoalescingFilter(properties, readYourWritesTracker, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        // After rate limiting, so shed requests never become the read that others wait for
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 15);
+        return registration;
+    }
+}
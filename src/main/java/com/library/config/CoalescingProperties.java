@@ -0,0 +1,17 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.coalescing")
+public class CoalescingProperties {
+
+    private boolean enabled = true;
+
+    // How long after an identical read started a new request may still wait for it instead of starting its own;
+    // bounds how much older than the request its answer can be
+    private Duration window = Duration.ofMillis(500);
+}
@@ -6,19 +6,28 @@ import com.library.repository.BookRepository;
 import com.library.repository.BorrowerRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 @Component
+@ConditionalOnProperty(name = "library.sample-data.enabled", havingValue = "true", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
-public class DataLoader implements CommandLineRunner {
+public class DataLoader {
     
     private final BorrowerRepository borrowerRepository;
     private final BookRepository bookRepository;
     
-    @Override
-    public void run(String... args) {
+    // Runs after the application reports ready so the count() check and inserts stay off the startup path.
+    // One read-write transaction keeps the count() on the primary when replica routing is enabled.
+    @Async
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
         if (borrowerRepository.count() == 0) {
             loadSampleData();
         }
@@ -28,8 +37,12 @@ public class DataLoader implements CommandLineRunner {
         log.info("Loading sample data...");
         
         // Create borrowers
-        Borrower borrower1 = borrowerRepository.save(new Borrower("John Doe", "john.doe@email.com"));
-        Borrower borrower2 = borrowerRepository.save(new Borrower("Jane Smith", "jane.smith@email.com"));
+        Borrower borrower1 = new Borrower("John Doe", "john.doe@email.com");
+        borrower1.setActiveLoans(1);
+        borrower1 = borrowerRepository.save(borrower1);
+        Borrower borrower2 = new Borrower("Jane Smith", "jane.smith@email.com");
+        borrower2.setActiveLoans(1);
+        borrower2 = borrowerRepository.save(borrower2);
 
         // Create books
         Book book1 = new Book("The Great Gatsby", "F. Scott Fitzgerald", "9780743273565");
@@ -0,0 +1,12 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "library.export")
+public class ExportProperties {
+
+    // Rows per server-side cursor round trip; memory use is bounded by this, not by table size
+    private int fetchSize = 1_000;
+}
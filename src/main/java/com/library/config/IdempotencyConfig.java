@@ -0,0 +1,47 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.idempotency.IdempotencyFilter;
+import com.library.idempotency.IdempotencyStore;
+import com.library.idempotency.IdempotentReplayFilter;
+import com.library.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "library.idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+    @Bean
+    public IdempotencyStore idempotencyStore(IdempotencyRecordRepository repository,
+                                             IdempotencyProperties properties,
+                                             MeterRegistry meterRegistry) {
+        return new IdempotencyStore(repository, properties, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotentReplayFilter> idempotentReplayFilter(IdempotencyStore idempotencyStore) {
+        FilterRegistrationBean<IdempotentReplayFilter> registration =
+                new FilterRegistrationBean<>(new IdempotentReplayFilter(idempotencyStore));
+        registration.addUrlPatterns("/api/*");
+        // Ahead of rate limiting so a retry gets its original answer instead of a 429, at the cost of a map lookup
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore idempotencyStore,
+                                                                       ObjectMapper objectMapper,
+                                                                       MeterRegistry meterRegistry) {
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyStore, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        // After rate limiting, so shed requests never cost an idempotency_records lookup
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 12);
+        return registration;
+    }
+}
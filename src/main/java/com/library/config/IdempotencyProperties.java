@@ -0,0 +1,21 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.idempotency")
+public class IdempotencyProperties {
+
+    private boolean enabled = true;
+
+    // Responses kept in memory; older keys are still answered from the idempotency_records table
+    private int maxCachedResponses = 10_000;
+
+    private Duration retention = Duration.ofHours(24);
+
+    // Store responses in the database as well, so retries survive restarts and reach any instance
+    private boolean persist = true;
+}
@@ -0,0 +1,65 @@
+package com.library.config;
+
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.repository.memory.InMemorySnapshotter;
+import com.library.repository.memory.InMemoryStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The {@code in-memory} profile: books and borrowers live in {@link InMemoryStorage} instead of JPA. The other
+ * repositories stay on JPA; Spring Boot's repository auto-configuration backs off because this class declares
+ * its own {@code @EnableJpaRepositories}.
+ *
+ * <p>The catalog export is not registered in this profile, and enabling the synthetic data generator stops
+ * startup: both work on the SQL tables, which are empty here.
+ */
+@Configuration
+@Profile("in-memory")
+@EnableJpaRepositories(basePackageClasses = BookRepository.class, excludeFilters = @ComponentScan.Filter(
+        type = FilterType.ASSIGNABLE_TYPE, classes = {BookRepository.class, BorrowerRepository.class}))
+public class InMemoryStorageConfig {
+
+    public InMemoryStorageConfig(@Value("${library.generator.enabled:false}") boolean generatorEnabled) {
+        if (generatorEnabled) {
+            throw new IllegalStateException("library.generator.enabled is not supported by the in-memory profile: "
+                    + "the generator writes the SQL tables, which in-memory storage does not read");
+        }
+    }
+
+    @Bean
+    public InMemoryStorage inMemoryStorage(InMemoryStorageProperties properties) {
+        if (properties.getDirectory() == null) {
+            return new InMemoryStorage();
+        }
+        try {
+            return InMemoryStorage.open(properties.getDirectory(), properties.isWalFsync());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover in-memory storage from " + properties.getDirectory(), e);
+        }
+    }
+
+    @Bean
+    public InMemorySnapshotter inMemorySnapshotter(InMemoryStorage inMemoryStorage, InMemoryStorageProperties properties) {
+        return new InMemorySnapshotter(inMemoryStorage, properties);
+    }
+
+    @Bean
+    public BookRepository bookRepository(InMemoryStorage inMemoryStorage) {
+        return inMemoryStorage.bookRepository();
+    }
+
+    @Bean
+    public BorrowerRepository borrowerRepository(InMemoryStorage inMemoryStorage) {
+        return inMemoryStorage.borrowerRepository();
+    }
+}
@@ -0,0 +1,20 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.in-memory")
+public class InMemoryStorageProperties {
+
+    // Holds the snapshot and the write-ahead log, recovered on startup; unset keeps nothing across restarts
+    private Path directory = Path.of("data", "library");
+
+    private Duration checkpointInterval = Duration.ofMinutes(5);
+
+    // Forces each log record to disk before the write returns; without it a machine crash can lose recent writes
+    private boolean walFsync = false;
+}
@@ -0,0 +1,26 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.isbn-lookup")
+public class IsbnLookupProperties {
+
+    // Target rate of unknown ISBNs that the filter lets through to the database
+    private double falsePositiveRate = 0.01;
+
+    // How often new rows of the books table are added to the filter; a book added on another instance or by SQL can
+    // be reported as not found for about this long
+    private Duration refreshInterval = Duration.ofSeconds(1);
+
+    // An id skipped by a refresh is an uncommitted insert or a rollback; keep looking for it this long
+    private Duration gapTimeout = Duration.ofMinutes(5);
+
+    // The filter cannot forget ISBNs and misses ISBNs changed in place until it is rebuilt from the table
+    private Duration rebuildInterval = Duration.ofMinutes(30);
+
+    private int rebuildChunkSize = 10_000;
+}
@@ -0,0 +1,11 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "library.loans")
+public class LoanProperties {
+
+    private int maxActivePerBorrower = 5;
+}
@@ -0,0 +1,44 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.profiling.FlightRecorderEndpoint;
+import com.library.profiling.ProfiledJackson2HttpMessageConverter;
+import com.library.profiling.RepositoryCallInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+@ConditionalOnProperty(name = "library.profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilingConfig {
+
+    // Adds the interceptor to every Spring Data repository proxy before its factory bean builds it
+    @Bean
+    public static BeanPostProcessor repositoryProfilingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repository) -> proxyFactory.addAdvice(
+                                    new RepositoryCallInterceptor(repository.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Replaces Boot's converter, which backs off when one is defined
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new ProfiledJackson2HttpMessageConverter(objectMapper);
+    }
+
+    @Bean
+    public FlightRecorderEndpoint flightRecorderEndpoint(ProfilingProperties properties) {
+        return new FlightRecorderEndpoint(properties);
+    }
+}
@@ -0,0 +1,40 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.profiling")
+public class ProfilingProperties {
+
+    private boolean enabled = true;
+
+    // On-demand recordings are time-boxed; one without a duration runs this long
+    private Duration defaultDuration = Duration.ofMinutes(1);
+
+    private Duration maxDuration = Duration.ofMinutes(10);
+
+    // On-demand recordings kept for download at once; delete one to start another
+    private int maxRecordings = 5;
+
+    private DataSize maxRecordingSize = DataSize.ofMegabytes(250);
+
+    private Continuous continuous = new Continuous();
+
+    @Data
+    public static class Continuous {
+
+        private boolean enabled = true;
+
+        // Rolling buffer: chunks older than max-age or beyond max-size are discarded
+        private Duration maxAge = Duration.ofMinutes(15);
+
+        private DataSize maxSize = DataSize.ofMegabytes(100);
+
+        // Repository calls and serializations faster than this are left out of the continuous recording
+        private Duration eventThreshold = Duration.ofMillis(10);
+    }
+}
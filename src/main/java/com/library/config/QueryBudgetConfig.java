@@ -0,0 +1,45 @@
+package com.library.config;
+
+import com.library.querybudget.QueryBudgetFilter;
+import com.library.querybudget.QueryCountingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "library.query-budget.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryBudgetConfig {
+
+    // Wraps the data source every repository and JdbcTemplate uses; the pools behind it stay as they are
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return new QueryCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(QueryBudgetProperties properties,
+                                                                       MeterRegistry meterRegistry,
+                                                                       ObservationRegistry observationRegistry) {
+        FilterRegistrationBean<QueryBudgetFilter> registration =
+                new FilterRegistrationBean<>(new QueryBudgetFilter(properties, meterRegistry, observationRegistry));
+        registration.addUrlPatterns("/api/*");
+        // Inside the HTTP observation so the counts land on the request's span, outside everything that queries
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,31 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "library.query-budget")
+public class QueryBudgetProperties {
+
+    private boolean enabled = true;
+
+    // Fail the statement that goes over budget; on in tests so query regressions break the build
+    private boolean enforce = false;
+
+    // Statements allowed per request for endpoints without their own budget
+    private int defaultMaxStatements = 20;
+
+    private List<Budget> budgets = new ArrayList<>();
+
+    @Data
+    public static class Budget {
+
+        // HTTP method and path pattern as mapped, e.g. "GET /api/borrowers/{id}/books"
+        private String endpoint;
+
+        private int maxStatements;
+    }
+}
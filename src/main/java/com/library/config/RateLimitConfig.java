@@ -0,0 +1,27 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.ratelimit.RateLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(name = "library.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimitProperties properties,
+                                                                   ObjectMapper objectMapper,
+                                                                   MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(properties, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        // After the HTTP observation filter so shed requests still show up in http.server.requests
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Use the first X-Forwarded-For address as client key; only enable behind a trusted proxy
+    private boolean trustForwardedFor = false;
+
+    private int maxTrackedClients = 100_000;
+
+    private Bucket perClient = new Bucket(20, 40);
+
+    private Bucket global = new Bucket(500, 1_000);
+
+    private Admission admission = new Admission();
+
+    @Data
+    public static class Bucket {
+
+        private double ratePerSecond;
+
+        private int burst;
+
+        public Bucket() {
+        }
+
+        public Bucket(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+    }
+
+    @Data
+    public static class Admission {
+
+        private boolean enabled = true;
+
+        private int initialLimit = 50;
+
+        private int minLimit = 5;
+
+        private int maxLimit = 200;
+
+        private Duration targetLatency = Duration.ofMillis(250);
+    }
+}
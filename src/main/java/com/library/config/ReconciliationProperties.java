@@ -0,0 +1,24 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.reconciliation")
+public class ReconciliationProperties {
+
+    private boolean enabled = true;
+
+    private String cron = "0 23 3 * * *";
+
+    // Books per keyset chunk; each chunk is one short read and, only if it found anomalies, one short write
+    private int chunkSize = 1_000;
+
+    // Idle time between chunks so a full scan never competes with foreground traffic for long
+    private Duration chunkPause = Duration.ofMillis(100);
+
+    // When false anomalies are only counted and logged
+    private boolean repair = true;
+}
@@ -0,0 +1,27 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    // Routing to the replica is switched on by setting a URL; without it everything uses spring.datasource
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private String driverClassName;
+
+    private int maximumPoolSize = 10;
+
+    // How long a borrower's own reads stay on the primary after one of their loans changed
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    private int maxTrackedBorrowers = 100_000;
+}
@@ -0,0 +1,42 @@
+package com.library.config;
+
+import com.library.tracing.NonBlockingSpanProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.exporter.SpanExportingPredicate;
+import io.micrometer.tracing.exporter.SpanFilter;
+import io.micrometer.tracing.exporter.SpanReporter;
+import io.micrometer.tracing.otel.bridge.CompositeSpanExporter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.tracing.SpanExporters;
+import org.springframework.boot.actuate.autoconfigure.tracing.SpanProcessors;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the span processors of Spring Boot's tracer provider with {@link NonBlockingSpanProcessor}. It exports
+ * through the same exporters and Micrometer span filters as Boot's default {@code BatchSpanProcessor}, which is
+ * still created but no longer receives spans.
+ */
+@Configuration
+public class SpanExportConfig {
+
+    @Bean(destroyMethod = "")
+    public NonBlockingSpanProcessor nonBlockingSpanProcessor(SpanExporters spanExporters,
+                                                             ObjectProvider<SpanExportingPredicate> spanExportingPredicates,
+                                                             ObjectProvider<SpanReporter> spanReporters,
+                                                             ObjectProvider<SpanFilter> spanFilters,
+                                                             SpanExportProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        CompositeSpanExporter exporter = new CompositeSpanExporter(spanExporters.list(),
+                spanExportingPredicates.orderedStream().toList(), spanReporters.orderedStream().toList(),
+                spanFilters.orderedStream().toList());
+        return new NonBlockingSpanProcessor(exporter, properties.getQueueCapacity(), properties.getMaxBatchSize(),
+                properties.getScheduleDelay(), properties.getExportTimeout(), meterRegistry);
+    }
+
+    // The tracer provider shuts its processors down when the context closes, hence no destroy method above
+    @Bean
+    public SpanProcessors spanProcessors(NonBlockingSpanProcessor nonBlockingSpanProcessor) {
+        return SpanProcessors.of(nonBlockingSpanProcessor);
+    }
+}
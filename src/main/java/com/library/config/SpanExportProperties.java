@@ -0,0 +1,22 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "library.span-export")
+public class SpanExportProperties {
+
+    // Finished spans held for export; beyond this they are dropped rather than making requests wait
+    private int queueCapacity = 2_048;
+
+    private int maxBatchSize = 512;
+
+    // A partial batch is exported this long after the previous export
+    private Duration scheduleDelay = Duration.ofSeconds(1);
+
+    // How long the export thread waits for the collector before counting a batch as failed
+    private Duration exportTimeout = Duration.ofSeconds(10);
+}
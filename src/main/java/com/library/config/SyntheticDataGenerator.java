@@ -0,0 +1,199 @@
+package com.library.config;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+@Component
+@ConditionalOnProperty(name = "library.generator.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SyntheticDataGenerator implements CommandLineRunner {
+
+    private static final String INSERT_BORROWER =
+            "INSERT INTO borrowers (name, email, branch, name_lower, email_lower, active_loans) VALUES (?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_BOOK =
+            "INSERT INTO books (title, author, isbn, available, borrowed_by, branch) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_ACTIVE_LOANS = "UPDATE borrowers SET active_loans = ? WHERE id = ?";
+
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth",
+            "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen"
+    };
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin"
+    };
+    private static final String[] ADJECTIVES = {
+            "Silent", "Crimson", "Hidden", "Last", "Broken", "Golden", "Distant", "Forgotten", "Burning", "Endless",
+            "Hollow", "Secret", "Wild", "Quiet", "Frozen", "Lost", "Bright", "Dark", "Ancient", "Final"
+    };
+    private static final String[] NOUNS = {
+            "River", "Garden", "Empire", "Letter", "Winter", "Harbor", "Kingdom", "Mirror", "Journey", "Orchard",
+            "Tide", "Lantern", "Forest", "Promise", "Valley", "Storm", "Island", "Archive", "Bridge", "Shadow"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SyntheticDataProperties properties;
+    private final LoanProperties loanProperties;
+
+    @Override
+    public void run(String... args) {
+        generate();
+    }
+
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+        long[] borrowerIds = insertBorrowers();
+        int[] activeLoans = insertBooks(borrowerIds, random);
+        updateActiveLoans(borrowerIds, activeLoans);
+    }
+
+    private long[] insertBorrowers() {
+        long maxIdBefore = maxId("borrowers");
+        int total = properties.getBorrowers();
+        log.info("Generating {} borrowers in batches of {}", total, properties.getBatchSize());
+
+        int[] types = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+        long start = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(properties.getBatchSize());
+        for (int i = 0; i < total; i++) {
+            long sequence = maxIdBefore + i;
+            String firstName = FIRST_NAMES[(int) (sequence % FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[(int) ((sequence / FIRST_NAMES.length) % LAST_NAMES.length)];
+            String email = (firstName + "." + lastName + "." + sequence + "@example.com").toLowerCase();
+            String name = firstName + " " + lastName;
+            batch.add(new Object[]{name, email, branchOf(sequence), Borrower.searchKey(name), email});
+            if (batch.size() == properties.getBatchSize()) {
+                flush(INSERT_BORROWER, batch, types);
+            }
+        }
+        flush(INSERT_BORROWER, batch, types);
+        logThroughput("borrowers", total, start);
+
+        return loadIdsAbove(maxIdBefore, total);
+    }
+
+    private int[] insertBooks(long[] borrowerIds, SplittableRandom random) {
+        long maxIdBefore = maxId("books");
+        int total = properties.getBooks();
+        log.info("Generating {} books over {} titles in batches of {}", total, properties.getTitles(), properties.getBatchSize());
+
+        ZipfSampler titleSampler = new ZipfSampler(properties.getTitles(), properties.getSkew());
+        ZipfSampler borrowerSampler = borrowerIds.length > 0 ? new ZipfSampler(borrowerIds.length, properties.getSkew()) : null;
+        int[] types = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.BIGINT, Types.VARCHAR};
+        int[] activeLoans = new int[borrowerIds.length];
+        int maxActiveLoans = loanProperties.getMaxActivePerBorrower();
+
+        long start = System.nanoTime();
+        List<Object[]> batch = new ArrayList<>(properties.getBatchSize());
+        for (int i = 0; i < total; i++) {
+            int work = titleSampler.sample(random);
+            Long borrowerId = null;
+            if (borrowerSampler != null && random.nextDouble() < properties.getBorrowedRatio()) {
+                int borrower = borrowerSampler.sample(random);
+                // A borrower at the loan limit leaves the copy on the shelf, as the API would, so heavy borrowers
+                // saturate at the limit instead of holding loans no borrow could have produced
+                if (activeLoans[borrower] < maxActiveLoans) {
+                    borrowerId = borrowerIds[borrower];
+                    activeLoans[borrower]++;
+                }
+            }
+            batch.add(new Object[]{titleOf(work), authorOf(work), isbnOf(maxIdBefore + i), borrowerId == null, borrowerId,
+                    branchOf(maxIdBefore + i)});
+            if (batch.size() == properties.getBatchSize()) {
+                flush(INSERT_BOOK, batch, types);
+            }
+        }
+        flush(INSERT_BOOK, batch, types);
+        logThroughput("books", total, start);
+        return activeLoans;
+    }
+
+    private void updateActiveLoans(long[] borrowerIds, int[] activeLoans) {
+        int[] types = {Types.INTEGER, Types.BIGINT};
+        List<Object[]> batch = new ArrayList<>(properties.getBatchSize());
+        for (int i = 0; i < borrowerIds.length; i++) {
+            if (activeLoans[i] > 0) {
+                batch.add(new Object[]{activeLoans[i], borrowerIds[i]});
+                if (batch.size() == properties.getBatchSize()) {
+                    flush(UPDATE_ACTIVE_LOANS, batch, types);
+                }
+            }
+        }
+        flush(UPDATE_ACTIVE_LOANS, batch, types);
+    }
+
+    private void flush(String sql, List<Object[]> batch, int[] types) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch, types);
+            batch.clear();
+        }
+    }
+
+    private long maxId(String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return maxId != null ? maxId : 0L;
+    }
+
+    private long[] loadIdsAbove(long minExclusive, int expected) {
+        long[] ids = new long[expected];
+        int[] count = {0};
+        jdbcTemplate.query("SELECT id FROM borrowers WHERE id > ? ORDER BY id",
+                rs -> {
+                    if (count[0] < ids.length) {
+                        ids[count[0]++] = rs.getLong(1);
+                    }
+                },
+                minExclusive);
+        return count[0] == ids.length ? ids : Arrays.copyOf(ids, count[0]);
+    }
+
+    private void logThroughput(String entity, int rows, long startNanos) {
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 1e-9);
+        log.info("Inserted {} {} in {} s ({} rows/s)", rows, entity,
+                String.format("%.1f", seconds), String.format("%.0f", rows / seconds));
+    }
+
+    private static String titleOf(int work) {
+        String adjective = ADJECTIVES[work % ADJECTIVES.length];
+        String noun = NOUNS[(work / ADJECTIVES.length) % NOUNS.length];
+        int volume = work / (ADJECTIVES.length * NOUNS.length);
+        return volume == 0 ? "The " + adjective + " " + noun : "The " + adjective + " " + noun + ", Vol. " + (volume + 1);
+    }
+
+    private static String authorOf(int work) {
+        int author = work / 3;
+        return FIRST_NAMES[author % FIRST_NAMES.length] + " " + LAST_NAMES[(author / FIRST_NAMES.length) % LAST_NAMES.length];
+    }
+
+    private String branchOf(long sequence) {
+        int branches = properties.getBranches();
+        return branches <= 1 ? Book.DEFAULT_BRANCH : branchCode((int) (sequence % branches) + 1);
+    }
+
+    public static String branchCode(int number) {
+        return String.format("BR%03d", number);
+    }
+
+    static String isbnOf(long sequence) {
+        String digits = "979" + String.format("%09d", sequence);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            int digit = digits.charAt(i) - '0';
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        return digits + ((10 - sum % 10) % 10);
+    }
+}
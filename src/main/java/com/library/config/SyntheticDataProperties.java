@@ -0,0 +1,31 @@
+package com.library.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "library.generator")
+public class SyntheticDataProperties {
+
+    private boolean enabled = false;
+
+    private int borrowers = 100_000;
+
+    private int books = 1_000_000;
+
+    // Number of distinct works the book copies are drawn from; popular works get many copies
+    private int titles = 50_000;
+
+    // Share of copies drawn for a loan; a draw for a borrower already at the loan limit leaves the copy available
+    private double borrowedRatio = 0.3;
+
+    // Books and borrowers are spread round-robin over this many branches; 1 keeps everything in MAIN
+    private int branches = 1;
+
+    // Zipf exponent used for both title popularity and borrower activity
+    private double skew = 1.1;
+
+    private int batchSize = 5_000;
+
+    private long seed = 42L;
+}
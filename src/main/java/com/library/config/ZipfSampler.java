@@ -0,0 +1,30 @@
+package com.library.config;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws ranks in [0, size) following a Zipf distribution, so rank 0 is the most frequent.
+ */
+class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int size, double exponent) {
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,30 @@
+package com.library.controller;
+
+import com.library.service.AvailabilityFeed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/books/availability")
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilityFeedController {
+    
+    private final AvailabilityFeed availabilityFeed;
+    
+    // Browsers resend Last-Event-ID on reconnect; clients without EventSource can pass ?since= instead
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                             @RequestParam(required = false) Long since) {
+        Long resumeAfter = lastEventId != null ? lastEventId : since;
+        log.debug("GET /api/books/availability/stream - Subscribing after sequence {}", resumeAfter);
+        return availabilityFeed.subscribe(resumeAfter);
+    }
+}
@@ -1,7 +1,13 @@
 package com.library.controller;
 
 import com.library.dto.BookDto;
+import com.library.dto.BookField;
+import com.library.dto.CatalogSyncResult;
+import com.library.dto.SparseBookDto;
+import com.library.exception.InvalidRequestParameterException;
 import com.library.service.BookService;
+import com.library.service.BorrowPipeline;
+import com.library.service.IsbnLookupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -9,7 +15,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/books")
@@ -18,25 +28,86 @@ import java.util.List;
 public class BookController {
     
     private final BookService bookService;
+    private final IsbnLookupService isbnLookupService;
+    // Present only when library.borrow-pipeline.enabled is set
+    private final Optional<BorrowPipeline> borrowPipeline;
     
     @GetMapping
-    public ResponseEntity<List<BookDto>> getAllBooks() {
+    public ResponseEntity<List<BookDto>> getAllBooks(@RequestParam(required = false) String branch,
+                                                     @RequestParam(required = false) Boolean available) {
+        if (branch != null) {
+            log.debug("GET /api/books?branch={} - Fetching books of branch", branch);
+            return ResponseEntity.ok(bookService.getBooksByBranch(branch, available));
+        }
+        if (available != null) {
+            log.debug("GET /api/books?available={} - Fetching books by availability", available);
+            return ResponseEntity.ok(bookService.getBooksByAvailability(available));
+        }
         log.debug("GET /api/books - Fetching all books");
         List<BookDto> books = bookService.getAllBooks();
         return ResponseEntity.ok(books);
     }
     
+    // Sparse fieldset, e.g. ?fields=id,title,available: only those columns are selected and only those written
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<SparseBookDto>> getBookFields(@RequestParam String fields,
+                                                             @RequestParam(required = false) String branch,
+                                                             @RequestParam(required = false) Boolean available) {
+        log.debug("GET /api/books?fields={} - Fetching selected fields of books", fields);
+        return ResponseEntity.ok(bookService.getBookFields(parseFields(fields), branch, available));
+    }
+    
+    // Accepts ISBN-10 or ISBN-13, with or without hyphens; every branch's copy is returned
+    @GetMapping("/isbn/{isbn}")
+    public ResponseEntity<List<BookDto>> getBooksByIsbn(@PathVariable String isbn) {
+        log.debug("GET /api/books/isbn/{} - Looking up books by ISBN", isbn);
+        return ResponseEntity.ok(isbnLookupService.findByIsbn(isbn));
+    }
+    
     @PostMapping
     public ResponseEntity<BookDto> addBook(@Valid @RequestBody BookDto bookDto) {
-        log.debug("POST /api/books - Adding new book: {}", bookDto.getTitle());
+        log.debug("POST /api/books - Adding new book: {}", bookDto.title());
         BookDto savedBook = bookService.addBook(bookDto);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedBook);
     }
     
+    // Vendor catalog feed: inserts new ISBNs and refreshes title and author of known ones, keyed on branch and ISBN
+    @PutMapping
+    public ResponseEntity<CatalogSyncResult> syncCatalog(@RequestBody List<BookDto> bookDtos) {
+        log.debug("PUT /api/books - Syncing {} catalog entries", bookDtos.size());
+        return ResponseEntity.ok(bookService.syncCatalog(bookDtos));
+    }
+    
     @PostMapping("/{bookId}/borrow/{borrowerId}")
     public ResponseEntity<BookDto> borrowBook(@PathVariable Long bookId, @PathVariable Long borrowerId) {
         log.debug("POST /api/books/{}/borrow/{} - Borrowing book", bookId, borrowerId);
-        BookDto borrowedBook = bookService.borrowBook(bookId, borrowerId);
+        BookDto borrowedBook = borrowPipeline.isPresent()
+                ? borrowPipeline.get().borrow(bookId, borrowerId)
+                : bookService.borrowBook(bookId, borrowerId);
         return ResponseEntity.ok(borrowedBook);
     }
-}
\ No newline at end of file
+    
+    @PostMapping("/{bookId}/return")
+    public ResponseEntity<BookDto> returnBook(@PathVariable Long bookId) {
+        log.debug("POST /api/books/{}/return - Returning book", bookId);
+        BookDto returnedBook = bookService.returnBook(bookId);
+        return ResponseEntity.ok(returnedBook);
+    }
+    
+    private static Set<BookField> parseFields(String fields) {
+        Set<BookField> selected = EnumSet.noneOf(BookField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                selected.add(Arrays.stream(BookField.values())
+                        .filter(candidate -> candidate.fieldName().equals(trimmed))
+                        .findFirst()
+                        .orElseThrow(() -> new InvalidRequestParameterException("Unsupported field: " + trimmed)));
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidRequestParameterException("fields must name at least one book field");
+        }
+        return selected;
+    }
+}
@@ -2,14 +2,20 @@ package com.library.controller;
 
 import com.library.dto.BookDto;
 import com.library.dto.BorrowerDto;
+import com.library.dto.BorrowerPage;
+import com.library.exception.InvalidRequestParameterException;
 import com.library.service.BorrowerService;
+import com.library.service.BorrowerSort;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import jakarta.validation.Valid;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
@@ -18,18 +24,34 @@ import java.util.List;
 @Slf4j
 public class BorrowerController {
     
+    private static final String DEFAULT_PAGE_SIZE = "50";
+    private static final int MAX_PAGE_SIZE = 500;
+    
     private final BorrowerService borrowerService;
     
     @GetMapping
-    public ResponseEntity<List<BorrowerDto>> getAllBorrowers() {
-        log.debug("GET /api/borrowers - Fetching all borrowers");
-        List<BorrowerDto> borrowers = borrowerService.getAllBorrowers();
-        return ResponseEntity.ok(borrowers);
+    public ResponseEntity<List<BorrowerDto>> getBorrowers(@RequestParam(required = false) String q,
+                                                          @RequestParam(defaultValue = "name") String sort,
+                                                          @RequestParam(required = false) Long after,
+                                                          @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int size) {
+        log.debug("GET /api/borrowers - Fetching borrowers (q: {}, sort: {}, after: {}, size: {})", q, sort, after, size);
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidRequestParameterException("Page size must be between 1 and " + MAX_PAGE_SIZE + ": " + size);
+        }
+        BorrowerPage page = borrowerService.getBorrowers(q, parseSort(sort), after, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextAfter() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextAfter())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.borrowers());
     }
     
     @PostMapping
     public ResponseEntity<BorrowerDto> createBorrower(@Valid @RequestBody BorrowerDto borrowerDto) {
-        log.debug("POST /api/borrowers - Creating new borrower: {}", borrowerDto.getEmail());
+        log.debug("POST /api/borrowers - Creating new borrower: {}", borrowerDto.email());
         BorrowerDto savedBorrower = borrowerService.createBorrower(borrowerDto);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedBorrower);
     }
@@ -42,9 +64,19 @@ public class BorrowerController {
     }
     
     @GetMapping("/{id}/books")
-    public ResponseEntity<List<BookDto>> getBorrowedBooks(@PathVariable Long id) {
+    public ResponseEntity<List<BookDto>> getBorrowedBooks(@PathVariable Long id,
+                                                          @RequestParam(required = false) String branch) {
         log.debug("GET /api/borrowers/{}/books - Fetching borrowed books", id);
-        List<BookDto> borrowedBooks = borrowerService.getBorrowedBooks(id);
+        List<BookDto> borrowedBooks = branch != null
+                ? borrowerService.getBorrowedBooks(id, branch)
+                : borrowerService.getBorrowedBooks(id);
         return ResponseEntity.ok(borrowedBooks);
     }
+    
+    private static BorrowerSort parseSort(String sort) {
+        return Arrays.stream(BorrowerSort.values())
+                .filter(candidate -> candidate.name().equalsIgnoreCase(sort))
+                .findFirst()
+                .orElseThrow(() -> new InvalidRequestParameterException("Unsupported sort: " + sort));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.library.controller;
+
+import com.library.exception.InvalidRequestParameterException;
+import com.library.service.ExportDataset;
+import com.library.service.ExportFormat;
+import com.library.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Arrays;
+
+// Left out of the in-memory profile, where the SQL tables it reads stay empty
+@RestController
+@Profile("!in-memory")
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+    
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+    
+    private final ExportService exportService;
+    
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String dataset,
+                                                        @RequestParam(defaultValue = "csv") String format) {
+        log.debug("GET /api/export/{} - Exporting as {}", dataset, format);
+        ExportDataset exportDataset = parse(ExportDataset.class, dataset);
+        ExportFormat exportFormat = parse(ExportFormat.class, format);
+        
+        String fileName = exportDataset.fileName() + "." + exportFormat.getExtension() + ".gz";
+        StreamingResponseBody body = out -> exportService.export(exportDataset, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+    
+    private static <E extends Enum<E>> E parse(Class<E> type, String value) {
+        return Arrays.stream(type.getEnumConstants())
+                .filter(constant -> constant.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElseThrow(() -> new InvalidRequestParameterException(
+                        "Unsupported " + type.getSimpleName().replace("Export", "").toLowerCase() + ": " + value));
+    }
+}
\ No newline at end of file
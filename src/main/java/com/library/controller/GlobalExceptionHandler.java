@@ -1,9 +1,15 @@
 package com.library.controller;
 
 import com.library.exception.BookAlreadyBorrowedException;
+import com.library.exception.BookNotBorrowedException;
 import com.library.exception.BookNotFoundException;
 import com.library.exception.BorrowerNotFoundException;
 import com.library.exception.DuplicateEmailException;
+import com.library.exception.DuplicateIsbnException;
+import com.library.exception.HoldNotAllowedException;
+import com.library.exception.HoldNotFoundException;
+import com.library.exception.InvalidRequestParameterException;
+import com.library.exception.LoanLimitExceededException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -42,6 +48,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
     
+    @ExceptionHandler(HoldNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleHoldNotFound(HoldNotFoundException ex) {
+        log.warn("Hold not found: {}", ex.getMessage());
+        ErrorResponse error = createErrorResponse(
+                HttpStatus.NOT_FOUND,
+                "Hold Not Found",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+    
     @ExceptionHandler(BookAlreadyBorrowedException.class)
     public ResponseEntity<ErrorResponse> handleBookAlreadyBorrowed(BookAlreadyBorrowedException ex) {
         log.warn("Book already borrowed: {}", ex.getMessage());
@@ -53,6 +70,39 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
     
+    @ExceptionHandler(BookNotBorrowedException.class)
+    public ResponseEntity<ErrorResponse> handleBookNotBorrowed(BookNotBorrowedException ex) {
+        log.warn("Book not borrowed: {}", ex.getMessage());
+        ErrorResponse error = createErrorResponse(
+                HttpStatus.CONFLICT,
+                "Book Not Borrowed",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(LoanLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleLoanLimitExceeded(LoanLimitExceededException ex) {
+        log.warn("Loan limit exceeded: {}", ex.getMessage());
+        ErrorResponse error = createErrorResponse(
+                HttpStatus.CONFLICT,
+                "Loan Limit Exceeded",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(HoldNotAllowedException.class)
+    public ResponseEntity<ErrorResponse> handleHoldNotAllowed(HoldNotAllowedException ex) {
+        log.warn("Hold not allowed: {}", ex.getMessage());
+        ErrorResponse error = createErrorResponse(
+                HttpStatus.CONFLICT,
+                "Hold Not Allowed",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
     @ExceptionHandler(DuplicateEmailException.class)
     public ResponseEntity<ErrorResponse> handleDuplicateEmail(DuplicateEmailException ex) {
         log.warn("Duplicate email: {}", ex.getMessage());
@@ -64,6 +114,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
     
+    @ExceptionHandler(DuplicateIsbnException.class)
+    public ResponseEntity<ErrorResponse> handleDuplicateIsbn(DuplicateIsbnException ex) {
+        log.warn("Duplicate ISBN: {}", ex.getMessage());
+        ErrorResponse error = createErrorResponse(
+                HttpStatus.CONFLICT,
+                "Duplicate ISBN",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(InvalidRequestParameterException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequestParameter(InvalidRequestParameterException ex) {
+        log.warn("Invalid request parameter: {}", ex.getMessage());
+        ErrorResponse error = createErrorResponse(
+                HttpStatus.BAD_REQUEST,
+                "Invalid Parameter",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+    
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationErrors(MethodArgumentNotValidException ex) {
         log.warn("Validation error: {}", ex.getMessage());
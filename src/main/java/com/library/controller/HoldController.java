@@ -0,0 +1,41 @@
+package com.library.controller;
+
+import com.library.dto.HoldDto;
+import com.library.service.HoldService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/books/{bookId}/holds")
+@RequiredArgsConstructor
+@Slf4j
+public class HoldController {
+    
+    private final HoldService holdService;
+    
+    @GetMapping
+    public ResponseEntity<List<HoldDto>> getHolds(@PathVariable Long bookId) {
+        log.debug("GET /api/books/{}/holds - Fetching holds", bookId);
+        List<HoldDto> holds = holdService.getHolds(bookId);
+        return ResponseEntity.ok(holds);
+    }
+    
+    @PostMapping("/{borrowerId}")
+    public ResponseEntity<HoldDto> placeHold(@PathVariable Long bookId, @PathVariable Long borrowerId) {
+        log.debug("POST /api/books/{}/holds/{} - Placing hold", bookId, borrowerId);
+        HoldDto hold = holdService.placeHold(bookId, borrowerId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+    
+    @DeleteMapping("/{holdId}")
+    public ResponseEntity<Void> cancelHold(@PathVariable Long bookId, @PathVariable Long holdId) {
+        log.debug("DELETE /api/books/{}/holds/{} - Cancelling hold", bookId, holdId);
+        holdService.cancelHold(bookId, holdId);
+        return ResponseEntity.noContent().build();
+    }
+}
\ No newline at end of file
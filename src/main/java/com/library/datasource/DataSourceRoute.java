@@ -0,0 +1,6 @@
+package com.library.datasource;
+
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA
+}
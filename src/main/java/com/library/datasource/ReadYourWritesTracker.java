@@ -0,0 +1,86 @@
+package com.library.datasource;
+
+import com.library.config.ReplicaDataSourceProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers which borrowers changed their loans recently so their own reads can be pinned to the primary
+ * until the replica has had time to catch up.
+ */
+@Component
+@Slf4j
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final ConcurrentMap<Long, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final int maxTrackedBorrowers;
+
+    public ReadYourWritesTracker(ReplicaDataSourceProperties properties) {
+        this.windowNanos = properties.getReadYourWritesWindow().toNanos();
+        this.maxTrackedBorrowers = properties.getMaxTrackedBorrowers();
+    }
+
+    public static boolean isPrimaryPinned() {
+        return Boolean.TRUE.equals(PRIMARY_PINNED.get());
+    }
+
+    // Starts the window when the surrounding transaction commits, so rolled-back writes never pin anything
+    public void recordWrite(Long borrowerId) {
+        if (borrowerId == null || windowNanos <= 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(borrowerId);
+                }
+            });
+        } else {
+            remember(borrowerId);
+        }
+    }
+
+    // Must be called inside the read-only transaction and before its first query
+    public void pinToPrimaryIfRecentlyWritten(Long borrowerId) {
+        if (!isRecentlyWritten(borrowerId) || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        log.debug("Reading borrower ID: {} from the primary after a recent write", borrowerId);
+        PRIMARY_PINNED.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PRIMARY_PINNED.remove();
+            }
+        });
+    }
+
+    public boolean isRecentlyWritten(Long borrowerId) {
+        Long writtenAt = lastWriteNanos.get(borrowerId);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt < windowNanos) {
+            return true;
+        }
+        lastWriteNanos.remove(borrowerId, writtenAt);
+        return false;
+    }
+
+    private void remember(Long borrowerId) {
+        if (lastWriteNanos.size() >= maxTrackedBorrowers) {
+            long now = System.nanoTime();
+            lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+        }
+        lastWriteNanos.put(borrowerId, System.nanoTime());
+    }
+}
@@ -0,0 +1,20 @@
+package com.library.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything else to the primary. Has to sit
+ * behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, otherwise the connection
+ * is fetched before the transaction is marked read-only.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadYourWritesTracker.isPrimaryPinned()) {
+            return DataSourceRoute.REPLICA;
+        }
+        return DataSourceRoute.PRIMARY;
+    }
+}
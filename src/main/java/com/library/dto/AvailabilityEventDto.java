@@ -0,0 +1,25 @@
+package com.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityEventDto {
+    
+    private Long sequence;
+    
+    private Long bookId;
+    
+    private Boolean available;
+    
+    private Long borrowerId;
+    
+    private String branch;
+    
+    private LocalDateTime occurredAt;
+}
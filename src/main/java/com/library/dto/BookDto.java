@@ -1,33 +1,28 @@
 package com.library.dto;
 
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import jakarta.validation.constraints.Pattern;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class BookDto {
+/**
+ * Immutable book representation used for request and response bodies. Availability is not stored: a book is
+ * available exactly when it has no borrower. Responses are written by {@link com.library.json.BookDtoSerializer}.
+ */
+public record BookDto(
+        Long id,
+        @NotBlank(message = "Title is required") String title,
+        @NotBlank(message = "Author is required") String author,
+        String isbn,
+        Long borrowerId,
+        @Pattern(regexp = BookDto.BRANCH_PATTERN, message = BookDto.BRANCH_MESSAGE) String branch) {
     
-    private Long id;
-    
-    @NotBlank(message = "Title is required")
-    private String title;
-    
-    @NotBlank(message = "Author is required")
-    private String author;
-    
-    private String isbn;
-    
-    private Boolean available;
-    
-    private Long borrowerId;
+    public static final String BRANCH_PATTERN = "^[A-Z0-9_-]{1,32}$";
+    public static final String BRANCH_MESSAGE = "Branch must be 1-32 upper-case letters, digits, '-' or '_'";
     
     public BookDto(String title, String author, String isbn) {
-        this.title = title;
-        this.author = author;
-        this.isbn = isbn;
-        this.available = true;
+        this(null, title, author, isbn, null, null);
+    }
+    
+    public boolean available() {
+        return borrowerId == null;
     }
-}
\ No newline at end of file
+}
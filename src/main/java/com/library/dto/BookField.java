@@ -0,0 +1,27 @@
+package com.library.dto;
+
+/**
+ * Fields a client can pick with {@code GET /api/books?fields=}. Each name is both the JSON property of
+ * {@link BookDto} and the {@code Book} attribute it is read from, except {@code available}, which is derived from
+ * the borrower as in {@link BookDto#available()}; declaration order is the order they are written.
+ */
+public enum BookField {
+    
+    ID("id"),
+    TITLE("title"),
+    AUTHOR("author"),
+    ISBN("isbn"),
+    AVAILABLE("available"),
+    BORROWER_ID("borrowerId"),
+    BRANCH("branch");
+    
+    private final String fieldName;
+    
+    BookField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+    
+    public String fieldName() {
+        return fieldName;
+    }
+}
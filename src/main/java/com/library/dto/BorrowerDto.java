@@ -2,26 +2,23 @@ package com.library.dto;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import jakarta.validation.constraints.Pattern;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class BorrowerDto {
+/**
+ * Immutable borrower representation used for request and response bodies. Responses are written by
+ * {@link com.library.json.BorrowerDtoSerializer}.
+ */
+public record BorrowerDto(
+        Long id,
+        @NotBlank(message = "Name is required") String name,
+        @NotBlank(message = "Email is required") @Email(message = "Email should be valid") String email,
+        @Pattern(regexp = BookDto.BRANCH_PATTERN, message = BookDto.BRANCH_MESSAGE) String branch) {
     
-    private Long id;
-    
-    @NotBlank(message = "Name is required")
-    private String name;
-    
-    @NotBlank(message = "Email is required")
-    @Email(message = "Email should be valid")
-    private String email;
+    public BorrowerDto(Long id, String name, String email) {
+        this(id, name, email, null);
+    }
     
     public BorrowerDto(String name, String email) {
-        this.name = name;
-        this.email = email;
+        this(null, name, email, null);
     }
-}
\ No newline at end of file
+}
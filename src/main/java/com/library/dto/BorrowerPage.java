@@ -0,0 +1,9 @@
+package com.library.dto;
+
+import java.util.List;
+
+/**
+ * One page of the borrower directory; {@code nextAfter} is the id to continue from, or null on the last page.
+ */
+public record BorrowerPage(List<BorrowerDto> borrowers, Long nextAfter) {
+}
@@ -0,0 +1,7 @@
+package com.library.dto;
+
+/**
+ * Outcome of one catalog sync request. Rows repeated within the request count once, under the last occurrence.
+ */
+public record CatalogSyncResult(int received, int inserted, int updated, int unchanged) {
+}
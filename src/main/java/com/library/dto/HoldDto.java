@@ -0,0 +1,21 @@
+package com.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldDto {
+    
+    private Long id;
+    
+    private Long bookId;
+    
+    private Long borrowerId;
+    
+    private LocalDateTime createdAt;
+}
\ No newline at end of file
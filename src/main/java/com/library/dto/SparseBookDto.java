@@ -0,0 +1,36 @@
+package com.library.dto;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A book reduced to the fields a client selected; the others were never read and stay null. Availability means
+ * what it does in {@link BookDto}, no borrower, but it is computed in the query, so it can be selected without
+ * {@code borrowerId}. Responses are written by {@link com.library.json.SparseBookDtoSerializer}, which leaves
+ * unselected fields out entirely.
+ */
+public record SparseBookDto(
+        Set<BookField> fields,
+        Long id,
+        String title,
+        String author,
+        String isbn,
+        Boolean available,
+        Long borrowerId,
+        String branch) {
+    
+    public static SparseBookDto of(Set<BookField> fields, Function<BookField, Object> values) {
+        return new SparseBookDto(fields,
+                (Long) valueOf(fields, BookField.ID, values),
+                (String) valueOf(fields, BookField.TITLE, values),
+                (String) valueOf(fields, BookField.AUTHOR, values),
+                (String) valueOf(fields, BookField.ISBN, values),
+                (Boolean) valueOf(fields, BookField.AVAILABLE, values),
+                (Long) valueOf(fields, BookField.BORROWER_ID, values),
+                (String) valueOf(fields, BookField.BRANCH, values));
+    }
+    
+    private static Object valueOf(Set<BookField> fields, BookField field, Function<BookField, Object> values) {
+        return fields.contains(field) ? values.apply(field) : null;
+    }
+}
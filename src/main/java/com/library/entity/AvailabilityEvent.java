@@ -0,0 +1,42 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Outbox row written in the same transaction as the loan change; the id doubles as the feed sequence number
+@Entity
+@Table(name = "availability_events", indexes = @Index(name = "idx_availability_events_occurred_at", columnList = "occurred_at"))
+@Data
+@NoArgsConstructor
+public class AvailabilityEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+    
+    @Column(nullable = false)
+    private Boolean available;
+    
+    @Column(name = "borrower_id")
+    private Long borrowerId;
+    
+    @Column(nullable = false, length = 32)
+    private String branch;
+    
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+    
+    public AvailabilityEvent(Book book) {
+        this.bookId = book.getId();
+        this.available = book.getAvailable();
+        this.borrowerId = book.getBorrowerId();
+        this.branch = book.getBranch();
+        this.occurredAt = LocalDateTime.now();
+    }
+}
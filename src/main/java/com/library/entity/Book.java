@@ -4,13 +4,28 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books",
+        uniqueConstraints = @UniqueConstraint(name = "uk_books_branch_isbn", columnNames = {"branch", "isbn"}),
+        indexes = {
+                @Index(name = "idx_books_borrowed_by", columnList = "borrowed_by"),
+                @Index(name = "idx_books_isbn", columnList = "isbn")
+        })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
 @Data
 @NoArgsConstructor
 public class Book {
     
+    public static final String DEFAULT_BRANCH = "MAIN";
+    
+    // Only used when the l2-cache profile enables the second-level cache, see ehcache.xml
+    public static final String CACHE_REGION = "library.books";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -23,15 +38,21 @@ public class Book {
     @NotBlank(message = "Author is required")
     private String author;
     
-    @Column(unique = true)
     private String isbn;
     
-    @Column(nullable = false)
+    // The loan columns are inserted with the row but only changed by BookRepository's conditional updates; setting
+    // them on a managed book updates what this transaction sees without Hibernate writing them back
+    @Column(nullable = false, updatable = false)
     private Boolean available = true;
     
-    @Column(name = "borrowed_by")
+    @Column(name = "borrowed_by", updatable = false)
     private Long borrowerId;
     
+    // Partition key of the books table, see db/postgres/books-partitioned-by-branch.sql
+    @Column(nullable = false, length = 32)
+    @ColumnDefault("'" + DEFAULT_BRANCH + "'")
+    private String branch = DEFAULT_BRANCH;
+    
     public Book(String title, String author, String isbn) {
         this.title = title;
         this.author = author;
@@ -3,17 +3,31 @@ package com.library.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.util.Locale;
 
 @Entity
-@Table(name = "borrowers")
+@Table(name = "borrowers", indexes = {
+        @Index(name = "idx_borrowers_name_lower", columnList = "name_lower, id"),
+        @Index(name = "idx_borrowers_email_lower", columnList = "email_lower, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Borrower.CACHE_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Borrower {
     
+    public static final String CACHE_REGION = "library.borrowers";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -27,8 +41,38 @@ public class Borrower {
     @Email(message = "Email should be valid")
     private String email;
     
+    // Books currently lent to this borrower. An existing PostgreSQL database starts every row at 0 and needs the
+    // backfill in db/postgres/active-loans.sql
+    @Column(name = "active_loans", nullable = false, columnDefinition = "integer default 0")
+    private int activeLoans;
+    
+    @Column(nullable = false, length = 32)
+    @ColumnDefault("'" + Book.DEFAULT_BRANCH + "'")
+    private String branch = Book.DEFAULT_BRANCH;
+    
+    // Lower-cased copies that back the directory's sort order and case-insensitive prefix search. On PostgreSQL
+    // they need the "C" collation from db/postgres/borrower-directory.sql, which the mapping cannot declare
+    @Column(name = "name_lower", nullable = false)
+    @Setter(AccessLevel.NONE)
+    private String nameLower;
+    
+    @Column(name = "email_lower", nullable = false)
+    @Setter(AccessLevel.NONE)
+    private String emailLower;
+    
     public Borrower(String name, String email) {
         this.name = name;
         this.email = email;
     }
+    
+    public static String searchKey(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+    
+    @PrePersist
+    @PreUpdate
+    void updateSearchKeys() {
+        this.nameLower = searchKey(name);
+        this.emailLower = searchKey(email);
+    }
 }
\ No newline at end of file
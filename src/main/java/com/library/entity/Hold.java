@@ -0,0 +1,34 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "holds", uniqueConstraints = @UniqueConstraint(
+        name = "uk_holds_book_borrower", columnNames = {"book_id", "borrower_id"}))
+@Data
+@NoArgsConstructor
+public class Hold {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+    
+    @Column(name = "borrower_id", nullable = false)
+    private Long borrowerId;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    public Hold(Long bookId, Long borrowerId) {
+        this.bookId = bookId;
+        this.borrowerId = borrowerId;
+        this.createdAt = LocalDateTime.now();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Response recorded for an Idempotency-Key, replayed verbatim when the client retries
+@Entity
+@Table(name = "idempotency_records", indexes = @Index(name = "idx_idempotency_records_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+    
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+    
+    // SHA-256 of method, path and body, so a key reused for a different request is detected
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+    
+    @Column(nullable = false)
+    private int status;
+    
+    @Column(name = "content_type")
+    private String contentType;
+    
+    @Column(nullable = false, length = 65_536)
+    private byte[] body;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+    
+    // Insert-only, so save() persists instead of merging and a concurrent duplicate fails on the primary key
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,12 @@
+package com.library.exception;
+
+public class BookNotBorrowedException extends RuntimeException {
+    
+    public BookNotBorrowedException(String message) {
+        super(message);
+    }
+    
+    public BookNotBorrowedException(Long bookId) {
+        super("Book with ID " + bookId + " is not borrowed");
+    }
+}
\ No newline at end of file
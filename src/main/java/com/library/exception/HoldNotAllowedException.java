@@ -0,0 +1,8 @@
+package com.library.exception;
+
+public class HoldNotAllowedException extends RuntimeException {
+    
+    public HoldNotAllowedException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
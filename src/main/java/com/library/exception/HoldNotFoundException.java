@@ -0,0 +1,12 @@
+package com.library.exception;
+
+public class HoldNotFoundException extends RuntimeException {
+    
+    public HoldNotFoundException(String message) {
+        super(message);
+    }
+    
+    public HoldNotFoundException(Long holdId) {
+        super("Hold not found with ID: " + holdId);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.library.exception;
+
+public class InvalidRequestParameterException extends RuntimeException {
+    
+    public InvalidRequestParameterException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
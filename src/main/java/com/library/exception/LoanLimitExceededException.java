@@ -0,0 +1,12 @@
+package com.library.exception;
+
+public class LoanLimitExceededException extends RuntimeException {
+    
+    public LoanLimitExceededException(String message) {
+        super(message);
+    }
+    
+    public LoanLimitExceededException(Long borrowerId, int maxActiveLoans) {
+        super("Borrower with ID " + borrowerId + " has reached the limit of " + maxActiveLoans + " active loans");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,248 @@
+package com.library.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.controller.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Makes retried borrow and create-borrower requests free: the first response for an {@code Idempotency-Key} is
+ * recorded and every retry with the same key gets it back without reaching a controller or a transaction.
+ *
+ * <p>Runs after rate limiting, so the database lookup for a key only happens for admitted requests. Retries whose
+ * response is still in memory are answered earlier, ahead of the limiter, by {@link IdempotentReplayFilter}.
+ */
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final List<String> IDEMPOTENT_POSTS = List.of("/api/books/*/borrow/*", "/api/borrowers");
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Counter inProgressRejections;
+    private final Counter mismatchRejections;
+
+    public IdempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.inProgressRejections = rejectionCounter(meterRegistry, "in_progress");
+        this.mismatchRejections = rejectionCounter(meterRegistry, "mismatch");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !isCovered(request, pathMatcher);
+    }
+
+    static boolean isCovered(HttpServletRequest request, AntPathMatcher pathMatcher) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return false;
+        }
+        String path = path(request);
+        return IDEMPOTENT_POSTS.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            reject(response, HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        // Already read by IdempotentReplayFilter when it ran
+        CachedBodyRequest cachedRequest = request instanceof CachedBodyRequest cached ? cached : new CachedBodyRequest(request);
+        String fingerprint = fingerprint(request.getMethod(), path(request), cachedRequest.body);
+
+        if (replayIfRecorded(store.find(key), key, fingerprint, response)) {
+            return;
+        }
+        if (!store.begin(key)) {
+            inProgressRejections.increment();
+            reject(response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still in progress");
+            return;
+        }
+        try {
+            // Re-checked under the in-flight claim: the first request may have finished since the lookup above. It
+            // finished on this instance, so its response is in memory and the database need not be asked again.
+            if (replayIfRecorded(store.findCached(key), key, fingerprint, response)) {
+                return;
+            }
+            ContentCachingResponseWrapper recordingResponse = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(cachedRequest, recordingResponse);
+            if (isRecordable(recordingResponse.getStatus())) {
+                store.save(key, new StoredResponse(fingerprint, recordingResponse.getStatus(),
+                        recordingResponse.getContentType(), recordingResponse.getContentAsByteArray(), LocalDateTime.now()));
+            }
+            recordingResponse.copyBodyToResponse();
+        } finally {
+            store.end(key);
+        }
+    }
+
+    private boolean replayIfRecorded(Optional<StoredResponse> recorded, String key, String fingerprint,
+                                     HttpServletResponse response) throws IOException {
+        if (recorded.isEmpty()) {
+            return false;
+        }
+        if (!recorded.get().fingerprint().equals(fingerprint)) {
+            mismatchRejections.increment();
+            reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+            return true;
+        }
+        log.debug("Replaying recorded response for {}: {}", IDEMPOTENCY_KEY_HEADER, key);
+        replay(recorded.get(), response);
+        return true;
+    }
+
+    static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    // Server errors and load shedding are transient, so the retry should be processed again
+    private static boolean isRecordable(int status) {
+        return status < 500 && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    static String fingerprint(String method, String path, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((method + ' ' + path + '\n').getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .build();
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("library.idempotency.rejections.total")
+                .description("Requests rejected because their Idempotency-Key was in use or reused for another request")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    // Reads the body up front so it can be fingerprinted and still be read by the controller
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is available right away and never blocks
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
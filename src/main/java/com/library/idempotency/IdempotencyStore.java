@@ -0,0 +1,134 @@
+package com.library.idempotency;
+
+import com.library.config.IdempotencyProperties;
+import com.library.entity.IdempotencyRecord;
+import com.library.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recorded responses by Idempotency-Key: a bounded LRU map in front of the idempotency_records table, plus the
+ * set of keys whose first request is still being processed on this instance.
+ */
+@Slf4j
+public class IdempotencyStore {
+
+    private final IdempotencyRecordRepository repository;
+    private final IdempotencyProperties properties;
+    private final Map<String, StoredResponse> cache;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+
+    public IdempotencyStore(IdempotencyRecordRepository repository, IdempotencyProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.properties = properties;
+        int maxEntries = properties.getMaxCachedResponses();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        this.memoryHits = lookupCounter(meterRegistry, "memory");
+        this.databaseHits = lookupCounter(meterRegistry, "database");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("library.idempotency.cached_responses", cache, Map::size)
+                .description("Idempotent responses held in memory")
+                .register(meterRegistry);
+    }
+
+    public Optional<StoredResponse> find(String key) {
+        Optional<StoredResponse> cached = findCached(key);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        if (properties.isPersist()) {
+            Optional<StoredResponse> persisted = repository.findByIdempotencyKey(key)
+                    .map(IdempotencyStore::toResponse)
+                    .filter(response -> !isExpired(response));
+            if (persisted.isPresent()) {
+                databaseHits.increment();
+                cache.put(key, persisted.get());
+                return persisted;
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    // Memory only; a miss here is not counted because the caller goes on to find() or to process the request
+    public Optional<StoredResponse> findCached(String key) {
+        StoredResponse cached = cache.get(key);
+        if (cached == null || isExpired(cached)) {
+            return Optional.empty();
+        }
+        memoryHits.increment();
+        return Optional.of(cached);
+    }
+
+    public void save(String key, StoredResponse response) {
+        cache.put(key, response);
+        if (!properties.isPersist()) {
+            return;
+        }
+        try {
+            repository.save(new IdempotencyRecord(key, response.fingerprint(), response.status(),
+                    response.contentType(), response.body(), response.createdAt()));
+        } catch (DataAccessException e) {
+            // Usually another instance recording the same key first; the in-memory copy still serves retries here
+            log.debug("Could not persist response for Idempotency-Key {}: {}", key, e.getMessage());
+        }
+    }
+
+    public boolean begin(String key) {
+        return inFlight.add(key);
+    }
+
+    public void end(String key) {
+        inFlight.remove(key);
+    }
+
+    @Scheduled(cron = "0 47 * * * *")
+    public void purgeExpired() {
+        synchronized (cache) {
+            cache.values().removeIf(this::isExpired);
+        }
+        if (properties.isPersist()) {
+            int purged = repository.deleteCreatedBefore(LocalDateTime.now().minus(properties.getRetention()));
+            if (purged > 0) {
+                log.info("Purged {} idempotency records older than {}", purged, properties.getRetention());
+            }
+        }
+    }
+
+    private boolean isExpired(StoredResponse response) {
+        return response.createdAt().isBefore(LocalDateTime.now().minus(properties.getRetention()));
+    }
+
+    private static StoredResponse toResponse(IdempotencyRecord record) {
+        return new StoredResponse(record.getFingerprint(), record.getStatus(), record.getContentType(),
+                record.getBody(), record.getCreatedAt());
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("library.idempotency.lookups.total")
+                .description("Idempotency-Key lookups by where the recorded response was found")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.idempotency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Answers retries whose recorded response is still in memory before rate limiting, so a client retrying after a
+ * timeout gets its original answer instead of a 429. Everything else, including keys that are only in the
+ * database and keys reused for a different request, is left to {@link IdempotencyFilter} once admitted.
+ */
+@Slf4j
+public class IdempotentReplayFilter extends OncePerRequestFilter {
+
+    private final IdempotencyStore store;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public IdempotentReplayFilter(IdempotencyStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !IdempotencyFilter.isCovered(request, pathMatcher);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER).trim();
+        Optional<StoredResponse> recorded = store.findCached(key);
+        if (recorded.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        IdempotencyFilter.CachedBodyRequest cachedRequest = new IdempotencyFilter.CachedBodyRequest(request);
+        String fingerprint = IdempotencyFilter.fingerprint(request.getMethod(), IdempotencyFilter.path(request), cachedRequest.body);
+        if (!recorded.get().fingerprint().equals(fingerprint)) {
+            filterChain.doFilter(cachedRequest, response);
+            return;
+        }
+        log.debug("Replaying recorded response ahead of rate limiting for {}: {}", IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        IdempotencyFilter.replay(recorded.get(), response);
+    }
+}
@@ -0,0 +1,9 @@
+package com.library.idempotency;
+
+import java.time.LocalDateTime;
+
+/**
+ * The part of a response that is replayed for a retried request.
+ */
+public record StoredResponse(String fingerprint, int status, String contentType, byte[] body, LocalDateTime createdAt) {
+}
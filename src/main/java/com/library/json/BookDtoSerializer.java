@@ -0,0 +1,50 @@
+package com.library.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.library.dto.BookDto;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+import static com.library.json.JsonWriters.writeNullableNumber;
+import static com.library.json.JsonWriters.writeNullableString;
+
+// Catalog listings are the hottest responses; field names are pre-encoded and no bean introspection runs per call
+@JsonComponent
+public class BookDtoSerializer extends StdSerializer<BookDto> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString AUTHOR = new SerializedString("author");
+    private static final SerializedString ISBN = new SerializedString("isbn");
+    private static final SerializedString AVAILABLE = new SerializedString("available");
+    private static final SerializedString BORROWER_ID = new SerializedString("borrowerId");
+    private static final SerializedString BRANCH = new SerializedString("branch");
+
+    public BookDtoSerializer() {
+        super(BookDto.class);
+    }
+
+    @Override
+    public void serialize(BookDto book, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(book);
+        generator.writeFieldName(ID);
+        writeNullableNumber(generator, book.id());
+        generator.writeFieldName(TITLE);
+        writeNullableString(generator, book.title());
+        generator.writeFieldName(AUTHOR);
+        writeNullableString(generator, book.author());
+        generator.writeFieldName(ISBN);
+        writeNullableString(generator, book.isbn());
+        generator.writeFieldName(AVAILABLE);
+        generator.writeBoolean(book.available());
+        generator.writeFieldName(BORROWER_ID);
+        writeNullableNumber(generator, book.borrowerId());
+        generator.writeFieldName(BRANCH);
+        writeNullableString(generator, book.branch());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,40 @@
+package com.library.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.library.dto.BorrowerDto;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+import static com.library.json.JsonWriters.writeNullableNumber;
+import static com.library.json.JsonWriters.writeNullableString;
+
+@JsonComponent
+public class BorrowerDtoSerializer extends StdSerializer<BorrowerDto> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString BRANCH = new SerializedString("branch");
+
+    public BorrowerDtoSerializer() {
+        super(BorrowerDto.class);
+    }
+
+    @Override
+    public void serialize(BorrowerDto borrower, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(borrower);
+        generator.writeFieldName(ID);
+        writeNullableNumber(generator, borrower.id());
+        generator.writeFieldName(NAME);
+        writeNullableString(generator, borrower.name());
+        generator.writeFieldName(EMAIL);
+        writeNullableString(generator, borrower.email());
+        generator.writeFieldName(BRANCH);
+        writeNullableString(generator, borrower.branch());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,27 @@
+package com.library.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+final class JsonWriters {
+
+    private JsonWriters() {
+    }
+
+    static void writeNullableNumber(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+
+    static void writeNullableString(JsonGenerator generator, String value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.library.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.library.dto.BookField;
+import com.library.dto.SparseBookDto;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static com.library.json.JsonWriters.writeNullableNumber;
+import static com.library.json.JsonWriters.writeNullableString;
+
+// Writes only the selected fields, in BookDto's order, with the same pre-encoded names
+@JsonComponent
+public class SparseBookDtoSerializer extends StdSerializer<SparseBookDto> {
+
+    private static final SerializedString[] NAMES = Arrays.stream(BookField.values())
+            .map(field -> new SerializedString(field.fieldName()))
+            .toArray(SerializedString[]::new);
+
+    public SparseBookDtoSerializer() {
+        super(SparseBookDto.class);
+    }
+
+    @Override
+    public void serialize(SparseBookDto book, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(book);
+        for (BookField field : book.fields()) {
+            generator.writeFieldName(NAMES[field.ordinal()]);
+            switch (field) {
+                case ID -> writeNullableNumber(generator, book.id());
+                case TITLE -> writeNullableString(generator, book.title());
+                case AUTHOR -> writeNullableString(generator, book.author());
+                case ISBN -> writeNullableString(generator, book.isbn());
+                case AVAILABLE -> generator.writeBoolean(Boolean.TRUE.equals(book.available()));
+                case BORROWER_ID -> writeNullableNumber(generator, book.borrowerId());
+                case BRANCH -> writeNullableString(generator, book.branch());
+            }
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,20 @@
+package com.library.mapper;
+
+import com.library.dto.AvailabilityEventDto;
+import com.library.entity.AvailabilityEvent;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AvailabilityEventMapper {
+    
+    public AvailabilityEventDto toDto(AvailabilityEvent event) {
+        return new AvailabilityEventDto(
+                event.getId(),
+                event.getBookId(),
+                event.getAvailable(),
+                event.getBorrowerId(),
+                event.getBranch(),
+                event.getOccurredAt()
+        );
+    }
+}
@@ -13,19 +13,19 @@ public class BookMapper {
                 book.getTitle(),
                 book.getAuthor(),
                 book.getIsbn(),
-                book.getAvailable(),
-                book.getBorrowerId()
+                book.getBorrowerId(),
+                book.getBranch()
         );
     }
     
     public Book toEntity(BookDto bookDto) {
         Book book = new Book();
-        book.setId(bookDto.getId());
-        book.setTitle(bookDto.getTitle());
-        book.setAuthor(bookDto.getAuthor());
-        book.setIsbn(bookDto.getIsbn());
-        book.setAvailable(bookDto.getAvailable() != null ? bookDto.getAvailable() : true);
-        book.setBorrowerId(bookDto.getBorrowerId());
+        book.setId(bookDto.id());
+        book.setTitle(bookDto.title());
+        book.setAuthor(bookDto.author());
+        book.setIsbn(bookDto.isbn());
+        book.setBorrowerId(bookDto.borrowerId());
+        book.setBranch(bookDto.branch() != null ? bookDto.branch() : Book.DEFAULT_BRANCH);
         return book;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.library.mapper;
 
 import com.library.dto.BorrowerDto;
+import com.library.entity.Book;
 import com.library.entity.Borrower;
 import org.springframework.stereotype.Component;
 
@@ -11,15 +12,17 @@ public class BorrowerMapper {
         return new BorrowerDto(
                 borrower.getId(),
                 borrower.getName(),
-                borrower.getEmail()
+                borrower.getEmail(),
+                borrower.getBranch()
         );
     }
     
     public Borrower toEntity(BorrowerDto borrowerDto) {
         Borrower borrower = new Borrower();
-        borrower.setId(borrowerDto.getId());
-        borrower.setName(borrowerDto.getName());
-        borrower.setEmail(borrowerDto.getEmail());
+        borrower.setId(borrowerDto.id());
+        borrower.setName(borrowerDto.name());
+        borrower.setEmail(borrowerDto.email());
+        borrower.setBranch(borrowerDto.branch() != null ? borrowerDto.branch() : Book.DEFAULT_BRANCH);
         return borrower;
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.library.mapper;
+
+import com.library.dto.HoldDto;
+import com.library.entity.Hold;
+import org.springframework.stereotype.Component;
+
+@Component
+public class HoldMapper {
+    
+    public HoldDto toDto(Hold hold) {
+        return new HoldDto(
+                hold.getId(),
+                hold.getBookId(),
+                hold.getBorrowerId(),
+                hold.getCreatedAt()
+        );
+    }
+}
\ No newline at end of file
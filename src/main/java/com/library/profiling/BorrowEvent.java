@@ -0,0 +1,42 @@
+package com.library.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(BorrowEvent.NAME)
+@Label("Borrow Book")
+@Category({"Library", "Service"})
+@Description("One call to BookService.borrowBook, from lookup to the loan being written")
+@StackTrace(false)
+public class BorrowEvent extends Event {
+
+    public static final String NAME = "library.Borrow";
+
+    @Label("Book ID")
+    long bookId;
+
+    @Label("Borrower ID")
+    long borrowerId;
+
+    @Label("Outcome")
+    String outcome;
+
+    public BorrowEvent(Long bookId, Long borrowerId) {
+        this.bookId = bookId != null ? bookId : 0;
+        this.borrowerId = borrowerId != null ? borrowerId : 0;
+        begin();
+    }
+
+    // Outcome is "borrowed" or the simple name of the exception that rejected the borrow
+    public void complete(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.library.profiling;
+
+import com.library.config.ProfilingProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code /actuator/jfr}: JDK Flight Recorder recordings with the library's own events next to the JVM's.
+ *
+ * <p>With continuous mode on, a recording with the low-overhead {@code default} settings runs from startup and
+ * keeps a rolling buffer of the last {@code max-age}, so {@code GET /actuator/jfr/{id}?last=5m} can fetch the
+ * minutes before an incident. On-demand recordings use the {@code profile} settings, which sample more, and stop
+ * by themselves after their duration.
+ */
+@Slf4j
+@Endpoint(id = "jfr")
+public class FlightRecorderEndpoint implements AutoCloseable {
+
+    static final String CONTINUOUS = "library-continuous";
+
+    private final ProfilingProperties properties;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+
+    public FlightRecorderEndpoint(ProfilingProperties properties) {
+        this.properties = properties;
+        if (properties.getContinuous().isEnabled()) {
+            startContinuous(properties.getContinuous());
+        }
+    }
+
+    @ReadOperation
+    public List<RecordingDescriptor> recordings() {
+        return recordings.values().stream()
+                .sorted(Comparator.comparingLong(Recording::getId))
+                .map(RecordingDescriptor::of)
+                .toList();
+    }
+
+    @WriteOperation
+    public synchronized RecordingDescriptor start(@Nullable Duration duration, @Nullable String settings) {
+        Duration length = duration != null ? duration : properties.getDefaultDuration();
+        if (length.isNegative() || length.isZero() || length.compareTo(properties.getMaxDuration()) > 0) {
+            throw new InvalidEndpointRequestException("Duration must be positive and at most "
+                    + properties.getMaxDuration(), "Invalid duration");
+        }
+        long onDemand = recordings.values().stream().filter(recording -> !isContinuous(recording)).count();
+        if (onDemand >= properties.getMaxRecordings()) {
+            throw new InvalidEndpointRequestException("At most " + properties.getMaxRecordings()
+                    + " recordings are kept; delete one first", "Too many recordings");
+        }
+
+        Recording recording = new Recording(configuration(settings != null ? settings : "profile"));
+        recording.setName("library-" + Instant.now());
+        recording.setToDisk(true);
+        recording.setDuration(length);
+        recording.setMaxSize(properties.getMaxRecordingSize().toBytes());
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        log.info("Started flight recording {} for {}", recording.getId(), length);
+        return RecordingDescriptor.of(recording);
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<RecordingDescriptor> stop(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return new WebEndpointResponse<>(RecordingDescriptor.of(recording));
+    }
+
+    /**
+     * Writes the recording, or only its chunks that overlap the last {@code last}, as a {@code .jfr} file.
+     * JFR rotates chunks about once a minute, so a filtered dump can start up to a chunk earlier.
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector long id, @Nullable Duration last) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        // A stopped copy shares the chunks written so far; a running recording cannot be read directly
+        try (Recording snapshot = recording.copy(true)) {
+            Path file = Files.createTempFile("library-recording-" + id + "-", ".jfr");
+            try (InputStream in = snapshot.getStream(last != null ? Instant.now().minus(last) : null, null)) {
+                if (in != null) {
+                    Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return new WebEndpointResponse<>(new TemporaryFileResource(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> delete(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (isContinuous(recording)) {
+            throw new InvalidEndpointRequestException("The continuous recording runs until shutdown",
+                    "Continuous recording");
+        }
+        recordings.remove(id);
+        recording.close();
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+    }
+
+    @Override
+    public void close() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+    }
+
+    private void startContinuous(ProfilingProperties.Continuous continuous) {
+        Recording recording = new Recording(configuration("default"));
+        recording.setName(CONTINUOUS);
+        recording.setToDisk(true);
+        recording.setMaxAge(continuous.getMaxAge());
+        recording.setMaxSize(continuous.getMaxSize().toBytes());
+        recording.enable(RepositoryCallEvent.NAME).withThreshold(continuous.getEventThreshold());
+        recording.enable(SerializationEvent.NAME).withThreshold(continuous.getEventThreshold());
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        log.info("Continuous flight recording {} keeps the last {}", recording.getId(), continuous.getMaxAge());
+    }
+
+    private static Configuration configuration(String name) {
+        try {
+            return Configuration.getConfiguration(name);
+        } catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException("Unknown settings '" + name + "'; use default or profile",
+                    "Unknown settings");
+        }
+    }
+
+    private static boolean isContinuous(Recording recording) {
+        return CONTINUOUS.equals(recording.getName());
+    }
+
+    // Deleted once the response has been streamed, like the heap dump endpoint's file
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.library.profiling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+// Boot's own converter plus a SerializationEvent per response body
+public class ProfiledJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public ProfiledJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        SerializationEvent event = new SerializationEvent();
+        event.begin();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                if (object instanceof Collection<?> collection) {
+                    event.elements = collection.size();
+                    event.type = collection.isEmpty() ? collection.getClass().getSimpleName()
+                            : collection.iterator().next().getClass().getSimpleName();
+                } else {
+                    event.elements = 1;
+                    event.type = object.getClass().getSimpleName();
+                }
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.library.profiling;
+
+import jdk.jfr.Recording;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public record RecordingDescriptor(long id,
+                                  String name,
+                                  String state,
+                                  Instant startTime,
+                                  Instant stopTime,
+                                  Duration duration,
+                                  Duration maxAge,
+                                  long size) {
+
+    static RecordingDescriptor of(Recording recording) {
+        return new RecordingDescriptor(recording.getId(), recording.getName(), recording.getState().name(),
+                recording.getStartTime(), recording.getStopTime(), recording.getDuration(), recording.getMaxAge(),
+                recording.getSize());
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(RepositoryCallEvent.NAME)
+@Label("Repository Call")
+@Category({"Library", "Repository"})
+@Description("One call to a Spring Data repository method, including the statements it ran")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+
+    public static final String NAME = "library.RepositoryCall";
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+}
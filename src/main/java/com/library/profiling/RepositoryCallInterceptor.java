@@ -0,0 +1,33 @@
+package com.library.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Emits a {@link RepositoryCallEvent} around every repository method. While no recording enables the event,
+ * this costs a flag check per call.
+ */
+public class RepositoryCallInterceptor implements MethodInterceptor {
+
+    private final String repository;
+
+    public RepositoryCallInterceptor(Class<?> repositoryInterface) {
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        event.begin();
+        try {
+            return invocation.proceed();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = repository;
+                event.method = invocation.getMethod().getName();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(SerializationEvent.NAME)
+@Label("Response Serialization")
+@Category({"Library", "Web"})
+@Description("Writing one JSON response body, including the time spent blocked on a slow client")
+@StackTrace(false)
+public class SerializationEvent extends Event {
+
+    public static final String NAME = "library.Serialization";
+
+    @Label("Type")
+    @Description("Class of the response body, or of its elements when it is a collection")
+    String type;
+
+    @Label("Elements")
+    int elements;
+}
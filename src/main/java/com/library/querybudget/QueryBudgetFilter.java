@@ -0,0 +1,94 @@
+package com.library.querybudget;
+
+import com.library.config.QueryBudgetProperties;
+import com.library.querybudget.QueryCounter.QueryBudget;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the statements and rows of each request and records them as {@code library.request.statements} and
+ * {@code library.request.rows} per endpoint, and as attributes of the request's span. With enforcement on, the
+ * statement that takes a request over its endpoint's budget fails, which is how tests catch N+1 queries.
+ */
+@Slf4j
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final String UNMAPPED = "UNMAPPED";
+
+    private final Map<String, Integer> maxStatementsByEndpoint;
+    private final int defaultMaxStatements;
+    private final boolean enforce;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    public QueryBudgetFilter(QueryBudgetProperties properties,
+                             MeterRegistry meterRegistry,
+                             ObservationRegistry observationRegistry) {
+        this.maxStatementsByEndpoint = properties.getBudgets().stream()
+                .collect(Collectors.toMap(QueryBudgetProperties.Budget::getEndpoint,
+                        QueryBudgetProperties.Budget::getMaxStatements));
+        this.defaultMaxStatements = properties.getDefaultMaxStatements();
+        this.enforce = properties.isEnforce();
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter counter = QueryCounter.start(() -> budget(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.stop();
+            record(request, counter);
+        }
+    }
+
+    private QueryBudget budget(HttpServletRequest request) {
+        String endpoint = request.getMethod() + ' ' + uri(request);
+        return new QueryBudget(endpoint, maxStatementsByEndpoint.getOrDefault(endpoint, defaultMaxStatements), enforce);
+    }
+
+    private void record(HttpServletRequest request, QueryCounter counter) {
+        String uri = uri(request);
+        summary("library.request.statements", "SQL statements executed per request", request, uri)
+                .record(counter.statements());
+        summary("library.request.rows", "Rows read from result sets per request", request, uri)
+                .record(counter.rows());
+        Observation observation = observationRegistry.getCurrentObservation();
+        if (observation != null) {
+            observation.highCardinalityKeyValue("db.statements", String.valueOf(counter.statements()));
+            observation.highCardinalityKeyValue("db.rows", String.valueOf(counter.rows()));
+        }
+        log.debug("{} {} ran {} statements reading {} rows", request.getMethod(), uri, counter.statements(), counter.rows());
+    }
+
+    private DistributionSummary summary(String name, String description, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+
+    // The mapped pattern, like http.server.requests, so path variables do not multiply the series
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : UNMAPPED;
+    }
+}
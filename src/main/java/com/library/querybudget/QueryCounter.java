@@ -0,0 +1,62 @@
+package com.library.querybudget;
+
+import java.util.function.Supplier;
+
+/**
+ * Statements and rows of the HTTP request being handled on the current thread. {@link QueryCountingDataSource}
+ * records into it; work on other threads, such as scheduled jobs and streamed exports, is not counted.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    private final Supplier<QueryBudget> budget;
+    private int statements;
+    private long rows;
+
+    private QueryCounter(Supplier<QueryBudget> budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Starts counting on this thread. The budget is looked up when a statement is recorded, because the endpoint
+     * is only known once the request has been mapped to a handler.
+     */
+    static QueryCounter start(Supplier<QueryBudget> budget) {
+        QueryCounter counter = new QueryCounter(budget);
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    static QueryCounter current() {
+        return CURRENT.get();
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    void recordStatement() {
+        statements++;
+        QueryBudget limit = budget.get();
+        if (limit.enforced() && statements > limit.maxStatements()) {
+            throw new QueryBudgetExceededException(limit.endpoint() + " ran more than its budget of "
+                    + limit.maxStatements() + " statements");
+        }
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    record QueryBudget(String endpoint, int maxStatements, boolean enforced) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.library.querybudget;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts every statement executed and every row read through connections taken while a {@link QueryCounter} is
+ * active, whether they come from Hibernate or a {@code JdbcTemplate}. Connections taken by other threads are
+ * handed out unwrapped, so background jobs pay nothing.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        QueryCounter counter = QueryCounter.current();
+        if (counter == null) {
+            return connection;
+        }
+        return proxy(Connection.class, connection, (method, result) -> switch (method.getName()) {
+            case "createStatement" -> countingStatement(Statement.class, (Statement) result, counter);
+            case "prepareStatement" -> countingStatement(PreparedStatement.class, (PreparedStatement) result, counter);
+            case "prepareCall" -> countingStatement(CallableStatement.class, (CallableStatement) result, counter);
+            default -> result;
+        }, null);
+    }
+
+    private static <S extends Statement> S countingStatement(Class<S> type, S statement, QueryCounter counter) {
+        return proxy(type, statement, (method, result) -> result instanceof ResultSet resultSet
+                ? countingResultSet(resultSet, counter)
+                : result, method -> {
+            if (method.getName().startsWith("execute")) {
+                counter.recordStatement();
+            }
+        });
+    }
+
+    private static ResultSet countingResultSet(ResultSet resultSet, QueryCounter counter) {
+        return proxy(ResultSet.class, resultSet, (method, result) -> {
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                counter.recordRow();
+            }
+            return result;
+        }, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, ResultWrapper wrapper, BeforeCall beforeCall) {
+        InvocationHandler handler = (proxy, method, arguments) -> {
+            // Identity semantics, so Spring can recognize a connection it handed out
+            if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                return proxy == arguments[0];
+            }
+            if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            if (beforeCall != null) {
+                beforeCall.accept(method);
+            }
+            try {
+                return wrapper.apply(method, method.invoke(target, arguments));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @FunctionalInterface
+    private interface ResultWrapper {
+        Object apply(Method method, Object result);
+    }
+
+    @FunctionalInterface
+    private interface BeforeCall {
+        void accept(Method method);
+    }
+}
@@ -0,0 +1,65 @@
+package com.library.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD concurrency limit: the limit grows by one while requests finish under the target latency with the
+ * limit in use, and shrinks multiplicatively as soon as they do not.
+ *
+ * <p>Only a slow request admitted after the last decrease can shrink the limit again. The requests caught in
+ * one latency spike were all admitted under the old limit, so together they cut it once instead of compounding
+ * the cut down to the minimum.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(NEVER);
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.limit = new AtomicInteger(Math.min(Math.max(initialLimit, minLimit), maxLimit));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long startNanos, long endNanos) {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        if (endNanos - startNanos > targetLatencyNanos) {
+            long lastDecrease = lastDecreaseNanos.get();
+            if ((lastDecrease == NEVER || startNanos - lastDecrease >= 0)
+                    && lastDecreaseNanos.compareAndSet(lastDecrease, endNanos)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * BACKOFF_RATIO)));
+            }
+        } else if (inFlightBeforeRelease * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,159 @@
+package com.library.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.config.RateLimitProperties;
+import com.library.controller.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds load in front of the API before any controller, transaction or connection is touched: write requests
+ * pass a per-client and a global token bucket, and every request passes an adaptive concurrency limit.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TokenBucket globalBucket;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ConcurrentMap<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    private final Counter clientRateRejections;
+    private final Counter globalRateRejections;
+    private final Counter concurrencyRejections;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        RateLimitProperties.Bucket global = properties.getGlobal();
+        this.globalBucket = new TokenBucket(global.getRatePerSecond(), global.getBurst(), System.nanoTime());
+        RateLimitProperties.Admission admission = properties.getAdmission();
+        this.concurrencyLimiter = admission.isEnabled()
+                ? new AdaptiveConcurrencyLimiter(admission.getInitialLimit(), admission.getMinLimit(),
+                        admission.getMaxLimit(), admission.getTargetLatency().toNanos())
+                : null;
+
+        this.clientRateRejections = shedCounter(meterRegistry, "client_rate");
+        this.globalRateRejections = shedCounter(meterRegistry, "global_rate");
+        this.concurrencyRejections = shedCounter(meterRegistry, "concurrency");
+        Gauge.builder("library.rate_limit.tracked_clients", clientBuckets, ConcurrentMap::size)
+                .description("Clients with a live token bucket")
+                .register(meterRegistry);
+        if (concurrencyLimiter != null) {
+            Gauge.builder("library.admission.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .register(meterRegistry);
+            Gauge.builder("library.admission.in_flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requests currently admitted")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (WRITE_METHODS.contains(request.getMethod()) && !admitWrite(request, response)) {
+            return;
+        }
+        if (concurrencyLimiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            concurrencyRejections.increment();
+            reject(response, TimeUnit.SECONDS.toNanos(1), "Server is at capacity, retry later");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimiter.release(start, System.nanoTime());
+        }
+    }
+
+    private boolean admitWrite(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long now = System.nanoTime();
+        TokenBucket clientBucket = clientBucket(clientKey(request), now);
+        long clientWait = clientBucket.tryAcquire(now);
+        if (clientWait > 0) {
+            clientRateRejections.increment();
+            reject(response, clientWait, "Too many write requests from this client");
+            return false;
+        }
+        long globalWait = globalBucket.tryAcquire(now);
+        if (globalWait > 0) {
+            // A request shed for global load must not also use up the client's own allowance
+            clientBucket.refund();
+            globalRateRejections.increment();
+            reject(response, globalWait, "Too many write requests, retry later");
+            return false;
+        }
+        return true;
+    }
+
+    private TokenBucket clientBucket(String clientKey, long now) {
+        TokenBucket bucket = clientBuckets.get(clientKey);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clientBuckets.size() >= properties.getMaxTrackedClients()) {
+            // Full buckets carry no state worth keeping; dropping them is equivalent to a fresh bucket
+            clientBuckets.values().removeIf(candidate -> candidate.isFull(now));
+        }
+        RateLimitProperties.Bucket perClient = properties.getPerClient();
+        return clientBuckets.computeIfAbsent(clientKey,
+                key -> new TokenBucket(perClient.getRatePerSecond(), perClient.getBurst(), now));
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma >= 0 ? forwardedFor.substring(0, comma) : forwardedFor).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterNanos, String message) throws IOException {
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(retryAfterNanos / 1e9));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error("Too Many Requests")
+                .message(message)
+                .build();
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("library.requests.shed.total")
+                .description("Requests rejected by rate limiting or admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
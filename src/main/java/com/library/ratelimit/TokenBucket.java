@@ -0,0 +1,49 @@
+package com.library.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm: the whole bucket state is a single
+ * "theoretical arrival time", so acquiring a token is one CAS and an idle bucket needs no refill work.
+ */
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(burst - 1, 0);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next token becomes available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long arrival = Math.max(current, nowNanos);
+            long wait = arrival - nowNanos - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire} for a request that was rejected elsewhere. A bucket that has
+     * refilled since is already full and stays so.
+     */
+    public void refund() {
+        theoreticalArrival.addAndGet(-emissionIntervalNanos);
+    }
+
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
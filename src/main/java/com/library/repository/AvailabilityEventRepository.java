@@ -0,0 +1,29 @@
+package com.library.repository;
+
+import com.library.entity.AvailabilityEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AvailabilityEventRepository extends JpaRepository<AvailabilityEvent, Long> {
+    
+    List<AvailabilityEvent> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
+    List<AvailabilityEvent> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long after, Long upTo, Limit limit);
+    
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM AvailabilityEvent e")
+    long findMaxId();
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AvailabilityEvent e WHERE e.occurredAt < :cutoff")
+    int deleteOccurredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,19 @@
+package com.library.repository;
+
+import com.library.dto.BookField;
+import com.library.dto.SparseBookDto;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sparse catalog reads, mixed into {@link BookRepository}: only the selected columns are in the select list.
+ */
+public interface BookFieldRepository {
+
+    /**
+     * Books of the branch, or of every branch when {@code branch} is null, with only {@code fields} read.
+     * {@code available}, when given, keeps books without (true) or with (false) a borrower, with or without a branch.
+     */
+    List<SparseBookDto> findFields(Set<BookField> fields, String branch, Boolean available);
+}
@@ -0,0 +1,61 @@
+package com.library.repository;
+
+import com.library.dto.BookField;
+import com.library.dto.SparseBookDto;
+import com.library.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds a tuple query selecting just the requested attributes. The rows are scalars, not managed entities, so
+ * Hibernate neither hydrates whole books nor keeps snapshots of them for dirty checking.
+ */
+@RequiredArgsConstructor
+public class BookFieldRepositoryImpl implements BookFieldRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<SparseBookDto> findFields(Set<BookField> fields, String branch, Boolean available) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+        query.multiselect(fields.stream()
+                .<Selection<?>>map(field -> select(builder, book, field).alias(field.fieldName()))
+                .toList());
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (branch != null) {
+            predicates.add(builder.equal(book.get("branch"), branch));
+        }
+        if (available != null) {
+            predicates.add(available ? builder.isNull(book.get("borrowerId")) : builder.isNotNull(book.get("borrowerId")));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(tuple -> SparseBookDto.of(fields, field -> tuple.get(field.fieldName())))
+                .toList();
+    }
+
+    // Same definition as BookDto.available(): a book is available exactly when it has no borrower
+    private static Expression<?> select(CriteriaBuilder builder, Root<Book> book, BookField field) {
+        if (field == BookField.AVAILABLE) {
+            return builder.<Boolean>selectCase()
+                    .when(builder.isNull(book.get("borrowerId")), true)
+                    .otherwise(false);
+        }
+        return book.get(field.fieldName());
+    }
+}
@@ -0,0 +1,7 @@
+package com.library.repository;
+
+/**
+ * The ISBN column of one book, as read by the ISBN filter rebuild and tail; {@code isbn} may be null.
+ */
+public record BookIsbn(Long bookId, String isbn) {
+}
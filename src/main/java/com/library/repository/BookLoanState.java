@@ -0,0 +1,15 @@
+package com.library.repository;
+
+/**
+ * Loan columns of one book, with {@code existingBorrowerId} null when {@code borrowerId} points at no borrower.
+ */
+public record BookLoanState(Long bookId, Boolean available, Long borrowerId, Long existingBorrowerId) {
+
+    public boolean hasDanglingBorrower() {
+        return borrowerId != null && existingBorrowerId == null;
+    }
+
+    public boolean hasAvailabilityMismatch() {
+        return available != (borrowerId == null);
+    }
+}
@@ -1,20 +1,92 @@
 package com.library.repository;
 
 import com.library.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookUpsertRepository, BookFieldRepository {
+    
+    // Synchronized with a query space no entity maps to, so Hibernate does not evict every cached book
+    String LOAN_SPACE = "book_loans";
     
     List<Book> findByBorrowerId(Long borrowerId);
     
+    // Cached only when the l2-cache profile enables the query cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Book> findByIsbn(String isbn);
     
-    List<Book> findByAvailable(Boolean available);
+    // Every branch's copy of a title, for the ISBN lookup endpoint
+    List<Book> findByIsbnOrderByIdAsc(String isbn);
+    
+    // Pre-check for addBook, so a repeated ISBN is a 409 rather than a constraint violation at flush
+    boolean existsByBranchAndIsbn(String branch, String isbn);
+    
+    // Availability as BookDto defines it, no borrower, rather than the stored flag, which can drift until
+    // BookConsistencyReconciler repairs it; the sparse view in BookFieldRepository filters the same way
+    @Query("SELECT b FROM Book b WHERE CASE WHEN b.borrowerId IS NULL THEN true ELSE false END = :available")
+    List<Book> findByAvailable(@Param("available") Boolean available);
     
     long countByAvailable(Boolean available);
-}
\ No newline at end of file
+    
+    // Branch-scoped variants: the branch predicate lets PostgreSQL prune to a single books partition
+    List<Book> findByBranch(String branch);
+    
+    @Query("SELECT b FROM Book b WHERE b.branch = :branch "
+            + "AND CASE WHEN b.borrowerId IS NULL THEN true ELSE false END = :available")
+    List<Book> findByBranchAndAvailable(@Param("branch") String branch, @Param("available") Boolean available);
+    
+    List<Book> findByBranchAndBorrowerId(String branch, Long borrowerId);
+    
+    long countByBranchAndAvailable(String branch, Boolean available);
+    
+    // One keyset chunk of the consistency scan, see BookConsistencyReconciler
+    @Query("SELECT new com.library.repository.BookLoanState(b.id, b.available, b.borrowerId, br.id) FROM Book b "
+            + "LEFT JOIN Borrower br ON br.id = b.borrowerId WHERE b.id > :after ORDER BY b.id")
+    List<BookLoanState> findLoanStatesAfter(@Param("after") Long after, Limit limit);
+    
+    // One keyset chunk of the ISBN filter rebuild or tail, see IsbnLookupService. Rows without an ISBN are included
+    // so the tail can tell them from ids that are not committed yet
+    @Query("SELECT new com.library.repository.BookIsbn(b.id, b.isbn) FROM Book b "
+            + "WHERE b.id > :after ORDER BY b.id")
+    List<BookIsbn> findIsbnsAfter(@Param("after") Long after, Limit limit);
+    
+    // The loan columns are only written by these conditional updates, see Book#borrowerId. Each changes the row
+    // only if it still holds the loan state the caller read, so of two concurrent borrows or returns of one book
+    // exactly one sees 1. Callers evict the one cached book via EntityCacheEvictor.
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE books SET borrowed_by = :borrowerId, available = FALSE WHERE id = :bookId AND borrowed_by IS NULL",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = LOAN_SPACE))
+    int assignBorrower(@Param("bookId") Long bookId, @Param("borrowerId") Long borrowerId);
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE books SET borrowed_by = :nextBorrowerId WHERE id = :bookId AND borrowed_by = :borrowerId",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = LOAN_SPACE))
+    int transferBorrower(@Param("bookId") Long bookId, @Param("borrowerId") Long borrowerId,
+                         @Param("nextBorrowerId") Long nextBorrowerId);
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE books SET borrowed_by = NULL, available = TRUE WHERE id = :bookId AND borrowed_by = :borrowerId",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = LOAN_SPACE))
+    int releaseBorrower(@Param("bookId") Long bookId, @Param("borrowerId") Long borrowerId);
+    
+    // Reconciler repair of a flag that disagrees with borrowed_by
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE books SET available = (borrowed_by IS NULL) WHERE id = :bookId AND available = (borrowed_by IS NOT NULL)",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = LOAN_SPACE))
+    int syncAvailable(@Param("bookId") Long bookId);
+}
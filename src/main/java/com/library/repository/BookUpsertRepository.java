@@ -0,0 +1,21 @@
+package com.library.repository;
+
+import com.library.entity.Book;
+
+import java.util.List;
+
+/**
+ * Set-based catalog writes that JPA cannot express, mixed into {@link BookRepository}.
+ */
+public interface BookUpsertRepository {
+
+    /**
+     * Inserts each book, or, when its branch already has a book with the same ISBN, updates that row's title and
+     * author. Loan columns of existing rows are never touched, and rows whose title and author already match are
+     * left alone. Every book must have an ISBN, and no two may share a branch and ISBN.
+     */
+    UpsertCounts upsertByIsbn(List<Book> books);
+
+    record UpsertCounts(int inserted, int updated) {
+    }
+}
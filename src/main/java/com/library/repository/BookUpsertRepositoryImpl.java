@@ -0,0 +1,84 @@
+package com.library.repository;
+
+import com.library.entity.Book;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * On PostgreSQL each call is one {@code INSERT ... ON CONFLICT (branch, isbn) DO UPDATE} whose {@code RETURNING}
+ * clause tells inserts from updates. Other databases (H2 in tests and the in-memory profile) get the equivalent
+ * standard {@code MERGE}, preceded by a count of the rows it will update.
+ *
+ * <p>Runs on the connection of the surrounding JPA transaction, so callers must not have unflushed changes to
+ * the same books, and must evict cached {@link Book} entities afterwards.
+ */
+@RequiredArgsConstructor
+public class BookUpsertRepositoryImpl implements BookUpsertRepository {
+
+    private static final String VALUES_ROW = "(CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(32)))";
+
+    // xmax is 0 only for a freshly inserted row version; the WHERE skips updates that would change nothing
+    private static final String INSERT_ON_CONFLICT = "INSERT INTO books (title, author, isbn, branch, available) "
+            + "SELECT s.title, s.author, s.isbn, s.branch, TRUE FROM (VALUES %s) AS s (title, author, isbn, branch) "
+            + "ON CONFLICT (branch, isbn) DO UPDATE SET title = EXCLUDED.title, author = EXCLUDED.author "
+            + "WHERE books.title IS DISTINCT FROM EXCLUDED.title OR books.author IS DISTINCT FROM EXCLUDED.author "
+            + "RETURNING (xmax = 0) AS inserted";
+
+    private static final String COUNT_CHANGED = "SELECT COUNT(*) FROM books b "
+            + "JOIN (VALUES %s) AS s (title, author, isbn, branch) ON b.branch = s.branch AND b.isbn = s.isbn "
+            + "WHERE b.title <> s.title OR b.author <> s.author";
+
+    private static final String MERGE = "MERGE INTO books b "
+            + "USING (VALUES %s) AS s (title, author, isbn, branch) ON b.branch = s.branch AND b.isbn = s.isbn "
+            + "WHEN MATCHED AND (b.title <> s.title OR b.author <> s.author) THEN UPDATE SET title = s.title, author = s.author "
+            + "WHEN NOT MATCHED THEN INSERT (title, author, isbn, branch, available) VALUES (s.title, s.author, s.isbn, s.branch, TRUE)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    @Override
+    public UpsertCounts upsertByIsbn(List<Book> books) {
+        if (books.isEmpty()) {
+            return new UpsertCounts(0, 0);
+        }
+        String values = String.join(", ", Collections.nCopies(books.size(), VALUES_ROW));
+        Object[] arguments = arguments(books);
+        if (isPostgres()) {
+            List<Boolean> changed = jdbcTemplate.query(INSERT_ON_CONFLICT.formatted(values),
+                    (resultSet, row) -> resultSet.getBoolean("inserted"), arguments);
+            int inserted = (int) changed.stream().filter(Boolean::booleanValue).count();
+            return new UpsertCounts(inserted, changed.size() - inserted);
+        }
+        Integer updated = jdbcTemplate.queryForObject(COUNT_CHANGED.formatted(values), Integer.class, arguments);
+        int merged = jdbcTemplate.update(MERGE.formatted(values), arguments);
+        int updates = updated != null ? updated : 0;
+        return new UpsertCounts(merged - updates, updates);
+    }
+
+    private boolean isPostgres() {
+        Boolean isPostgres = postgres;
+        if (isPostgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            isPostgres = "PostgreSQL".equalsIgnoreCase(product);
+            postgres = isPostgres;
+        }
+        return isPostgres;
+    }
+
+    private static Object[] arguments(List<Book> books) {
+        List<Object> arguments = new ArrayList<>(books.size() * 4);
+        for (Book book : books) {
+            arguments.add(book.getTitle());
+            arguments.add(book.getAuthor());
+            arguments.add(book.getIsbn());
+            arguments.add(book.getBranch());
+        }
+        return arguments.toArray();
+    }
+}
@@ -0,0 +1,10 @@
+package com.library.repository;
+
+import com.library.entity.Book;
+
+/**
+ * One row of a borrower left-joined to the books they hold: {@code book} is null for the single row of a
+ * borrower without loans, and a borrower id that matches nothing yields no row at all.
+ */
+public record BorrowerLoan(Long borrowerId, Book book) {
+}
@@ -1,15 +1,67 @@
 package com.library.repository;
 
 import com.library.entity.Borrower;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BorrowerRepository extends JpaRepository<Borrower, Long> {
     
+    // Synchronized with a query space no entity maps to, so Hibernate does not evict every cached borrower
+    String LOAN_COUNTER_SPACE = "borrower_loan_counters";
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Borrower> findByEmail(String email);
     
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+    
+    // Keyset-paginated directory: each page seeks on the (name_lower|email_lower, id) index instead of an OFFSET
+    Window<Borrower> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+    
+    // Prefix searches match the column the page is sorted by, so one index range serves both the match and the order
+    // and a page stops after the limit; an OR of both columns would read and sort every match
+    Window<Borrower> findByNameLowerStartingWith(String prefix, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Borrower> findByEmailLowerStartingWith(String prefix, ScrollPosition position, Sort sort, Limit limit);
+    
+    // Existence check and loans in one round trip, see BorrowerLoan
+    @Query("SELECT new com.library.repository.BorrowerLoan(br.id, b) FROM Borrower br "
+            + "LEFT JOIN Book b ON b.borrowerId = br.id WHERE br.id = :borrowerId ORDER BY b.id")
+    List<BorrowerLoan> findLoans(@Param("borrowerId") Long borrowerId);
+    
+    @Query("SELECT new com.library.repository.BorrowerLoan(br.id, b) FROM Borrower br "
+            + "LEFT JOIN Book b ON b.borrowerId = br.id AND b.branch = :branch WHERE br.id = :borrowerId ORDER BY b.id")
+    List<BorrowerLoan> findLoansInBranch(@Param("borrowerId") Long borrowerId, @Param("branch") String branch);
+    
+    @Query("SELECT new com.library.repository.BorrowerLoan(br.id, b) FROM Borrower br "
+            + "LEFT JOIN Book b ON b.borrowerId = br.id WHERE br.id IN :borrowerIds ORDER BY br.id, b.id")
+    List<BorrowerLoan> findLoans(@Param("borrowerIds") Collection<Long> borrowerIds);
+    
+    // Native so the update only touches LOAN_COUNTER_SPACE; callers evict the one cached borrower via EntityCacheEvictor.
+    // The flush replaces the auto-flush Hibernate would otherwise only do for pending changes in that space.
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE borrowers SET active_loans = active_loans + 1 WHERE id = :borrowerId AND active_loans < :maxActiveLoans",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = LOAN_COUNTER_SPACE))
+    int incrementActiveLoans(@Param("borrowerId") Long borrowerId, @Param("maxActiveLoans") int maxActiveLoans);
+    
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE borrowers SET active_loans = active_loans - 1 WHERE id = :borrowerId AND active_loans > 0",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = LOAN_COUNTER_SPACE))
+    int decrementActiveLoans(@Param("borrowerId") Long borrowerId);
+}
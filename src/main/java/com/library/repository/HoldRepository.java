@@ -0,0 +1,25 @@
+package com.library.repository;
+
+import com.library.entity.Hold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+    
+    List<Hold> findByBookIdOrderByIdAsc(Long bookId);
+    
+    Optional<Hold> findByIdAndBookId(Long id, Long bookId);
+    
+    boolean existsByBookIdAndBorrowerId(Long bookId, Long borrowerId);
+    
+    @Modifying
+    @Query("DELETE FROM Hold h WHERE h.id = :holdId")
+    int claim(@Param("holdId") Long holdId);
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.library.repository.memory;
+
+import com.library.entity.Book;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Books with secondary indexes on borrower and ISBN and running counts per branch and availability.
+ *
+ * <p>Index entries are copy-on-write {@code long[]} arrays rather than sets, since a borrower holds a handful of
+ * books and an ISBN exists once per branch; that keeps a ten-million-book catalog within a few gigabytes of heap.
+ * Availability and branch listings return most of the table anyway, so they scan instead of keeping an index.
+ */
+class BookTable extends InMemoryTable<Book> {
+
+    private static final long[] NONE = new long[0];
+
+    private final Map<Long, long[]> byBorrower = new ConcurrentHashMap<>();
+    private final Map<String, long[]> byIsbn = new ConcurrentHashMap<>();
+    private final Map<BranchAvailability, AtomicLong> counts = new ConcurrentHashMap<>();
+    private final AtomicLong available = new AtomicLong();
+    private final AtomicLong unavailable = new AtomicLong();
+
+    // A row image from a snapshot or the log; the flag is set last because setBorrowerId derives it
+    static Book restore(long id, String title, String author, String isbn, Long borrowerId, String branch, boolean available) {
+        Book book = new Book(title, author, isbn);
+        book.setId(id);
+        book.setBranch(branch);
+        book.setBorrowerId(borrowerId);
+        book.setAvailable(available);
+        return book;
+    }
+
+    @Override
+    Long idOf(Book book) {
+        return book.getId();
+    }
+
+    @Override
+    void assignId(Book book, long id) {
+        book.setId(id);
+    }
+
+    @Override
+    Book copy(Book book) {
+        return restore(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getBorrowerId(),
+                book.getBranch(), Boolean.TRUE.equals(book.getAvailable()));
+    }
+
+    @Override
+    void index(Book book) {
+        long id = book.getId();
+        if (book.getBorrowerId() != null) {
+            byBorrower.merge(book.getBorrowerId(), new long[]{id}, BookTable::union);
+        }
+        if (book.getIsbn() != null) {
+            byIsbn.merge(book.getIsbn(), new long[]{id}, BookTable::union);
+        }
+        count(book, 1);
+    }
+
+    @Override
+    void unindex(Book book) {
+        long id = book.getId();
+        if (book.getBorrowerId() != null) {
+            byBorrower.computeIfPresent(book.getBorrowerId(), (key, ids) -> without(ids, id));
+        }
+        if (book.getIsbn() != null) {
+            byIsbn.computeIfPresent(book.getIsbn(), (key, ids) -> without(ids, id));
+        }
+        count(book, -1);
+    }
+
+    Stream<Book> byBorrower(Long borrowerId) {
+        return lookup(byBorrower.getOrDefault(borrowerId, NONE)).filter(book -> Objects.equals(book.getBorrowerId(), borrowerId));
+    }
+
+    Stream<Book> byIsbn(String isbn) {
+        return lookup(byIsbn.getOrDefault(isbn, NONE)).filter(book -> Objects.equals(book.getIsbn(), isbn));
+    }
+
+    Stream<Book> byBranch(String branch) {
+        return scan().filter(book -> Objects.equals(book.getBranch(), branch));
+    }
+
+    // Like BookDto, a book is available exactly when it has no borrower
+    Stream<Book> byAvailable(Boolean isAvailable) {
+        return scan().filter(book -> (book.getBorrowerId() == null) == isAvailable);
+    }
+
+    long countByAvailable(Boolean isAvailable) {
+        return (Boolean.TRUE.equals(isAvailable) ? available : unavailable).get();
+    }
+
+    long countByBranchAndAvailable(String branch, Boolean isAvailable) {
+        AtomicLong count = counts.get(new BranchAvailability(branch, Boolean.TRUE.equals(isAvailable)));
+        return count != null ? count.get() : 0;
+    }
+
+    private void count(Book book, int delta) {
+        boolean isAvailable = Boolean.TRUE.equals(book.getAvailable());
+        (isAvailable ? available : unavailable).addAndGet(delta);
+        counts.computeIfAbsent(new BranchAvailability(book.getBranch(), isAvailable), key -> new AtomicLong()).addAndGet(delta);
+    }
+
+    private Stream<Book> lookup(long[] ids) {
+        return Arrays.stream(ids).mapToObj(this::row).filter(Objects::nonNull);
+    }
+
+    // Sorted so index hits come back in id order like the JPA queries
+    private static long[] union(long[] ids, long[] added) {
+        long id = added[0];
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        int insertAt = -position - 1;
+        long[] merged = new long[ids.length + 1];
+        System.arraycopy(ids, 0, merged, 0, insertAt);
+        merged[insertAt] = id;
+        System.arraycopy(ids, insertAt, merged, insertAt + 1, ids.length - insertAt);
+        return merged;
+    }
+
+    private static long[] without(long[] ids, long id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        long[] remaining = new long[ids.length - 1];
+        System.arraycopy(ids, 0, remaining, 0, position);
+        System.arraycopy(ids, position + 1, remaining, position, ids.length - position - 1);
+        return remaining;
+    }
+
+    private record BranchAvailability(String branch, boolean available) {
+    }
+}
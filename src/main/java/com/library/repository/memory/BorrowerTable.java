@@ -0,0 +1,128 @@
+package com.library.repository.memory;
+
+import com.library.entity.Borrower;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Borrowers with a unique email index and ordered (name_lower, id) and (email_lower, id) indexes, the in-memory
+ * counterparts of the directory indexes on the borrowers table.
+ */
+class BorrowerTable extends InMemoryTable<Borrower> {
+
+    private final Map<String, Long> byEmail = new ConcurrentHashMap<>();
+    private final NavigableSet<SortKey> byNameLower = new ConcurrentSkipListSet<>();
+    private final NavigableSet<SortKey> byEmailLower = new ConcurrentSkipListSet<>();
+
+    // Recomputes the search keys the way the entity's @PrePersist does for JPA
+    static Borrower restore(long id, String name, String email, int activeLoans, String branch) {
+        return new Borrower(id, name, email, activeLoans, branch, Borrower.searchKey(name), Borrower.searchKey(email));
+    }
+
+    @Override
+    Long idOf(Borrower borrower) {
+        return borrower.getId();
+    }
+
+    @Override
+    void assignId(Borrower borrower, long id) {
+        borrower.setId(id);
+    }
+
+    @Override
+    Borrower copy(Borrower borrower) {
+        return restore(borrower.getId(), borrower.getName(), borrower.getEmail(), borrower.getActiveLoans(), borrower.getBranch());
+    }
+
+    @Override
+    synchronized Borrower put(Borrower borrower) {
+        Long owner = byEmail.get(borrower.getEmail());
+        if (owner != null && !owner.equals(borrower.getId())) {
+            throw new DataIntegrityViolationException("Email already exists: " + borrower.getEmail());
+        }
+        return super.put(borrower);
+    }
+
+    @Override
+    void index(Borrower borrower) {
+        byEmail.put(borrower.getEmail(), borrower.getId());
+        byNameLower.add(new SortKey(borrower.getNameLower(), borrower.getId()));
+        byEmailLower.add(new SortKey(borrower.getEmailLower(), borrower.getId()));
+    }
+
+    @Override
+    void unindex(Borrower borrower) {
+        byEmail.remove(borrower.getEmail(), borrower.getId());
+        byNameLower.remove(new SortKey(borrower.getNameLower(), borrower.getId()));
+        byEmailLower.remove(new SortKey(borrower.getEmailLower(), borrower.getId()));
+    }
+
+    Borrower byEmail(String email) {
+        Borrower borrower = row(byEmail.get(email));
+        return borrower != null && borrower.getEmail().equals(email) ? borrower : null;
+    }
+
+    /**
+     * Borrowers in (key, id) order strictly after {@code after}, or from the start when it is null.
+     */
+    Stream<Borrower> ordered(String property, SortKey after) {
+        NavigableSet<SortKey> index = index(property);
+        NavigableSet<SortKey> keys = after != null ? index.tailSet(after, false) : index;
+        return resolve(keys.stream(), keyOf(property));
+    }
+
+    /**
+     * Borrowers whose {@code property} starts with {@code prefix}, in (key, id) order, from just past {@code after}
+     * when it is given.
+     */
+    Stream<Borrower> withPrefix(String property, String prefix, SortKey after) {
+        SortKey from = new SortKey(prefix, Long.MIN_VALUE);
+        SortKey to = new SortKey(prefix + Character.MAX_VALUE, Long.MIN_VALUE);
+        if (after != null && after.compareTo(to) >= 0) {
+            return Stream.empty();
+        }
+        NavigableSet<SortKey> keys = after != null && after.compareTo(from) >= 0
+                ? index(property).subSet(after, false, to, false)
+                : index(property).subSet(from, true, to, false);
+        return resolve(keys.stream(), keyOf(property));
+    }
+
+    private NavigableSet<SortKey> index(String property) {
+        return switch (property) {
+            case "nameLower" -> byNameLower;
+            case "emailLower" -> byEmailLower;
+            default -> throw new IllegalArgumentException("No in-memory index on borrower property: " + property);
+        };
+    }
+
+    static Function<Borrower, String> keyOf(String property) {
+        return switch (property) {
+            case "nameLower" -> Borrower::getNameLower;
+            case "emailLower" -> Borrower::getEmailLower;
+            default -> throw new IllegalArgumentException("No in-memory index on borrower property: " + property);
+        };
+    }
+
+    private Stream<Borrower> resolve(Stream<SortKey> keys, Function<Borrower, String> key) {
+        return keys.map(sortKey -> {
+            Borrower borrower = row(sortKey.id());
+            return borrower != null && sortKey.key().equals(key.apply(borrower)) ? borrower : null;
+        }).filter(Objects::nonNull);
+    }
+
+    record SortKey(String key, long id) implements Comparable<SortKey> {
+
+        @Override
+        public int compareTo(SortKey other) {
+            int byKey = key.compareTo(other.key);
+            return byKey != 0 ? byKey : Long.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.library.repository.memory;
+
+import com.library.dto.BookField;
+import com.library.dto.SparseBookDto;
+import com.library.entity.Book;
+import com.library.repository.BookIsbn;
+import com.library.repository.BookLoanState;
+import com.library.repository.BookRepository;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class InMemoryBookRepository extends InMemoryRepository<Book> implements BookRepository {
+
+    private final BookTable books;
+    private final BorrowerTable borrowers;
+
+    InMemoryBookRepository(BookTable books, BorrowerTable borrowers) {
+        super(books);
+        this.books = books;
+        this.borrowers = borrowers;
+    }
+
+    @Override
+    public List<Book> findByBorrowerId(Long borrowerId) {
+        return copies(books.byBorrower(borrowerId));
+    }
+
+    // Same contract as the derived JPA query: an ISBN shared by several branches is not a single result
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        List<Book> matches = copies(books.byIsbn(isbn).limit(2));
+        if (matches.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1);
+        }
+        return matches.stream().findFirst();
+    }
+
+    @Override
+    public List<Book> findByIsbnOrderByIdAsc(String isbn) {
+        return copies(books.byIsbn(isbn));
+    }
+
+    @Override
+    public boolean existsByBranchAndIsbn(String branch, String isbn) {
+        return books.byIsbn(isbn).anyMatch(book -> Objects.equals(book.getBranch(), branch));
+    }
+
+    @Override
+    public List<Book> findByAvailable(Boolean available) {
+        return copies(books.byAvailable(available));
+    }
+
+    @Override
+    public long countByAvailable(Boolean available) {
+        return books.countByAvailable(available);
+    }
+
+    @Override
+    public List<Book> findByBranch(String branch) {
+        return copies(books.byBranch(branch));
+    }
+
+    @Override
+    public List<Book> findByBranchAndAvailable(String branch, Boolean available) {
+        return copies(books.byBranch(branch).filter(book -> (book.getBorrowerId() == null) == available));
+    }
+
+    @Override
+    public List<Book> findByBranchAndBorrowerId(String branch, Long borrowerId) {
+        return copies(books.byBorrower(borrowerId).filter(book -> Objects.equals(book.getBranch(), branch)));
+    }
+
+    @Override
+    public long countByBranchAndAvailable(String branch, Boolean available) {
+        return books.countByBranchAndAvailable(branch, available);
+    }
+
+    @Override
+    public List<BookLoanState> findLoanStatesAfter(Long after, Limit limit) {
+        return books.scanAfter(after)
+                .limit(limit.isLimited() ? limit.max() : Long.MAX_VALUE)
+                .map(book -> new BookLoanState(book.getId(), book.getAvailable(), book.getBorrowerId(),
+                        borrowers.contains(book.getBorrowerId()) ? book.getBorrowerId() : null))
+                .toList();
+    }
+
+    @Override
+    public List<BookIsbn> findIsbnsAfter(Long after, Limit limit) {
+        return books.scanAfter(after)
+                .limit(limit.isLimited() ? limit.max() : Long.MAX_VALUE)
+                .map(book -> new BookIsbn(book.getId(), book.getIsbn()))
+                .toList();
+    }
+
+    @Override
+    public int assignBorrower(Long bookId, Long borrowerId) {
+        return books.update(bookId, book -> book.getBorrowerId() == null,
+                book -> book.setBorrowerId(borrowerId)) ? 1 : 0;
+    }
+
+    @Override
+    public int transferBorrower(Long bookId, Long borrowerId, Long nextBorrowerId) {
+        return books.update(bookId, book -> Objects.equals(book.getBorrowerId(), borrowerId),
+                book -> book.setBorrowerId(nextBorrowerId)) ? 1 : 0;
+    }
+
+    @Override
+    public int releaseBorrower(Long bookId, Long borrowerId) {
+        return books.update(bookId, book -> Objects.equals(book.getBorrowerId(), borrowerId),
+                book -> book.setBorrowerId(null)) ? 1 : 0;
+    }
+
+    @Override
+    public int syncAvailable(Long bookId) {
+        return books.update(bookId, book -> book.getAvailable() != (book.getBorrowerId() == null),
+                book -> book.setBorrowerId(book.getBorrowerId())) ? 1 : 0;
+    }
+
+    // Reads the selected attributes straight off the stored rows instead of copying whole books
+    @Override
+    public List<SparseBookDto> findFields(Set<BookField> fields, String branch, Boolean available) {
+        Stream<Book> rows = (branch == null ? books.scan() : books.byBranch(branch))
+                .filter(book -> available == null || (book.getBorrowerId() == null) == available);
+        return rows.map(book -> SparseBookDto.of(fields, field -> attribute(book, field))).toList();
+    }
+
+    private static Object attribute(Book book, BookField field) {
+        return switch (field) {
+            case ID -> book.getId();
+            case TITLE -> book.getTitle();
+            case AUTHOR -> book.getAuthor();
+            case ISBN -> book.getIsbn();
+            case AVAILABLE -> book.getBorrowerId() == null;
+            case BORROWER_ID -> book.getBorrowerId();
+            case BRANCH -> book.getBranch();
+        };
+    }
+
+    // Holding the table's monitor for the whole batch keeps two concurrent syncs from inserting the same key twice
+    @Override
+    public UpsertCounts upsertByIsbn(List<Book> upserts) {
+        int inserted = 0;
+        int updated = 0;
+        synchronized (books) {
+            for (Book upsert : upserts) {
+                Optional<Book> existing = books.byIsbn(upsert.getIsbn())
+                        .filter(book -> Objects.equals(book.getBranch(), upsert.getBranch()))
+                        .findFirst();
+                if (existing.isEmpty()) {
+                    Book book = new Book(upsert.getTitle(), upsert.getAuthor(), upsert.getIsbn());
+                    book.setBranch(upsert.getBranch());
+                    books.put(book);
+                    inserted++;
+                } else if (books.update(existing.get().getId(),
+                        book -> !Objects.equals(book.getTitle(), upsert.getTitle())
+                                || !Objects.equals(book.getAuthor(), upsert.getAuthor()),
+                        book -> {
+                            book.setTitle(upsert.getTitle());
+                            book.setAuthor(upsert.getAuthor());
+                        })) {
+                    updated++;
+                }
+            }
+        }
+        return new UpsertCounts(inserted, updated);
+    }
+}
@@ -0,0 +1,154 @@
+package com.library.repository.memory;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.BorrowerLoan;
+import com.library.repository.BorrowerRepository;
+import com.library.repository.memory.BorrowerTable.SortKey;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+class InMemoryBorrowerRepository extends InMemoryRepository<Borrower> implements BorrowerRepository {
+
+    private static final String ID = "id";
+
+    private final BorrowerTable borrowers;
+    private final BookTable books;
+
+    InMemoryBorrowerRepository(BorrowerTable borrowers, BookTable books) {
+        super(borrowers);
+        this.borrowers = borrowers;
+        this.books = books;
+    }
+
+    @Override
+    public Optional<Borrower> findByEmail(String email) {
+        return Optional.ofNullable(borrowers.byEmail(email)).map(borrowers::copy);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return borrowers.byEmail(email) != null;
+    }
+
+    @Override
+    public Window<Borrower> findAllBy(ScrollPosition position, Sort sort, Limit limit) {
+        String property = leadingProperty(sort);
+        SortKey after = after(position, property);
+        Stream<Borrower> ordered = ID.equals(property)
+                ? (after != null ? borrowers.scanAfter(after.id()) : borrowers.scan())
+                : borrowers.ordered(property, after);
+        return window(ordered, property, limit);
+    }
+
+    @Override
+    public Window<Borrower> findByNameLowerStartingWith(String prefix, ScrollPosition position, Sort sort, Limit limit) {
+        return withPrefix("nameLower", prefix, position, sort, limit);
+    }
+
+    @Override
+    public Window<Borrower> findByEmailLowerStartingWith(String prefix, ScrollPosition position, Sort sort, Limit limit) {
+        return withPrefix("emailLower", prefix, position, sort, limit);
+    }
+
+    @Override
+    public List<BorrowerLoan> findLoans(Long borrowerId) {
+        return loans(borrowerId, book -> true);
+    }
+
+    @Override
+    public List<BorrowerLoan> findLoansInBranch(Long borrowerId, String branch) {
+        return loans(borrowerId, book -> Objects.equals(book.getBranch(), branch));
+    }
+
+    @Override
+    public List<BorrowerLoan> findLoans(Collection<Long> borrowerIds) {
+        return borrowerIds.stream()
+                .distinct()
+                .sorted()
+                .flatMap(borrowerId -> loans(borrowerId, book -> true).stream())
+                .toList();
+    }
+
+    @Override
+    public int incrementActiveLoans(Long borrowerId, int maxActiveLoans) {
+        return borrowers.update(borrowerId, borrower -> borrower.getActiveLoans() < maxActiveLoans,
+                borrower -> borrower.setActiveLoans(borrower.getActiveLoans() + 1)) ? 1 : 0;
+    }
+
+    @Override
+    public int decrementActiveLoans(Long borrowerId) {
+        return borrowers.update(borrowerId, borrower -> borrower.getActiveLoans() > 0,
+                borrower -> borrower.setActiveLoans(borrower.getActiveLoans() - 1)) ? 1 : 0;
+    }
+
+    private List<BorrowerLoan> loans(Long borrowerId, Predicate<Book> filter) {
+        if (!borrowers.contains(borrowerId)) {
+            return List.of();
+        }
+        List<BorrowerLoan> loans = books.byBorrower(borrowerId)
+                .filter(filter)
+                .map(book -> new BorrowerLoan(borrowerId, books.copy(book)))
+                .toList();
+        return loans.isEmpty() ? List.of(new BorrowerLoan(borrowerId, null)) : loans;
+    }
+
+    // The prefix range comes straight off the index the page is ordered by, starting after the keyset
+    private Window<Borrower> withPrefix(String searched, String prefix, ScrollPosition position, Sort sort, Limit limit) {
+        String property = leadingProperty(sort);
+        if (!searched.equals(property)) {
+            throw new UnsupportedOperationException("The in-memory store only searches borrowers by the column they are sorted by");
+        }
+        return window(borrowers.withPrefix(property, prefix, after(position, property)), property, limit);
+    }
+
+    private Window<Borrower> window(Stream<Borrower> ordered, String property, Limit limit) {
+        int size = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        List<Borrower> fetched = copies(ordered.limit(size == Integer.MAX_VALUE ? size : size + 1L));
+        boolean hasNext = fetched.size() > size;
+        List<Borrower> content = hasNext ? fetched.subList(0, size) : fetched;
+        return Window.from(content, index -> ScrollPosition.forward(keyset(content.get(index), property)), hasNext);
+    }
+
+    // The directory only sorts ascending by one indexed column and then the id, see BorrowerSort
+    private static String leadingProperty(Sort sort) {
+        Sort.Order first = sort.stream().findFirst().orElse(Sort.Order.asc(ID));
+        if (sort.stream().anyMatch(Sort.Order::isDescending)) {
+            throw new UnsupportedOperationException("The in-memory store only scrolls borrowers in ascending order");
+        }
+        return first.getProperty();
+    }
+
+    private static SortKey after(ScrollPosition position, String property) {
+        if (!(position instanceof KeysetScrollPosition keyset) || keyset.scrollsBackward()) {
+            throw new UnsupportedOperationException("The in-memory store only scrolls borrowers forward by keyset");
+        }
+        if (keyset.isInitial()) {
+            return null;
+        }
+        Map<String, Object> keys = keyset.getKeys();
+        long id = ((Number) keys.get(ID)).longValue();
+        return new SortKey(ID.equals(property) ? "" : (String) keys.get(property), id);
+    }
+
+    private static Map<String, Object> keyset(Borrower borrower, String property) {
+        Map<String, Object> keyset = new LinkedHashMap<>();
+        if (!ID.equals(property)) {
+            keyset.put(property, BorrowerTable.keyOf(property).apply(borrower));
+        }
+        keyset.put(ID, borrower.getId());
+        return keyset;
+    }
+}
@@ -0,0 +1,213 @@
+package com.library.repository.memory;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.orm.jpa.JpaObjectRetrievalFailureException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The generic {@link JpaRepository} operations over an {@link InMemoryTable}. Query by example is not supported;
+ * nothing in the application uses it.
+ */
+abstract class InMemoryRepository<T> implements JpaRepository<T, Long> {
+
+    protected final InMemoryTable<T> table;
+
+    protected InMemoryRepository(InMemoryTable<T> table) {
+        this.table = table;
+    }
+
+    protected List<T> copies(Stream<T> rows) {
+        return rows.map(table::copy).toList();
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        table.put(entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Optional<T> findById(Long id) {
+        return table.get(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return table.contains(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return copies(table.scan());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        return copies(StreamSupport.stream(ids.spliterator(), false).distinct().map(table::row).filter(Objects::nonNull));
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return copies(table.scan().sorted(comparator(sort)));
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        Stream<T> rows = pageable.getSort().isSorted() ? table.scan().sorted(comparator(pageable.getSort())) : table.scan();
+        if (pageable.isPaged()) {
+            rows = rows.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return new PageImpl<>(copies(rows), pageable, table.size());
+    }
+
+    @Override
+    public long count() {
+        return table.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        table.remove(id);
+    }
+
+    @Override
+    public void delete(T entity) {
+        table.remove(table.idOf(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(table::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        table.clear();
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @Deprecated
+    public T getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public T getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public T getReferenceById(Long id) {
+        return findById(id).orElseThrow(() ->
+                new JpaObjectRetrievalFailureException(new EntityNotFoundException("No row with id " + id)));
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw queryByExampleNotSupported();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw queryByExampleNotSupported();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = (left, right) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<T> byProperty = Comparator.comparing(
+                    row -> (Comparable) new BeanWrapperImpl(row).getPropertyValue(order.getProperty()),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    private static UnsupportedOperationException queryByExampleNotSupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the in-memory store");
+    }
+}
@@ -0,0 +1,41 @@
+package com.library.repository.memory;
+
+import com.library.config.InMemoryStorageProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.io.IOException;
+
+/**
+ * Checkpoints durable in-memory storage every checkpoint-interval and on shutdown, so the write-ahead log that
+ * has to be replayed on the next start stays short.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class InMemorySnapshotter implements SchedulingConfigurer {
+
+    private final InMemoryStorage storage;
+    private final InMemoryStorageProperties properties;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        if (storage.isDurable() && properties.getCheckpointInterval().isPositive()) {
+            registrar.addFixedDelayTask(this::checkpoint, properties.getCheckpointInterval());
+        }
+    }
+
+    @PreDestroy
+    public void checkpoint() {
+        if (!storage.isDurable()) {
+            return;
+        }
+        try {
+            storage.checkpoint();
+        } catch (IOException e) {
+            log.error("Could not checkpoint in-memory storage to {}", properties.getDirectory(), e);
+        }
+    }
+}
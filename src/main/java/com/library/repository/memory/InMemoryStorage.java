@@ -0,0 +1,110 @@
+package com.library.repository.memory;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Books and borrowers held entirely in memory, behind the same repository interfaces as the JPA backend.
+ *
+ * <p>Storage {@linkplain #open opened on a directory} is durable: every change is appended to a
+ * {@link WriteAheadLog} before it is applied, {@link #checkpoint()} writes a {@link SnapshotFile} and drops the
+ * log it covers, and opening the directory again loads the snapshot and replays the log after it. Storage made
+ * with the constructor keeps nothing across restarts.
+ *
+ * <p>There are no transactions: each save or conditional counter update is atomic on its own, but nothing is
+ * rolled back when a service method fails half way. Fine for kiosks and load tests, not for the main deployment.
+ */
+@Slf4j
+public class InMemoryStorage implements Closeable {
+
+    static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    private final BookTable books = new BookTable();
+    private final BorrowerTable borrowers = new BorrowerTable();
+    private final BookRepository bookRepository = new InMemoryBookRepository(books, borrowers);
+    private final BorrowerRepository borrowerRepository = new InMemoryBorrowerRepository(borrowers, books);
+    private Path directory;
+    private WriteAheadLog wal;
+
+    /**
+     * Recovers the tables from the snapshot and log in {@code directory}, creating it if needed, and logs every
+     * change there from then on.
+     *
+     * @param fsync whether each log record is forced to disk before the write returns
+     */
+    public static InMemoryStorage open(Path directory, boolean fsync) throws IOException {
+        InMemoryStorage storage = new InMemoryStorage();
+        storage.recover(directory, fsync);
+        return storage;
+    }
+
+    public BookRepository bookRepository() {
+        return bookRepository;
+    }
+
+    public BorrowerRepository borrowerRepository() {
+        return borrowerRepository;
+    }
+
+    public boolean isDurable() {
+        return wal != null;
+    }
+
+    /**
+     * Writes a snapshot of both tables and deletes the log segments it makes redundant. Writers are held off only
+     * while the row references are copied and the log rotates; the snapshot itself is written without locks,
+     * since stored rows are never mutated.
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (wal == null) {
+            throw new IllegalStateException("In-memory storage was not opened on a directory");
+        }
+        long started = System.nanoTime();
+        List<Borrower> borrowerRows;
+        List<Book> bookRows;
+        long segment;
+        synchronized (books) {
+            synchronized (borrowers) {
+                borrowerRows = new ArrayList<>(borrowers.rows());
+                bookRows = new ArrayList<>(books.rows());
+                segment = wal.rotate();
+            }
+        }
+        SnapshotFile.write(directory.resolve(SNAPSHOT_FILE), segment, borrowerRows, bookRows);
+        WriteAheadLog.deleteBefore(directory, segment);
+        log.info("Checkpointed {} borrowers and {} books to {} in {} ms", borrowerRows.size(), bookRows.size(),
+                directory, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    private void recover(Path directory, boolean fsync) throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long firstSegment = Files.exists(snapshot) ? SnapshotFile.read(snapshot, borrowers, books) : 1;
+        long segment = WriteAheadLog.replay(directory, firstSegment, books, borrowers);
+        WriteAheadLog.deleteBefore(directory, firstSegment);
+        this.directory = directory;
+        this.wal = new WriteAheadLog(directory, segment, fsync);
+        books.attach(wal.bookLog());
+        borrowers.attach(wal.borrowerLog());
+        log.info("Recovered {} borrowers and {} books from {} in {} ms", borrowers.size(), books.size(), directory,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+}
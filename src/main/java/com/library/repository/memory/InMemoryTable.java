@@ -0,0 +1,155 @@
+package com.library.repository.memory;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Rows of one entity type keyed by id, plus whatever secondary indexes the subclass maintains.
+ *
+ * <p>Rows are stored and handed out as copies, so callers can change an entity and {@code save} it the way they
+ * would with JPA without touching the indexes behind the table's back. Stored rows are never mutated, only
+ * replaced. Writes are serialized on the table's monitor and go to the {@link ChangeLog} before they are applied;
+ * reads are lock-free and may briefly see an index ahead of or behind the row map, so lookups through an index
+ * re-check the row they find.
+ */
+abstract class InMemoryTable<T> {
+
+    private final ConcurrentNavigableMap<Long, T> rows = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private ChangeLog<T> changeLog = ChangeLog.none();
+
+    abstract Long idOf(T row);
+
+    abstract void assignId(T row, long id);
+
+    abstract T copy(T row);
+
+    abstract void index(T row);
+
+    abstract void unindex(T row);
+
+    synchronized void attach(ChangeLog<T> changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    Optional<T> get(Long id) {
+        T row = id != null ? rows.get(id) : null;
+        return row != null ? Optional.of(copy(row)) : Optional.empty();
+    }
+
+    // Live rows in id order, for read-only use by the table's own queries; callers must copy what they return
+    Stream<T> scan() {
+        return rows.values().stream();
+    }
+
+    Stream<T> scanAfter(long id) {
+        return rows.tailMap(id, false).values().stream();
+    }
+
+    T row(Long id) {
+        return id != null ? rows.get(id) : null;
+    }
+
+    boolean contains(Long id) {
+        return id != null && rows.containsKey(id);
+    }
+
+    long size() {
+        return rows.size();
+    }
+
+    Collection<T> rows() {
+        return rows.values();
+    }
+
+    synchronized T put(T row) {
+        if (idOf(row) == null) {
+            assignId(row, sequence.incrementAndGet());
+        }
+        T stored = copy(row);
+        changeLog.put(stored);
+        apply(stored);
+        return row;
+    }
+
+    // Conditional single-row update, the in-memory counterpart of UPDATE ... WHERE id = ? AND <condition>
+    synchronized boolean update(Long id, Predicate<T> condition, Consumer<T> change) {
+        T current = row(id);
+        if (current == null || !condition.test(current)) {
+            return false;
+        }
+        T updated = copy(current);
+        change.accept(updated);
+        put(updated);
+        return true;
+    }
+
+    synchronized void remove(Long id) {
+        if (id == null || !rows.containsKey(id)) {
+            return;
+        }
+        changeLog.remove(id);
+        unapply(id);
+    }
+
+    synchronized void clear() {
+        for (Long id : rows.keySet()) {
+            remove(id);
+        }
+    }
+
+    /**
+     * Stores a row image from a snapshot or the write-ahead log as is: no copy and no logging.
+     */
+    synchronized void load(T row) {
+        apply(row);
+    }
+
+    synchronized void unload(long id) {
+        unapply(id);
+    }
+
+    private void apply(T stored) {
+        sequence.accumulateAndGet(idOf(stored), Math::max);
+        T previous = rows.put(idOf(stored), stored);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(stored);
+    }
+
+    private void unapply(Long id) {
+        T previous = rows.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    /**
+     * Receives every change before it is applied, under the table's monitor.
+     */
+    interface ChangeLog<T> {
+
+        void put(T row);
+
+        void remove(long id);
+
+        static <T> ChangeLog<T> none() {
+            return new ChangeLog<>() {
+                @Override
+                public void put(T row) {
+                }
+
+                @Override
+                public void remove(long id) {
+                }
+            };
+        }
+    }
+}
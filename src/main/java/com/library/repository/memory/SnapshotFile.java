@@ -0,0 +1,252 @@
+package com.library.repository.memory;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The on-disk image of both tables: a header, fixed-width borrower and book records, then the string pool the
+ * records point into by index.
+ *
+ * <pre>
+ * header     magic int, version int, wal segment long, borrower count int, book count int, string count int
+ * borrowers  id long, name int, email int, active loans int, branch int                              24 bytes
+ * books      id long, title int, author int, isbn int, borrower id long, branch int, available byte  33 bytes
+ * strings    length int, UTF-8 bytes
+ * </pre>
+ *
+ * Absent strings and borrower ids are -1. Authors and branches repeat across many rows, so they are pooled once
+ * and the restored rows share one {@code String} per value; the other columns are appended as they come, which
+ * keeps writing a single pass without a map over every title. The file is read through memory-mapped windows.
+ */
+final class SnapshotFile {
+
+    static final int MAGIC = 0x4C49424D;
+    static final int VERSION = 2;
+
+    private static final int HEADER_BYTES = 28;
+    private static final int BORROWER_BYTES = 24;
+    private static final int BOOK_BYTES = 33;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes the rows to {@code file} through a temporary file, an fsync and an atomic rename, so a crash mid-write
+     * leaves the previous snapshot in place. {@code walSegment} is the first log segment not covered by the rows.
+     */
+    static void write(Path file, long walSegment, List<Borrower> borrowers, List<Book> books) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel,
+                    HEADER_BYTES + (long) borrowers.size() * BORROWER_BYTES + (long) books.size() * BOOK_BYTES);
+            for (Borrower borrower : borrowers) {
+                int name = writer.string(borrower.getName());
+                int email = writer.string(borrower.getEmail());
+                int branch = writer.pooled(borrower.getBranch());
+                writer.record(BORROWER_BYTES)
+                        .putLong(borrower.getId())
+                        .putInt(name)
+                        .putInt(email)
+                        .putInt(borrower.getActiveLoans())
+                        .putInt(branch);
+            }
+            for (Book book : books) {
+                int title = writer.string(book.getTitle());
+                int author = writer.pooled(book.getAuthor());
+                int isbn = writer.string(book.getIsbn());
+                int branch = writer.pooled(book.getBranch());
+                writer.record(BOOK_BYTES)
+                        .putLong(book.getId())
+                        .putInt(title)
+                        .putInt(author)
+                        .putInt(isbn)
+                        .putLong(book.getBorrowerId() != null ? book.getBorrowerId() : -1)
+                        .putInt(branch)
+                        .put((byte) (Boolean.TRUE.equals(book.getAvailable()) ? 1 : 0));
+            }
+            writer.finish(ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(walSegment)
+                    .putInt(borrowers.size())
+                    .putInt(books.size()));
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the rows in {@code file} into the tables and returns the first log segment they do not cover.
+     */
+    static long read(Path file, BorrowerTable borrowers, BookTable books) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedReader in = new MappedReader(channel);
+            ByteBuffer header = in.next(HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a library snapshot of version " + VERSION + ": " + file);
+            }
+            long walSegment = header.getLong();
+            int borrowerCount = header.getInt();
+            int bookCount = header.getInt();
+            String[] strings = new String[header.getInt()];
+
+            in.seek(HEADER_BYTES + (long) borrowerCount * BORROWER_BYTES + (long) bookCount * BOOK_BYTES);
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[in.next(4).getInt()];
+                in.next(bytes.length).get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            in.seek(HEADER_BYTES);
+            for (int i = 0; i < borrowerCount; i++) {
+                ByteBuffer record = in.next(BORROWER_BYTES);
+                long id = record.getLong();
+                String name = string(strings, record.getInt());
+                String email = string(strings, record.getInt());
+                int activeLoans = record.getInt();
+                String branch = string(strings, record.getInt());
+                borrowers.load(BorrowerTable.restore(id, name, email, activeLoans, branch));
+            }
+            for (int i = 0; i < bookCount; i++) {
+                ByteBuffer record = in.next(BOOK_BYTES);
+                long id = record.getLong();
+                String title = string(strings, record.getInt());
+                String author = string(strings, record.getInt());
+                String isbn = string(strings, record.getInt());
+                long borrowerId = record.getLong();
+                String branch = string(strings, record.getInt());
+                boolean available = record.get() == 1;
+                books.load(BookTable.restore(id, title, author, isbn, borrowerId >= 0 ? borrowerId : null, branch, available));
+            }
+            return walSegment;
+        }
+    }
+
+    private static String string(String[] strings, int index) {
+        return index >= 0 ? strings[index] : null;
+    }
+
+    /**
+     * Fills the record section from the front and the string section from its fixed start in one pass; the
+     * header goes in last, once the string count is known.
+     */
+    private static final class Writer {
+
+        private final FileChannel channel;
+        private final ByteBuffer records = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final ByteBuffer strings = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final Map<String, Integer> pool = new HashMap<>();
+        private long recordsPosition = HEADER_BYTES;
+        private long stringsPosition;
+        private int stringCount;
+
+        Writer(FileChannel channel, long stringsStart) {
+            this.channel = channel;
+            this.stringsPosition = stringsStart;
+        }
+
+        ByteBuffer record(int bytes) throws IOException {
+            if (records.remaining() < bytes) {
+                recordsPosition = flush(records, recordsPosition);
+            }
+            return records;
+        }
+
+        int pooled(String value) throws IOException {
+            if (value == null) {
+                return -1;
+            }
+            Integer index = pool.get(value);
+            if (index == null) {
+                index = string(value);
+                pool.put(value, index);
+            }
+            return index;
+        }
+
+        int string(String value) throws IOException {
+            if (value == null) {
+                return -1;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (strings.remaining() < 4 + bytes.length) {
+                stringsPosition = flush(strings, stringsPosition);
+            }
+            if (strings.remaining() < 4 + bytes.length) {
+                stringsPosition = flush(ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes), stringsPosition);
+            } else {
+                strings.putInt(bytes.length).put(bytes);
+            }
+            return stringCount++;
+        }
+
+        void finish(ByteBuffer header) throws IOException {
+            flush(records, recordsPosition);
+            flush(strings, stringsPosition);
+            flush(header.putInt(stringCount), 0);
+        }
+
+        private long flush(ByteBuffer buffer, long position) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+            return position;
+        }
+    }
+
+    /**
+     * Sequential reads over windows of at most {@link #WINDOW_BYTES}, remapped whenever a read would cross the end
+     * of the current one.
+     */
+    private static final class MappedReader {
+
+        private final FileChannel channel;
+        private final long size;
+        private long base;
+        private MappedByteBuffer window;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            seek(0);
+        }
+
+        void seek(long position) throws IOException {
+            base = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+        }
+
+        ByteBuffer next(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                long position = base + window.position();
+                if (size - position < bytes) {
+                    throw new EOFException("Snapshot ends " + (size - position) + " bytes into a " + bytes + "-byte read");
+                }
+                seek(position);
+            }
+            return window;
+        }
+    }
+}
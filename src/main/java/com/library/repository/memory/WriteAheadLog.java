@@ -0,0 +1,284 @@
+package com.library.repository.memory;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.memory.InMemoryTable.ChangeLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Every put and remove on the in-memory tables, appended to numbered segment files ({@code wal-<n>.log}) before
+ * the change is applied. A checkpoint rotates to a new segment, writes a snapshot that covers everything before
+ * it, and then deletes the old segments.
+ *
+ * <p>Each record is {@code [payload length int][CRC32C int][payload]}, and the payload is a full row image or a
+ * removed id, so replaying a record twice is harmless. Records go straight to the file channel: once a write
+ * returns the record survives a crash of the process, and with {@code fsync} also a crash of the machine. A
+ * record that is cut short or fails its checksum at the end of the last segment is a write torn by a crash;
+ * replay stops there and truncates it.
+ */
+@Slf4j
+final class WriteAheadLog implements Closeable {
+
+    private static final byte BOOK_PUT = 1;
+    private static final byte BORROWER_PUT = 2;
+    private static final byte BOOK_REMOVE = 3;
+    private static final byte BORROWER_REMOVE = 4;
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long segment;
+
+    WriteAheadLog(Path directory, long segment, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        open(segment);
+    }
+
+    synchronized long segment() {
+        return segment;
+    }
+
+    /**
+     * Continues in a new segment and returns its number; the previous ones are complete from here on.
+     */
+    synchronized long rotate() throws IOException {
+        channel.close();
+        open(segment + 1);
+        return segment;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    ChangeLog<Book> bookLog() {
+        return new ChangeLog<>() {
+            @Override
+            public void put(Book book) {
+                append(BOOK_PUT, out -> {
+                    out.writeLong(book.getId());
+                    writeString(out, book.getTitle());
+                    writeString(out, book.getAuthor());
+                    writeString(out, book.getIsbn());
+                    out.writeLong(book.getBorrowerId() != null ? book.getBorrowerId() : -1);
+                    writeString(out, book.getBranch());
+                    out.writeBoolean(Boolean.TRUE.equals(book.getAvailable()));
+                });
+            }
+
+            @Override
+            public void remove(long id) {
+                append(BOOK_REMOVE, out -> out.writeLong(id));
+            }
+        };
+    }
+
+    ChangeLog<Borrower> borrowerLog() {
+        return new ChangeLog<>() {
+            @Override
+            public void put(Borrower borrower) {
+                append(BORROWER_PUT, out -> {
+                    out.writeLong(borrower.getId());
+                    writeString(out, borrower.getName());
+                    writeString(out, borrower.getEmail());
+                    out.writeInt(borrower.getActiveLoans());
+                    writeString(out, borrower.getBranch());
+                });
+            }
+
+            @Override
+            public void remove(long id) {
+                append(BORROWER_REMOVE, out -> out.writeLong(id));
+            }
+        };
+    }
+
+    /**
+     * Applies the segments from {@code fromSegment} on to the tables in order and returns the segment to continue
+     * writing to.
+     */
+    static long replay(Path directory, long fromSegment, BookTable books, BorrowerTable borrowers) throws IOException {
+        List<Long> segments = segments(directory).stream().filter(segment -> segment >= fromSegment).toList();
+        for (int i = 0; i < segments.size(); i++) {
+            replaySegment(segmentFile(directory, segments.get(i)), i == segments.size() - 1, books, borrowers);
+        }
+        return segments.isEmpty() ? fromSegment : segments.get(segments.size() - 1);
+    }
+
+    /**
+     * Deletes the segments a snapshot has made redundant.
+     */
+    static void deleteBefore(Path directory, long segment) throws IOException {
+        for (long old : segments(directory)) {
+            if (old < segment) {
+                Files.deleteIfExists(segmentFile(directory, old));
+            }
+        }
+    }
+
+    static List<Long> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static Path segmentFile(Path directory, long segment) {
+        return directory.resolve(PREFIX + String.format("%019d", segment) + SUFFIX);
+    }
+
+    private void open(long segment) throws IOException {
+        this.channel = FileChannel.open(segmentFile(directory, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.segment = segment;
+    }
+
+    // Called under the table's monitor, so records of one table reach the file in the order they are applied
+    private synchronized void append(byte type, Payload payload) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(0);
+            out.writeByte(type);
+            payload.writeTo(out);
+            ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+            int length = record.capacity() - RECORD_HEADER_BYTES;
+            CRC32C checksum = new CRC32C();
+            checksum.update(record.array(), RECORD_HEADER_BYTES, length);
+            record.putInt(0, length).putInt(4, (int) checksum.getValue());
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to write-ahead log segment " + segment, e);
+        }
+    }
+
+    private static void replaySegment(Path file, boolean last, BookTable books, BorrowerTable borrowers) throws IOException {
+        long valid = 0;
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                byte[] payload = nextRecord(in);
+                if (payload == null) {
+                    break;
+                }
+                apply(payload, books, borrowers);
+                valid += RECORD_HEADER_BYTES + payload.length;
+                records++;
+            }
+        }
+        long size = Files.size(file);
+        if (valid < size) {
+            if (!last) {
+                throw new IOException("Write-ahead log segment " + file + " is damaged at byte " + valid
+                        + " but is followed by later segments");
+            }
+            log.warn("Truncating torn write at byte {} of {} ({} bytes)", valid, file, size - valid);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+        log.debug("Replayed {} records from {}", records, file);
+    }
+
+    // The payload of the next intact record, or null at the end of the segment or at a torn or corrupt record
+    private static byte[] nextRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int crc = in.readInt();
+            if (length <= 0) {
+                return null;
+            }
+            byte[] payload = in.readNBytes(length);
+            if (payload.length < length) {
+                return null;
+            }
+            CRC32C checksum = new CRC32C();
+            checksum.update(payload);
+            return (int) checksum.getValue() == crc ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void apply(byte[] payload, BookTable books, BorrowerTable borrowers) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case BOOK_PUT -> {
+                long id = in.readLong();
+                String title = readString(in);
+                String author = readString(in);
+                String isbn = readString(in);
+                long borrowerId = in.readLong();
+                String branch = readString(in);
+                boolean available = in.readBoolean();
+                books.load(BookTable.restore(id, title, author, isbn, borrowerId >= 0 ? borrowerId : null, branch, available));
+            }
+            case BORROWER_PUT -> {
+                long id = in.readLong();
+                String name = readString(in);
+                String email = readString(in);
+                int activeLoans = in.readInt();
+                String branch = readString(in);
+                borrowers.load(BorrowerTable.restore(id, name, email, activeLoans, branch));
+            }
+            case BOOK_REMOVE -> books.unload(in.readLong());
+            case BORROWER_REMOVE -> borrowers.unload(in.readLong());
+            default -> throw new IOException("Unknown write-ahead log record type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length >= 0 ? new String(in.readNBytes(length), StandardCharsets.UTF_8) : null;
+    }
+
+    private interface Payload {
+
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+}
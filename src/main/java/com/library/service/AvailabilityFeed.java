@@ -0,0 +1,355 @@
+package com.library.service;
+
+import com.library.config.AvailabilityFeedProperties;
+import com.library.dto.AvailabilityEventDto;
+import com.library.entity.AvailabilityEvent;
+import com.library.mapper.AvailabilityEventMapper;
+import com.library.repository.AvailabilityEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tails the availability outbox with a single poller and fans each batch out to all SSE subscribers, so the
+ * database sees one query per poll interval however many clients are connected.
+ *
+ * <p>The poller only enqueues. Each subscriber has a bounded buffer that a small sender pool drains, so a slow
+ * client never holds up the poller, the other subscribers or the shared scheduler; one whose buffer overflows is
+ * disconnected and resumes from the outbox when it reconnects.
+ *
+ * <p>Identity values are assigned at insert but become visible at commit, so a sequence number can show up after
+ * higher ones were already published. Events are published as soon as they are seen, and missing sequence numbers
+ * are re-read on every poll until they appear or {@code gap-timeout} takes them for rollbacks. The SSE event id is
+ * therefore a resume watermark rather than the event's own sequence: every sequence number up to it has been
+ * published or given up on. A resumed client may see an event twice and should de-duplicate on {@code sequence}.
+ */
+@Component
+@Slf4j
+public class AvailabilityFeed implements SchedulingConfigurer {
+
+    private static final String EVENT_NAME = "availability";
+    private static final String PURGE_CRON = "0 17 * * * *";
+    private static final long RECONNECT_DELAY_MILLIS = 3_000;
+    private static final Frame KEEP_ALIVE = new Frame(null, -1);
+
+    private final AvailabilityEventRepository availabilityEventRepository;
+    private final AvailabilityEventMapper availabilityEventMapper;
+    private final AvailabilityFeedProperties properties;
+    private final Counter publishedCounter;
+    private final Counter overflowCounter;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Platform threads: SseEmitter.send is synchronized and would pin a virtual thread for the whole blocking write
+    private final ExecutorService sender;
+
+    // Highest sequence number read from the outbox; -1 until first read
+    private volatile long cursor = -1;
+    // Every sequence number up to here has been published or given up on
+    private volatile long watermark = -1;
+    // Sequence numbers below the cursor that have not been seen yet, with the time they were first missed; poller only
+    private final TreeMap<Long, Long> missing = new TreeMap<>();
+
+    public AvailabilityFeed(AvailabilityEventRepository availabilityEventRepository,
+                            AvailabilityEventMapper availabilityEventMapper,
+                            AvailabilityFeedProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.availabilityEventRepository = availabilityEventRepository;
+        this.availabilityEventMapper = availabilityEventMapper;
+        this.properties = properties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(properties.getSenderThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "availability-feed-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publishedCounter = Counter.builder("library.availability.events.published.total")
+                .description("Availability events read from the outbox and fanned out to subscribers")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("library.availability.subscribers.dropped.total")
+                .description("Availability feed connections closed because the client fell too far behind")
+                .register(meterRegistry);
+        Gauge.builder("library.availability.subscribers", subscribers, Set::size)
+                .description("Open availability feed connections")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream that starts after {@code lastEventId}, or at the current head of the feed when it is null.
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+        try {
+            // Commits the response headers right away instead of with the first event or heartbeat
+            emitter.send(SseEmitter.event().comment("subscribed").reconnectTime(RECONNECT_DELAY_MILLIS));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        // Buffers whatever the poller publishes from here on, and only starts sending it once caught up
+        subscribers.add(subscriber);
+        if (lastEventId == null || catchUp(subscriber, lastEventId)) {
+            subscriber.goLive();
+        }
+        log.debug("Availability feed subscriber added after sequence {}, {} open", lastEventId, subscribers.size());
+        return emitter;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::poll, properties.getPollInterval());
+        registrar.addFixedDelayTask(this::heartbeat, properties.getHeartbeatInterval());
+        registrar.addCronTask(this::purgeExpiredEvents, PURGE_CRON);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    public void poll() {
+        long from = currentCursor();
+        List<AvailabilityEvent> late = findLateEvents();
+        List<AvailabilityEvent> batch =
+                availabilityEventRepository.findByIdGreaterThanOrderByIdAsc(from, Limit.of(properties.getBatchSize()));
+        trackMissing(from, batch);
+        if (!batch.isEmpty()) {
+            cursor = batch.get(batch.size() - 1).getId();
+        }
+        long now = System.nanoTime();
+        missing.values().removeIf(since -> now - since >= properties.getGapTimeout().toNanos());
+        long resumeFrom = missing.isEmpty() ? cursor : missing.firstKey() - 1;
+        watermark = resumeFrom;
+
+        List<Frame> ready = new ArrayList<>(late.size() + batch.size());
+        for (List<AvailabilityEvent> events : List.of(late, batch)) {
+            for (AvailabilityEvent event : events) {
+                ready.add(new Frame(availabilityEventMapper.toDto(event), Math.min(event.getId(), resumeFrom)));
+            }
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
+        publishedCounter.increment(ready.size());
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(ready);
+        }
+    }
+
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    public void purgeExpiredEvents() {
+        int purged = availabilityEventRepository.deleteOccurredBefore(LocalDateTime.now().minus(properties.getRetention()));
+        if (purged > 0) {
+            log.info("Purged {} availability events older than {}", purged, properties.getRetention());
+        }
+    }
+
+    private long currentCursor() {
+        if (cursor < 0) {
+            synchronized (this) {
+                if (cursor < 0) {
+                    long head = availabilityEventRepository.findMaxId();
+                    watermark = head;
+                    cursor = head;
+                }
+            }
+        }
+        return cursor;
+    }
+
+    // Sequence numbers skipped by this batch belong to transactions still in flight, or to rollbacks
+    private void trackMissing(long from, List<AvailabilityEvent> batch) {
+        long now = System.nanoTime();
+        long expected = from + 1;
+        for (AvailabilityEvent event : batch) {
+            // In-flight transactions are bounded by the connection pool; a larger jump is a sequence reset, not a gap
+            for (long id = Math.max(expected, event.getId() - properties.getBatchSize()); id < event.getId(); id++) {
+                missing.put(id, now);
+            }
+            expected = event.getId() + 1;
+        }
+    }
+
+    private List<AvailabilityEvent> findLateEvents() {
+        if (missing.isEmpty()) {
+            return List.of();
+        }
+        List<AvailabilityEvent> late = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(missing.keySet());
+        for (int start = 0; start < ids.size(); start += properties.getBatchSize()) {
+            late.addAll(availabilityEventRepository.findAllById(
+                    ids.subList(start, Math.min(start + properties.getBatchSize(), ids.size()))));
+        }
+        late.sort(Comparator.comparing(AvailabilityEvent::getId));
+        late.forEach(event -> missing.remove(event.getId()));
+        return late;
+    }
+
+    // Replays the outbox up to the live cursor on the request thread; returns false if the client went away
+    private boolean catchUp(Subscriber subscriber, long after) {
+        long upTo = currentCursor();
+        long resumeFrom = watermark;
+        long position = after;
+        while (position < upTo) {
+            List<AvailabilityEvent> page = availabilityEventRepository
+                    .findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(position, upTo, Limit.of(properties.getBatchSize()));
+            if (page.isEmpty()) {
+                return true;
+            }
+            for (AvailabilityEvent event : page) {
+                Frame frame = new Frame(availabilityEventMapper.toDto(event), Math.max(after, Math.min(event.getId(), resumeFrom)));
+                if (!subscriber.sendNow(frame)) {
+                    return false;
+                }
+            }
+            position = page.get(page.size() - 1).getId();
+        }
+        return true;
+    }
+
+    /**
+     * An event ready to send, or a keep-alive when {@code event} is null, with the resume watermark to send as its id.
+     */
+    private record Frame(AvailabilityEventDto event, long resumeFrom) {
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Frame> buffer;
+        // Set while a drain task is queued or running, so each subscriber is sent to by one thread at a time
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean live;
+        private volatile boolean closed;
+        // Only touched by whoever is sending: the request thread during catch-up, then one drain task at a time
+        private long lastResumeFrom = -1;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(properties.getSubscriberBuffer());
+        }
+
+        void offer(List<Frame> frames) {
+            for (Frame frame : frames) {
+                if (!buffer.offer(frame)) {
+                    overflow();
+                    return;
+                }
+            }
+            scheduleDrain();
+        }
+
+        void heartbeat() {
+            if (buffer.isEmpty()) {
+                offer(List.of(KEEP_ALIVE));
+            }
+        }
+
+        void goLive() {
+            live = true;
+            scheduleDrain();
+        }
+
+        boolean sendNow(Frame frame) {
+            try {
+                send(frame);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                drop(e);
+                return false;
+            }
+        }
+
+        private void scheduleDrain() {
+            if ((live || closed) && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        // Sends at most one batch per task, so a subscriber with a deep buffer does not monopolize a sender thread
+        private void drain() {
+            try {
+                for (int sent = 0; sent < properties.getBatchSize(); sent++) {
+                    if (closed) {
+                        emitter.complete();
+                        return;
+                    }
+                    Frame frame = buffer.poll();
+                    if (frame == null) {
+                        break;
+                    }
+                    send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // Picks up frames offered or an overflow after the last poll, whose scheduleDrain found this task still running
+            if (closed || !buffer.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(Frame frame) throws IOException {
+            if (frame.event() == null) {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+                return;
+            }
+            lastResumeFrom = Math.max(lastResumeFrom, frame.resumeFrom());
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(lastResumeFrom))
+                    .name(EVENT_NAME)
+                    .data(frame.event()));
+        }
+
+        // Never touches the emitter here: a sender may be blocked inside it, and the poller must not wait for that
+        private void overflow() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+            overflowCounter.increment();
+            log.debug("Closing availability feed subscriber whose buffer of {} events overflowed", properties.getSubscriberBuffer());
+            scheduleDrain();
+        }
+
+        private void drop(Exception cause) {
+            log.debug("Dropping availability feed subscriber: {}", cause.getMessage());
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
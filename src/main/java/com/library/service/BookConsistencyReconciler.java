@@ -0,0 +1,222 @@
+package com.library.service;
+
+import com.library.cache.EntityCacheEvictor;
+import com.library.config.ReconciliationProperties;
+import com.library.entity.AvailabilityEvent;
+import com.library.entity.Book;
+import com.library.repository.AvailabilityEventRepository;
+import com.library.repository.BookLoanState;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Walks the books table in keyset chunks and repairs rows whose {@code available} flag disagrees with
+ * {@code borrowed_by}, or whose {@code borrowed_by} points at a borrower that no longer exists. {@code borrowed_by}
+ * is the source of truth; a dangling reference releases the book.
+ *
+ * <p>Each chunk is read in its own short read-only transaction, which a configured replica serves. Only chunks
+ * with anomalies open a write transaction, and those rows are re-checked on the primary before anything changes.
+ */
+@Component
+@Slf4j
+public class BookConsistencyReconciler implements SchedulingConfigurer {
+
+    private static final int PROGRESS_LOG_CHUNKS = 100;
+
+    private final BookRepository bookRepository;
+    private final BorrowerRepository borrowerRepository;
+    private final AvailabilityEventRepository availabilityEventRepository;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final ReconciliationProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    // Own thread so a long scan never holds up the shared scheduler, which also drives the availability feed
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong scannedInRun = new AtomicLong();
+    private final Counter mismatchesFound;
+    private final Counter danglingBorrowersFound;
+    private final Counter repairs;
+    private final Timer runTimer;
+
+    public BookConsistencyReconciler(BookRepository bookRepository,
+                                     BorrowerRepository borrowerRepository,
+                                     AvailabilityEventRepository availabilityEventRepository,
+                                     EntityCacheEvictor entityCacheEvictor,
+                                     PlatformTransactionManager transactionManager,
+                                     ReconciliationProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.borrowerRepository = borrowerRepository;
+        this.availabilityEventRepository = availabilityEventRepository;
+        this.entityCacheEvictor = entityCacheEvictor;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.mismatchesFound = anomalyCounter(meterRegistry, "availability_mismatch");
+        this.danglingBorrowersFound = anomalyCounter(meterRegistry, "dangling_borrower");
+        this.repairs = Counter.builder("library.reconciliation.repairs.total")
+                .description("Books whose loan columns were repaired by the reconciliation job")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("library.reconciliation.duration")
+                .description("Time taken by a full reconciliation scan of the books table")
+                .register(meterRegistry);
+        Gauge.builder("library.reconciliation.scanned_books", scannedInRun, AtomicLong::get)
+                .description("Books scanned so far by the current or last reconciliation run")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        if (properties.isEnabled()) {
+            registrar.addCronTask(() -> executor.execute(this::reconcile), properties.getCron());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs one full scan unless another is in progress, in which case it returns an empty report right away.
+     */
+    public ReconciliationReport reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Skipping book reconciliation because the previous run is still in progress");
+            return ReconciliationReport.EMPTY;
+        }
+        try {
+            return runTimer.record(this::scan);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReconciliationReport scan() {
+        log.info("Starting book reconciliation in chunks of {} (repair: {})", properties.getChunkSize(), properties.isRepair());
+        scannedInRun.set(0);
+        long after = 0;
+        long chunks = 0;
+        long mismatches = 0;
+        long dangling = 0;
+        long repaired = 0;
+        long start = System.nanoTime();
+
+        List<BookLoanState> chunk;
+        while (!(chunk = readChunk(after)).isEmpty()) {
+            after = chunk.get(chunk.size() - 1).bookId();
+            scannedInRun.addAndGet(chunk.size());
+            List<BookLoanState> anomalies = chunk.stream()
+                    .filter(state -> state.hasDanglingBorrower() || state.hasAvailabilityMismatch())
+                    .toList();
+            for (BookLoanState anomaly : anomalies) {
+                if (anomaly.hasDanglingBorrower()) {
+                    dangling++;
+                    danglingBorrowersFound.increment();
+                } else {
+                    mismatches++;
+                    mismatchesFound.increment();
+                }
+            }
+            if (!anomalies.isEmpty() && properties.isRepair()) {
+                repaired += repair(anomalies.stream().map(BookLoanState::bookId).toList());
+            }
+            if (++chunks % PROGRESS_LOG_CHUNKS == 0) {
+                log.info("Book reconciliation scanned {} books up to ID {}, {} anomalies so far",
+                        scannedInRun.get(), after, mismatches + dangling);
+            }
+            pause();
+        }
+
+        ReconciliationReport report = new ReconciliationReport(scannedInRun.get(), mismatches, dangling, repaired,
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("Finished book reconciliation: {}", report);
+        return report;
+    }
+
+    private List<BookLoanState> readChunk(long after) {
+        return readOnlyTransaction.execute(status ->
+                bookRepository.findLoanStatesAfter(after, Limit.of(properties.getChunkSize())));
+    }
+
+    // The scan may come from a lagging replica or race a borrow, so every row is re-checked before it is changed
+    private int repair(List<Long> bookIds) {
+        Integer repaired = writeTransaction.execute(status -> {
+            int changed = 0;
+            for (Book book : bookRepository.findAllById(bookIds)) {
+                Long borrowerId = book.getBorrowerId();
+                boolean dangling = borrowerId != null && !borrowerRepository.existsById(borrowerId);
+                if (!dangling && book.getAvailable() == (borrowerId == null)) {
+                    continue;
+                }
+                log.warn("Repairing book ID: {} (available: {}, borrowed by: {}, borrower exists: {})",
+                        book.getId(), book.getAvailable(), borrowerId, !dangling);
+                int updated = dangling
+                        ? bookRepository.releaseBorrower(book.getId(), borrowerId)
+                        : bookRepository.syncAvailable(book.getId());
+                if (updated == 0) {
+                    continue;
+                }
+                book.setBorrowerId(dangling ? null : borrowerId);
+                entityCacheEvictor.evictBook(book.getId());
+                availabilityEventRepository.save(new AvailabilityEvent(book));
+                changed++;
+            }
+            return changed;
+        });
+        int changed = repaired != null ? repaired : 0;
+        repairs.increment(changed);
+        return changed;
+    }
+
+    private void pause() {
+        long millis = properties.getChunkPause().toMillis();
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Book reconciliation interrupted", e);
+        }
+    }
+
+    private static Counter anomalyCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("library.reconciliation.anomalies.total")
+                .description("Inconsistent books found by the reconciliation job")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    public record ReconciliationReport(long scanned, long availabilityMismatches, long danglingBorrowers,
+                                       long repaired, Duration elapsed) {
+
+        static final ReconciliationReport EMPTY = new ReconciliationReport(0, 0, 0, 0, Duration.ZERO);
+    }
+}
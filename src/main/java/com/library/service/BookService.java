@@ -1,13 +1,30 @@
 package com.library.service;
 
+import com.library.cache.EntityCacheEvictor;
+import com.library.config.CatalogSyncProperties;
+import com.library.config.LoanProperties;
+import com.library.datasource.ReadYourWritesTracker;
 import com.library.dto.BookDto;
+import com.library.dto.BookField;
+import com.library.dto.CatalogSyncResult;
+import com.library.dto.SparseBookDto;
+import com.library.entity.AvailabilityEvent;
 import com.library.entity.Book;
 import com.library.exception.BookAlreadyBorrowedException;
+import com.library.exception.BookNotBorrowedException;
 import com.library.exception.BookNotFoundException;
 import com.library.exception.BorrowerNotFoundException;
+import com.library.exception.DuplicateIsbnException;
+import com.library.exception.InvalidRequestParameterException;
+import com.library.exception.LoanLimitExceededException;
 import com.library.mapper.BookMapper;
+import com.library.profiling.BorrowEvent;
+import com.library.repository.AvailabilityEventRepository;
 import com.library.repository.BookRepository;
+import com.library.repository.BookUpsertRepository.UpsertCounts;
 import com.library.repository.BorrowerRepository;
+import com.library.repository.HoldRepository;
+import com.library.service.HoldQueue.QueuedHold;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
@@ -15,7 +32,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static java.util.stream.Collectors.toList;
 
@@ -27,43 +49,182 @@ public class BookService {
     
     private final BookRepository bookRepository;
     private final BorrowerRepository borrowerRepository;
+    private final HoldRepository holdRepository;
+    private final HoldQueue holdQueue;
+    private final AvailabilityEventRepository availabilityEventRepository;
     private final BookMapper bookMapper;
     private final Counter successfulBorrowsCounter;
     private final Counter failedBorrowsCounter;
+    private final LoanProperties loanProperties;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final EntityCacheEvictor entityCacheEvictor;
+    private final IsbnLookupService isbnLookupService;
+    private final CatalogSyncProperties catalogSyncProperties;
     
+    @Transactional(readOnly = true)
     public List<BookDto> getAllBooks() {
         log.debug("Fetching all books");
         List<Book> books = bookRepository.findAll();
         return mapBooksToDto(books);
     }
     
+    @Transactional(readOnly = true)
+    public List<BookDto> getBooksByAvailability(boolean available) {
+        log.debug("Fetching books by availability: {}", available);
+        return mapBooksToDto(bookRepository.findByAvailable(available));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<BookDto> getBooksByBranch(String branch, Boolean available) {
+        log.debug("Fetching books of branch: {} (available: {})", branch, available);
+        List<Book> books = available == null
+                ? bookRepository.findByBranch(branch)
+                : bookRepository.findByBranchAndAvailable(branch, available);
+        return mapBooksToDto(books);
+    }
+    
+    // Sparse list view: only the selected columns are read, see BookFieldRepository
+    @Transactional(readOnly = true)
+    public List<SparseBookDto> getBookFields(Set<BookField> fields, String branch, Boolean available) {
+        log.debug("Fetching fields {} of books (branch: {}, available: {})", fields, branch, available);
+        return bookRepository.findFields(fields, branch, available);
+    }
+    
     public BookDto addBook(BookDto bookDto) {
-        log.debug("Adding new book: {}", bookDto.getTitle());
+        log.debug("Adding new book: {}", bookDto.title());
+        // A book is created available; a loan only comes from a borrow, which also counts it for the borrower
+        if (bookDto.borrowerId() != null) {
+            throw new InvalidRequestParameterException("borrowerId cannot be set when adding a book; borrow it instead");
+        }
         Book book = bookMapper.toEntity(bookDto);
+        book.setIsbn(Isbn.canonical(book.getIsbn()));
+        if (book.getIsbn() != null && bookRepository.existsByBranchAndIsbn(book.getBranch(), book.getIsbn())) {
+            throw new DuplicateIsbnException("Branch " + book.getBranch() + " already has a book with ISBN: " + book.getIsbn());
+        }
         Book savedBook = bookRepository.save(book);
+        isbnLookupService.recordAdded(savedBook.getIsbn());
         log.info("Book added successfully with ID: {}", savedBook.getId());
         return bookMapper.toDto(savedBook);
     }
 
+    /**
+     * Inserts the feed's books, or updates the title and author of the branch's existing book with the same ISBN.
+     * Loan state of existing books is kept. The whole request is one transaction, written with one upsert
+     * statement per statement-rows books instead of a lookup per book.
+     */
+    public CatalogSyncResult syncCatalog(List<BookDto> bookDtos) {
+        if (bookDtos.size() > catalogSyncProperties.getMaxRequestRows()) {
+            throw new InvalidRequestParameterException("A catalog sync accepts at most "
+                    + catalogSyncProperties.getMaxRequestRows() + " books per request, got " + bookDtos.size());
+        }
+        // The upsert statement cannot touch the same row twice, so the last occurrence of a branch and ISBN wins
+        Map<String, Book> booksByKey = new LinkedHashMap<>();
+        for (int i = 0; i < bookDtos.size(); i++) {
+            Book book = toSyncedBook(i, bookDtos.get(i));
+            booksByKey.remove(book.getBranch() + ' ' + book.getIsbn());
+            booksByKey.put(book.getBranch() + ' ' + book.getIsbn(), book);
+        }
+
+        List<Book> books = new ArrayList<>(booksByKey.values());
+        int inserted = 0;
+        int updated = 0;
+        int statementRows = Math.max(1, catalogSyncProperties.getStatementRows());
+        for (int from = 0; from < books.size(); from += statementRows) {
+            UpsertCounts counts = bookRepository.upsertByIsbn(books.subList(from, Math.min(books.size(), from + statementRows)));
+            inserted += counts.inserted();
+            updated += counts.updated();
+        }
+        if (inserted + updated > 0) {
+            entityCacheEvictor.evictBooks();
+            isbnLookupService.recordAdded(booksByKey.values().stream().map(Book::getIsbn).toList());
+        }
+        log.info("Catalog sync of {} books: {} inserted, {} updated", bookDtos.size(), inserted, updated);
+        return new CatalogSyncResult(bookDtos.size(), inserted, updated, books.size() - inserted - updated);
+    }
+
     @Observed(name = "book.borrow", contextualName = "borrowing-book")
     public BookDto borrowBook(Long bookId, Long borrowerId) {
+        BorrowEvent event = new BorrowEvent(bookId, borrowerId);
         try {
-            log.debug("Processing borrow request for book ID: {} by borrower ID: {}", bookId, borrowerId);
-            
-            Book book = findBookOrThrow(bookId);
-            validateBookAvailability(book);
-            validateBorrowerExists(borrowerId);
-            
-            Book borrowedBook = updateBookBorrower(book, borrowerId);
+            Book borrowedBook = borrow(bookId, borrowerId);
             successfulBorrowsCounter.increment();
-            
-            log.info("Book ID: {} successfully borrowed by borrower ID: {}", bookId, borrowerId);
+            event.complete("borrowed");
             return bookMapper.toDto(borrowedBook);
         } catch (Exception e) {
             failedBorrowsCounter.increment();
+            event.complete(e.getClass().getSimpleName());
             throw e;
         }
     }
+
+    /**
+     * Applies a batch of borrows from the group-commit pipeline in this one transaction, in order. A rejected
+     * borrow has written nothing when its exception is thrown, so it is returned as that request's result and the
+     * others still commit. Any other exception rolls the whole batch back. Counting the outcomes is left to the
+     * caller, which knows whether the transaction committed.
+     */
+    public List<BorrowResult> borrowBooks(List<BorrowRequest> requests) {
+        // Loads the batch's books into the persistence context, so each borrow's lookup runs no query
+        bookRepository.findAllById(requests.stream().map(BorrowRequest::bookId).distinct().toList());
+        List<BorrowResult> results = new ArrayList<>(requests.size());
+        for (BorrowRequest request : requests) {
+            BorrowEvent event = new BorrowEvent(request.bookId(), request.borrowerId());
+            try {
+                results.add(new BorrowResult(bookMapper.toDto(borrow(request.bookId(), request.borrowerId())), null));
+                event.complete("borrowed");
+            } catch (BookNotFoundException | BookAlreadyBorrowedException
+                     | BorrowerNotFoundException | LoanLimitExceededException e) {
+                results.add(new BorrowResult(null, e));
+                event.complete(e.getClass().getSimpleName());
+            }
+        }
+        return results;
+    }
+
+    private Book borrow(Long bookId, Long borrowerId) {
+        log.debug("Processing borrow request for book ID: {} by borrower ID: {}", bookId, borrowerId);
+        
+        Book book = findBookOrThrow(bookId);
+        validateBookAvailability(book);
+        reserveLoanSlot(borrowerId);
+        
+        // A concurrent borrow got the book after it was read; the slot is given back so nothing was written
+        if (bookRepository.assignBorrower(bookId, borrowerId) == 0) {
+            borrowerRepository.decrementActiveLoans(borrowerId);
+            log.warn("Book ID: {} was borrowed concurrently", bookId);
+            throw new BookAlreadyBorrowedException(bookId);
+        }
+        Book borrowedBook = recordLoanChange(book, borrowerId);
+        readYourWritesTracker.recordWrite(borrowerId);
+        
+        log.info("Book ID: {} successfully borrowed by borrower ID: {}", bookId, borrowerId);
+        return borrowedBook;
+    }
+    
+    public BookDto returnBook(Long bookId) {
+        log.debug("Processing return request for book ID: {}", bookId);
+        
+        Book book = findBookOrThrow(bookId);
+        Long borrowerId = validateBookBorrowed(book);
+        
+        Long nextBorrowerId = claimNextHold(bookId);
+        // Only one of two concurrent returns finds the loan it read; the other rolls back with its hold claim
+        int returned = nextBorrowerId == null
+                ? bookRepository.releaseBorrower(bookId, borrowerId)
+                : bookRepository.transferBorrower(bookId, borrowerId, nextBorrowerId);
+        if (returned == 0) {
+            log.warn("Book ID: {} was returned concurrently", bookId);
+            throw new BookNotBorrowedException(bookId);
+        }
+        borrowerRepository.decrementActiveLoans(borrowerId);
+        entityCacheEvictor.evictBorrower(borrowerId);
+        Book returnedBook = recordLoanChange(book, nextBorrowerId);
+        readYourWritesTracker.recordWrite(borrowerId);
+        readYourWritesTracker.recordWrite(nextBorrowerId);
+        
+        log.info("Book ID: {} returned by borrower ID: {}", bookId, borrowerId);
+        return bookMapper.toDto(returnedBook);
+    }
     
     private List<BookDto> mapBooksToDto(List<Book> books) {
         return books.stream()
@@ -71,6 +232,23 @@ public class BookService {
                 .collect(toList());
     }
     
+    private static Book toSyncedBook(int index, BookDto bookDto) {
+        if (bookDto == null || isBlank(bookDto.title()) || isBlank(bookDto.author()) || isBlank(bookDto.isbn())) {
+            throw new InvalidRequestParameterException("Book " + index + ": title, author and isbn are required");
+        }
+        String branch = bookDto.branch() != null ? bookDto.branch() : Book.DEFAULT_BRANCH;
+        if (!branch.matches(BookDto.BRANCH_PATTERN)) {
+            throw new InvalidRequestParameterException("Book " + index + ": " + BookDto.BRANCH_MESSAGE);
+        }
+        Book book = new Book(bookDto.title(), bookDto.author(), Isbn.canonical(bookDto.isbn()));
+        book.setBranch(branch);
+        return book;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+    
     private Book findBookOrThrow(Long bookId) {
         return bookRepository.findById(bookId)
                 .orElseThrow(() -> new BookNotFoundException(bookId));
@@ -83,13 +261,63 @@ public class BookService {
         }
     }
     
-    private void validateBorrowerExists(Long borrowerId) {
-        borrowerRepository.findById(borrowerId)
-                .orElseThrow(() -> new BorrowerNotFoundException(borrowerId));
+    private Long validateBookBorrowed(Book book) {
+        if (book.getBorrowerId() == null) {
+            log.warn("Book ID: {} is not borrowed", book.getId());
+            throw new BookNotBorrowedException(book.getId());
+        }
+        return book.getBorrowerId();
     }
     
-    private Book updateBookBorrower(Book book, Long borrowerId) {
+    // Conditional increment keeps the limit check constant-cost and safe under concurrent borrows
+    private void reserveLoanSlot(Long borrowerId) {
+        int maxActiveLoans = loanProperties.getMaxActivePerBorrower();
+        if (borrowerRepository.incrementActiveLoans(borrowerId, maxActiveLoans) == 0) {
+            if (!borrowerRepository.existsById(borrowerId)) {
+                throw new BorrowerNotFoundException(borrowerId);
+            }
+            log.warn("Borrower ID: {} has reached the active loan limit", borrowerId);
+            throw new LoanLimitExceededException(borrowerId, maxActiveLoans);
+        }
+        entityCacheEvictor.evictBorrower(borrowerId);
+    }
+    
+    // The loan slot is reserved before the hold is claimed, so a holder at the limit is passed over but keeps the
+    // hold, and with it their place in the queue, for the next return
+    private Long claimNextHold(Long bookId) {
+        int maxActiveLoans = loanProperties.getMaxActivePerBorrower();
+        for (Optional<QueuedHold> next = holdQueue.poll(bookId); next.isPresent(); next = holdQueue.poll(bookId)) {
+            QueuedHold hold = next.get();
+            if (borrowerRepository.incrementActiveLoans(hold.borrowerId(), maxActiveLoans) == 0) {
+                log.info("Skipping hold ID: {} because borrower ID: {} is at the active loan limit", hold.holdId(), hold.borrowerId());
+                holdQueue.reloadAfterCompletion(bookId);
+                continue;
+            }
+            // Cancelled since it was queued: the slot goes back
+            if (holdRepository.claim(hold.holdId()) == 0) {
+                borrowerRepository.decrementActiveLoans(hold.borrowerId());
+                continue;
+            }
+            entityCacheEvictor.evictBorrower(hold.borrowerId());
+            log.info("Book ID: {} handed to next holder, borrower ID: {}", bookId, hold.borrowerId());
+            return hold.borrowerId();
+        }
+        return null;
+    }
+    
+    // Brings the managed book in line with the conditional update that changed its row, without writing it again.
+    // Every loan change also writes an outbox row in the same transaction; AvailabilityFeed streams it after commit.
+    private Book recordLoanChange(Book book, Long borrowerId) {
         book.setBorrowerId(borrowerId);
-        return bookRepository.save(book);
+        entityCacheEvictor.evictBook(book.getId());
+        availabilityEventRepository.save(new AvailabilityEvent(book));
+        return book;
+    }
+
+    public record BorrowRequest(Long bookId, Long borrowerId) {
+    }
+
+    // Exactly one of book and failure is set
+    public record BorrowResult(BookDto book, RuntimeException failure) {
     }
-}
\ No newline at end of file
+}
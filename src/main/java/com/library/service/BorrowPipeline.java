@@ -0,0 +1,192 @@
+package com.library.service;
+
+import com.library.config.BorrowPipelineProperties;
+import com.library.dto.BookDto;
+import com.library.service.BookService.BorrowRequest;
+import com.library.service.BookService.BorrowResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for borrows. Request threads enqueue their borrow and wait; one pipeline thread collects
+ * the borrows that arrive within the window after the first one, up to max-batch-size, and applies them with
+ * {@link BookService#borrowBooks} in one transaction. Peak-time borrows then share a commit, and its fsync,
+ * instead of paying one each. While a batch commits the next one fills up, so batches grow with the load.
+ *
+ * <p>A rejected borrow only fails its own caller. If the batch transaction itself fails, each of its borrows is
+ * retried in its own transaction, so one bad row cannot fail its neighbours.
+ */
+@Slf4j
+public class BorrowPipeline implements AutoCloseable {
+
+    // How often an idle pipeline thread checks whether it has been closed
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final BookService bookService;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingBorrow> queue;
+    private final Counter successfulBorrowsCounter;
+    private final Counter failedBorrowsCounter;
+    private final DistributionSummary batchSize;
+    private final Timer queueWait;
+    private final Counter queueFull;
+    private final Counter batchFailed;
+    private volatile boolean running = true;
+    private final Thread worker;
+
+    public BorrowPipeline(BookService bookService,
+                          BorrowPipelineProperties properties,
+                          Counter successfulBorrowsCounter,
+                          Counter failedBorrowsCounter,
+                          MeterRegistry meterRegistry) {
+        this.bookService = bookService;
+        this.windowNanos = properties.getWindow().toNanos();
+        this.maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.successfulBorrowsCounter = successfulBorrowsCounter;
+        this.failedBorrowsCounter = failedBorrowsCounter;
+        this.batchSize = DistributionSummary.builder("library.borrow.pipeline.batch.size")
+                .description("Borrows committed together in one pipeline transaction")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("library.borrow.pipeline.queue.wait")
+                .description("Time from a borrow being enqueued to its batch starting")
+                .register(meterRegistry);
+        this.queueFull = fallbackCounter(meterRegistry, "queue_full");
+        this.batchFailed = fallbackCounter(meterRegistry, "batch_failed");
+        Gauge.builder("library.borrow.pipeline.queue.depth", queue, BlockingQueue::size)
+                .description("Borrows waiting for a batch")
+                .register(meterRegistry);
+        this.worker = Thread.ofPlatform().name("borrow-pipeline").daemon().start(this::batchLoop);
+    }
+
+    /**
+     * Borrows through the pipeline and waits for the batch to commit. Rejections are rethrown as the same
+     * exceptions {@link BookService#borrowBook} throws.
+     */
+    public BookDto borrow(Long bookId, Long borrowerId) {
+        try {
+            return submit(bookId, borrowerId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<BookDto> submit(Long bookId, Long borrowerId) {
+        PendingBorrow pending = new PendingBorrow(new BorrowRequest(bookId, borrowerId), new CompletableFuture<>(),
+                System.nanoTime());
+        if (!running || !queue.offer(pending)) {
+            queueFull.increment();
+            applyAlone(pending);
+        }
+        return pending.result();
+    }
+
+    // Stops taking borrows; the ones already queued are still applied
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+        // Borrows enqueued while the pipeline thread was exiting
+        PendingBorrow pending;
+        while ((pending = queue.poll()) != null) {
+            applyAlone(pending);
+        }
+    }
+
+    private void batchLoop() {
+        List<PendingBorrow> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Nothing interrupts this thread but shutdown; still drain what is queued
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                apply(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Waits for a first borrow, then for up to window more, or until the batch is full
+    private void collect(List<PendingBorrow> batch) throws InterruptedException {
+        PendingBorrow first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0 || !running) {
+                return;
+            }
+            PendingBorrow next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void apply(List<PendingBorrow> batch) {
+        long started = System.nanoTime();
+        batch.forEach(pending -> queueWait.record(started - pending.enqueuedNanos(), TimeUnit.NANOSECONDS));
+        List<BorrowResult> results;
+        try {
+            results = bookService.borrowBooks(batch.stream().map(PendingBorrow::request).toList());
+        } catch (RuntimeException e) {
+            log.warn("Borrow batch of {} rolled back, retrying each borrow on its own", batch.size(), e);
+            batchFailed.increment(batch.size());
+            batch.forEach(this::applyAlone);
+            return;
+        }
+        batchSize.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            BorrowResult result = results.get(i);
+            if (result.failure() == null) {
+                successfulBorrowsCounter.increment();
+                batch.get(i).result().complete(result.book());
+            } else {
+                failedBorrowsCounter.increment();
+                batch.get(i).result().completeExceptionally(result.failure());
+            }
+        }
+    }
+
+    private void applyAlone(PendingBorrow pending) {
+        try {
+            pending.result().complete(bookService.borrowBook(pending.request().bookId(), pending.request().borrowerId()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    private static Counter fallbackCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("library.borrow.pipeline.fallbacks.total")
+                .description("Borrows that committed in their own transaction instead of a batch")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record PendingBorrow(BorrowRequest request, CompletableFuture<BookDto> result, long enqueuedNanos) {
+    }
+}
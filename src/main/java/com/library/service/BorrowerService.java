@@ -1,21 +1,32 @@
 package com.library.service;
 
+import com.library.datasource.ReadYourWritesTracker;
 import com.library.dto.BookDto;
 import com.library.dto.BorrowerDto;
-import com.library.entity.Book;
+import com.library.dto.BorrowerPage;
 import com.library.entity.Borrower;
 import com.library.exception.BorrowerNotFoundException;
 import com.library.exception.DuplicateEmailException;
+import com.library.exception.InvalidRequestParameterException;
 import com.library.mapper.BookMapper;
 import com.library.mapper.BorrowerMapper;
-import com.library.repository.BookRepository;
+import com.library.repository.BorrowerLoan;
 import com.library.repository.BorrowerRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import static java.util.stream.Collectors.toList;
 
@@ -25,45 +36,99 @@ import static java.util.stream.Collectors.toList;
 @Slf4j
 public class BorrowerService {
     
+    // Keeps the IN list of a batched loan lookup well below driver and planner limits
+    private static final int LOAN_BATCH_SIZE = 1000;
+    
     private final BorrowerRepository borrowerRepository;
-    private final BookRepository bookRepository;
     private final BorrowerMapper borrowerMapper;
     private final BookMapper bookMapper;
+    private final ReadYourWritesTracker readYourWritesTracker;
     
     public BorrowerDto createBorrower(BorrowerDto borrowerDto) {
-        log.debug("Creating new borrower with email: {}", borrowerDto.getEmail());
+        log.debug("Creating new borrower with email: {}", borrowerDto.email());
 
-        validateEmailUniqueness(borrowerDto.getEmail());
+        validateEmailUniqueness(borrowerDto.email());
 
         Borrower borrower = borrowerMapper.toEntity(borrowerDto);
         Borrower savedBorrower = borrowerRepository.save(borrower);
+        readYourWritesTracker.recordWrite(savedBorrower.getId());
 
         log.info("Borrower created successfully with ID: {}", savedBorrower.getId());
         return borrowerMapper.toDto(savedBorrower);
     }
     
+    @Transactional(readOnly = true)
     public BorrowerDto getBorrower(Long id) {
         log.debug("Fetching borrower with ID: {}", id);
+        readYourWritesTracker.pinToPrimaryIfRecentlyWritten(id);
 
         Borrower borrower = findBorrowerOrThrow(id);
 
         return borrowerMapper.toDto(borrower);
     }
     
+    @Transactional(readOnly = true)
     public List<BookDto> getBorrowedBooks(Long borrowerId) {
         log.debug("Fetching books borrowed by borrower ID: {}", borrowerId);
+        readYourWritesTracker.pinToPrimaryIfRecentlyWritten(borrowerId);
 
-        validateBorrowerExists(borrowerId);
+        return mapLoansOrThrow(borrowerId, borrowerRepository.findLoans(borrowerId));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<BookDto> getBorrowedBooks(Long borrowerId, String branch) {
+        log.debug("Fetching books of branch: {} borrowed by borrower ID: {}", branch, borrowerId);
+        readYourWritesTracker.pinToPrimaryIfRecentlyWritten(borrowerId);
 
-        List<Book> borrowedBooks = bookRepository.findByBorrowerId(borrowerId);
-        return mapBooksToDto(borrowedBooks);
+        return mapLoansOrThrow(borrowerId, borrowerRepository.findLoansInBranch(borrowerId, branch));
     }
     
-    public List<BorrowerDto> getAllBorrowers() {
-        log.debug("Fetching all borrowers");
+    /**
+     * Borrowed books of many borrowers in one query per {@value #LOAN_BATCH_SIZE} ids, for batch jobs.
+     * Borrowers without loans map to an empty list; unknown ids are left out of the result.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<BookDto>> getBorrowedBooksByBorrower(Collection<Long> borrowerIds) {
+        log.debug("Fetching books borrowed by {} borrowers", borrowerIds.size());
 
-        List<Borrower> borrowers = borrowerRepository.findAll();
-        return mapBorrowersToDto(borrowers);
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(borrowerIds));
+        Map<Long, List<BookDto>> booksByBorrower = new LinkedHashMap<>();
+        for (int from = 0; from < ids.size(); from += LOAN_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + LOAN_BATCH_SIZE, ids.size()));
+            for (BorrowerLoan loan : borrowerRepository.findLoans(batch)) {
+                List<BookDto> books = booksByBorrower.computeIfAbsent(loan.borrowerId(), id -> new ArrayList<>());
+                if (loan.book() != null) {
+                    books.add(bookMapper.toDto(loan.book()));
+                }
+            }
+        }
+        return booksByBorrower;
+    }
+    
+    @Transactional(readOnly = true)
+    public BorrowerPage getBorrowers(String query, BorrowerSort sort, Long after, int size) {
+        log.debug("Fetching {} borrowers by {} after ID: {} matching: {}", size, sort, after, query);
+
+        ScrollPosition position = after == null
+                ? ScrollPosition.keyset()
+                : ScrollPosition.forward(sort.keysetOf(borrowerRepository.findById(after)
+                        .orElseThrow(() -> new InvalidRequestParameterException("Unknown borrower to continue after: " + after))));
+        Window<Borrower> window = query == null || query.isBlank()
+                ? borrowerRepository.findAllBy(position, sort.sort(), Limit.of(size))
+                : findByPrefix(Borrower.searchKey(query.trim()), position, sort, size);
+
+        List<BorrowerDto> borrowers = mapBorrowersToDto(window.getContent());
+        Long nextAfter = window.hasNext() ? borrowers.get(borrowers.size() - 1).id() : null;
+        return new BorrowerPage(borrowers, nextAfter);
+    }
+    
+    // Searches the column the page is sorted by, so the page is one range of its (column, id) index
+    private Window<Borrower> findByPrefix(String prefix, ScrollPosition position, BorrowerSort sort, int size) {
+        return switch (sort) {
+            case NAME -> borrowerRepository.findByNameLowerStartingWith(prefix, position, sort.sort(), Limit.of(size));
+            case EMAIL -> borrowerRepository.findByEmailLowerStartingWith(prefix, position, sort.sort(), Limit.of(size));
+            case ID -> throw new InvalidRequestParameterException("A search needs sort=name or sort=email");
+        };
     }
     
     private void validateEmailUniqueness(String email) {
@@ -78,9 +143,16 @@ public class BorrowerService {
                 .orElseThrow(() -> new BorrowerNotFoundException(borrowerId));
     }
     
-    private void validateBorrowerExists(Long borrowerId) {
-        borrowerRepository.findById(borrowerId)
-                .orElseThrow(() -> new BorrowerNotFoundException(borrowerId));
+    // No row at all means the borrower does not exist; a single row without a book means no loans
+    private List<BookDto> mapLoansOrThrow(Long borrowerId, List<BorrowerLoan> loans) {
+        if (loans.isEmpty()) {
+            throw new BorrowerNotFoundException(borrowerId);
+        }
+        return loans.stream()
+                .map(BorrowerLoan::book)
+                .filter(Objects::nonNull)
+                .map(bookMapper::toDto)
+                .collect(toList());
     }
     
     private List<BorrowerDto> mapBorrowersToDto(List<Borrower> borrowers) {
@@ -88,10 +160,4 @@ public class BorrowerService {
                 .map(borrowerMapper::toDto)
                 .collect(toList());
     }
-    
-    private List<BookDto> mapBooksToDto(List<Book> books) {
-        return books.stream()
-                .map(bookMapper::toDto)
-                .collect(toList());
-    }
 }
\ No newline at end of file
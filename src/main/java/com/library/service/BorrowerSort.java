@@ -0,0 +1,41 @@
+package com.library.service;
+
+import com.library.entity.Borrower;
+import org.springframework.data.domain.Sort;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Orderings of the borrower directory; each ends on the id so pages are stable when names or emails tie.
+ */
+public enum BorrowerSort {
+    
+    NAME("nameLower", Borrower::getNameLower),
+    EMAIL("emailLower", Borrower::getEmailLower),
+    ID(null, null);
+    
+    private final String property;
+    private final Function<Borrower, String> key;
+    
+    BorrowerSort(String property, Function<Borrower, String> key) {
+        this.property = property;
+        this.key = key;
+    }
+    
+    public Sort sort() {
+        Sort byId = Sort.by("id");
+        return property != null ? Sort.by(property).and(byId) : byId;
+    }
+    
+    // Keyset of the last borrower on a page, from which the next page continues
+    public Map<String, Object> keysetOf(Borrower borrower) {
+        Map<String, Object> keyset = new LinkedHashMap<>();
+        if (property != null) {
+            keyset.put(property, key.apply(borrower));
+        }
+        keyset.put("id", borrower.getId());
+        return keyset;
+    }
+}
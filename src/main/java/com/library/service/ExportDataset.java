@@ -0,0 +1,21 @@
+package com.library.service;
+
+public enum ExportDataset {
+    
+    BOOKS("SELECT id, title, author, isbn, available, borrowed_by, branch FROM books"),
+    BORROWERS("SELECT id, name, email, active_loans, branch FROM borrowers");
+    
+    private final String query;
+    
+    ExportDataset(String query) {
+        this.query = query;
+    }
+    
+    public String getQuery() {
+        return query;
+    }
+    
+    public String fileName() {
+        return name().toLowerCase();
+    }
+}
\ No newline at end of file
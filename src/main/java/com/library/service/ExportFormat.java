@@ -0,0 +1,17 @@
+package com.library.service;
+
+public enum ExportFormat {
+    
+    CSV("csv"),
+    NDJSON("ndjson");
+    
+    private final String extension;
+    
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+}
\ No newline at end of file
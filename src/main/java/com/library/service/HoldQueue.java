@@ -0,0 +1,93 @@
+package com.library.service;
+
+import com.library.entity.Hold;
+import com.library.repository.HoldRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory FIFO dispatch view over the persisted {@code holds} table. Each book has its own lock-free queue,
+ * so heavy hold traffic on one title never contends with other titles. The table stays the source of truth:
+ * queues are loaded lazily, dropped when drained or when a dispatching transaction rolls back, and every
+ * polled entry must still be claimed in the database before it is honoured.
+ */
+@Component
+@RequiredArgsConstructor
+public class HoldQueue {
+    
+    private final HoldRepository holdRepository;
+    private final ConcurrentMap<Long, Queue<QueuedHold>> queues = new ConcurrentHashMap<>();
+    
+    public record QueuedHold(Long holdId, Long borrowerId) {
+    }
+    
+    public void enqueueAfterCommit(Hold hold) {
+        QueuedHold queuedHold = new QueuedHold(hold.getId(), hold.getBorrowerId());
+        afterCompletion(committed -> {
+            // Only append to queues that are already loaded; an unloaded queue picks the hold up from the table
+            Queue<QueuedHold> queue = queues.get(hold.getBookId());
+            if (committed && queue != null) {
+                queue.offer(queuedHold);
+            }
+        });
+    }
+    
+    public Optional<QueuedHold> poll(Long bookId) {
+        afterCompletion(committed -> {
+            if (!committed) {
+                invalidate(bookId);
+            }
+        });
+        
+        Queue<QueuedHold> queue = queues.get(bookId);
+        if (queue == null) {
+            // Load outside the map so a slow query never blocks unrelated books sharing a bin
+            Queue<QueuedHold> loaded = load(bookId);
+            queue = Optional.ofNullable(queues.putIfAbsent(bookId, loaded)).orElse(loaded);
+        }
+        QueuedHold next = queue.poll();
+        if (next == null) {
+            queues.remove(bookId, queue);
+        }
+        return Optional.ofNullable(next);
+    }
+    
+    // Holds that were polled but left in the table, such as one whose holder is at the loan limit, are back in
+    // their place once the queue is reloaded from the table
+    public void reloadAfterCompletion(Long bookId) {
+        afterCompletion(committed -> invalidate(bookId));
+    }
+    
+    public void invalidate(Long bookId) {
+        queues.remove(bookId);
+    }
+    
+    private Queue<QueuedHold> load(Long bookId) {
+        Queue<QueuedHold> queue = new ConcurrentLinkedQueue<>();
+        holdRepository.findByBookIdOrderByIdAsc(bookId)
+                .forEach(hold -> queue.offer(new QueuedHold(hold.getId(), hold.getBorrowerId())));
+        return queue;
+    }
+    
+    private void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
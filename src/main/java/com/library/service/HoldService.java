@@ -0,0 +1,92 @@
+package com.library.service;
+
+import com.library.dto.HoldDto;
+import com.library.entity.Book;
+import com.library.entity.Hold;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.BorrowerNotFoundException;
+import com.library.exception.HoldNotAllowedException;
+import com.library.exception.HoldNotFoundException;
+import com.library.mapper.HoldMapper;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.repository.HoldRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class HoldService {
+    
+    private final HoldRepository holdRepository;
+    private final BookRepository bookRepository;
+    private final BorrowerRepository borrowerRepository;
+    private final HoldQueue holdQueue;
+    private final HoldMapper holdMapper;
+    
+    public HoldDto placeHold(Long bookId, Long borrowerId) {
+        log.debug("Placing hold on book ID: {} for borrower ID: {}", bookId, borrowerId);
+        
+        Book book = findBookOrThrow(bookId);
+        validateBorrowerExists(borrowerId);
+        validateHoldAllowed(book, borrowerId);
+        
+        Hold savedHold = holdRepository.save(new Hold(bookId, borrowerId));
+        holdQueue.enqueueAfterCommit(savedHold);
+        
+        log.info("Hold ID: {} placed on book ID: {} for borrower ID: {}", savedHold.getId(), bookId, borrowerId);
+        return holdMapper.toDto(savedHold);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<HoldDto> getHolds(Long bookId) {
+        log.debug("Fetching holds for book ID: {}", bookId);
+        
+        findBookOrThrow(bookId);
+        
+        return holdRepository.findByBookIdOrderByIdAsc(bookId).stream()
+                .map(holdMapper::toDto)
+                .collect(toList());
+    }
+    
+    public void cancelHold(Long bookId, Long holdId) {
+        log.debug("Cancelling hold ID: {} on book ID: {}", holdId, bookId);
+        
+        Hold hold = holdRepository.findByIdAndBookId(holdId, bookId)
+                .orElseThrow(() -> new HoldNotFoundException(holdId));
+        holdRepository.delete(hold);
+        
+        log.info("Hold ID: {} on book ID: {} cancelled", holdId, bookId);
+    }
+    
+    private Book findBookOrThrow(Long bookId) {
+        return bookRepository.findById(bookId)
+                .orElseThrow(() -> new BookNotFoundException(bookId));
+    }
+    
+    private void validateBorrowerExists(Long borrowerId) {
+        if (!borrowerRepository.existsById(borrowerId)) {
+            throw new BorrowerNotFoundException(borrowerId);
+        }
+    }
+    
+    private void validateHoldAllowed(Book book, Long borrowerId) {
+        if (book.getBorrowerId() == null) {
+            throw new HoldNotAllowedException("Book with ID " + book.getId() + " is available and can be borrowed directly");
+        }
+        if (book.getBorrowerId().equals(borrowerId)) {
+            throw new HoldNotAllowedException("Borrower with ID " + borrowerId + " already has book with ID " + book.getId());
+        }
+        if (holdRepository.existsByBookIdAndBorrowerId(book.getId(), borrowerId)) {
+            throw new HoldNotAllowedException("Borrower with ID " + borrowerId + " already holds book with ID " + book.getId());
+        }
+    }
+}
\ No newline at end of file
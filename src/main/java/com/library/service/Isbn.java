@@ -0,0 +1,58 @@
+package com.library.service;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * ISBN normalization: scanners and vendor feeds send ISBN-10 and ISBN-13, with or without hyphens, spaces or an
+ * "ISBN" prefix. The catalog stores and looks up the 13 bare digits.
+ */
+public final class Isbn {
+
+    private Isbn() {
+    }
+
+    /**
+     * The ISBN-13 digits of {@code value}, or empty when it is not an ISBN-10 or ISBN-13 with a valid check digit.
+     */
+    public static Optional<String> toIsbn13(String value) {
+        if (value == null) {
+            return Optional.empty();
+        }
+        String compact = value.toUpperCase(Locale.ROOT).replaceFirst("^\\s*ISBN(-1[03])?:?", "").replaceAll("[\\s-]", "");
+        if (compact.matches("97[89]\\d{10}") && checkDigit13(compact.substring(0, 12)) == compact.charAt(12)) {
+            return Optional.of(compact);
+        }
+        if (compact.matches("\\d{9}[\\dX]") && isValidIsbn10(compact)) {
+            String digits = "978" + compact.substring(0, 9);
+            return Optional.of(digits + checkDigit13(digits));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The form a book's ISBN is stored in: ISBN-13 when it parses, otherwise the trimmed value as given, since
+     * the catalog has always accepted free-form identifiers.
+     */
+    public static String canonical(String value) {
+        return value == null ? null : toIsbn13(value).orElse(value.trim());
+    }
+
+    private static boolean isValidIsbn10(String digits) {
+        int sum = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = digits.charAt(i);
+            sum += (10 - i) * (c == 'X' ? 10 : c - '0');
+        }
+        return sum % 11 == 0;
+    }
+
+    private static char checkDigit13(String twelveDigits) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = twelveDigits.charAt(i) - '0';
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+}
@@ -0,0 +1,295 @@
+package com.library.service;
+
+import com.library.cache.BloomFilter;
+import com.library.config.IsbnLookupProperties;
+import com.library.dto.BookDto;
+import com.library.entity.Book;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.InvalidRequestParameterException;
+import com.library.mapper.BookMapper;
+import com.library.repository.BookIsbn;
+import com.library.repository.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds every branch's copy of a book by ISBN. Most scanner lookups are for books the library does not own, so
+ * a {@link BloomFilter} over the catalog's ISBNs answers those without a query. ISBNs the filter lets through are
+ * read from the database, so availability is never stale.
+ *
+ * <p>The filter is fed from the books table itself, which every instance shares: every refresh-interval it reads
+ * the rows added since the last refresh, whoever wrote them. Ids become visible in commit order, so ids skipped
+ * by a refresh are looked up again until they appear or gap-timeout passes. Books added through
+ * {@link BookService} also go in as soon as their transaction commits. The filter is rebuilt from the table on
+ * startup and every rebuild-interval, which drops ISBNs that no longer exist and picks up changed ISBNs. Until the
+ * first build finishes every lookup goes to the database.
+ */
+@Service
+@Slf4j
+public class IsbnLookupService implements SchedulingConfigurer {
+
+    private static final int MAX_TRACKED_GAP = 1_000;
+
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
+    private final IsbnLookupProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    // Writers of the filter take the read side; a rebuild takes the write side only to start and to swap
+    private final ReadWriteLock filterLock = new ReentrantReadWriteLock();
+    private volatile BloomFilter filter;
+    private BloomFilter rebuilding;
+    // Highest book id the tail has read; -1 until the first rebuild sets where it starts
+    private long tailAfter = -1;
+    // Ids below tailAfter that were not committed yet when the tail passed them, with when they were first missed
+    private final TreeMap<Long, Long> missingIds = new TreeMap<>();
+    private final AtomicLong filteredOut = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final Timer filteredTimer;
+    private final Timer notFoundTimer;
+    private final Timer foundTimer;
+
+    public IsbnLookupService(BookRepository bookRepository,
+                             BookMapper bookMapper,
+                             IsbnLookupProperties properties,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.bookMapper = bookMapper;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.filteredTimer = lookupTimer(meterRegistry, "filtered");
+        this.notFoundTimer = lookupTimer(meterRegistry, "not_found");
+        this.foundTimer = lookupTimer(meterRegistry, "found");
+        Gauge.builder("library.isbn.filter.false_positive.ratio", this, IsbnLookupService::observedFalsePositiveRate)
+                .description("Share of lookups for unknown ISBNs that the filter let through to the database")
+                .register(meterRegistry);
+        Gauge.builder("library.isbn.filter.expected_false_positive.ratio", this, IsbnLookupService::expectedFalsePositiveRate)
+                .description("False-positive rate the filter's size and fill predict")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        Duration interval = properties.getRebuildInterval();
+        if (interval.isPositive()) {
+            registrar.addFixedDelayTask(this::rebuildFilter, interval);
+        }
+        registrar.addFixedDelayTask(this::refreshFilter, properties.getRefreshInterval());
+    }
+
+    /**
+     * The books with this ISBN in every branch, in ID order.
+     *
+     * @throws InvalidRequestParameterException if {@code isbn} is not a valid ISBN-10 or ISBN-13
+     * @throws BookNotFoundException            if the catalog has no book with it
+     */
+    public List<BookDto> findByIsbn(String isbn) {
+        String isbn13 = Isbn.toIsbn13(isbn)
+                .orElseThrow(() -> new InvalidRequestParameterException("Not a valid ISBN-10 or ISBN-13: " + isbn));
+        long start = System.nanoTime();
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(isbn13)) {
+            filteredOut.incrementAndGet();
+            filteredTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw notFound(isbn13);
+        }
+
+        List<Book> books = readOnlyTransaction.execute(status -> bookRepository.findByIsbnOrderByIdAsc(isbn13));
+        if (books == null || books.isEmpty()) {
+            if (current != null) {
+                falsePositives.incrementAndGet();
+            }
+            notFoundTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw notFound(isbn13);
+        }
+        foundTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return books.stream().map(bookMapper::toDto).toList();
+    }
+
+    /**
+     * Makes a newly added book findable once the surrounding transaction commits.
+     */
+    public void recordAdded(String isbn) {
+        recordAdded(Collections.singletonList(isbn));
+    }
+
+    /**
+     * Makes a batch of added or updated books findable once the surrounding transaction commits.
+     */
+    public void recordAdded(Collection<String> isbns) {
+        List<String> isbn13s = isbns.stream().map(Isbn::toIsbn13).flatMap(Optional::stream).toList();
+        if (isbn13s.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> putAll(isbn13s));
+    }
+
+    /**
+     * Adds the ISBNs of books committed since the last refresh, on this instance or any other, to the filter.
+     */
+    public synchronized void refreshFilter() {
+        if (tailAfter < 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<String> isbns = new ArrayList<>();
+        if (!missingIds.isEmpty()) {
+            List<Long> ids = new ArrayList<>(missingIds.keySet());
+            List<Book> late = readOnlyTransaction.execute(status -> bookRepository.findAllById(ids));
+            for (Book book : late != null ? late : List.<Book>of()) {
+                missingIds.remove(book.getId());
+                isbns.add(book.getIsbn());
+            }
+        }
+        List<BookIsbn> chunk;
+        do {
+            chunk = readChunk(tailAfter);
+            for (BookIsbn row : chunk) {
+                // Many more missing ids than an id or two per open transaction is a sequence jump, not a gap
+                for (long id = Math.max(tailAfter + 1, row.bookId() - MAX_TRACKED_GAP); id < row.bookId(); id++) {
+                    missingIds.put(id, now);
+                }
+                tailAfter = row.bookId();
+                isbns.add(row.isbn());
+            }
+        } while (chunk.size() == properties.getRebuildChunkSize());
+        missingIds.values().removeIf(since -> now - since >= properties.getGapTimeout().toNanos());
+        putAll(isbns.stream().map(Isbn::toIsbn13).flatMap(Optional::stream).toList());
+    }
+
+    /**
+     * Builds a fresh filter from the books table in keyset chunks and swaps it in. Books recorded while it runs go
+     * into both filters. They are recorded after commit, so a book recorded before the rebuild started is already
+     * visible to its scan.
+     */
+    public synchronized void rebuildFilter() {
+        long start = System.nanoTime();
+        Long books = readOnlyTransaction.execute(status -> bookRepository.count());
+        BloomFilter next = BloomFilter.create((books != null ? books : 0) * 3 / 2 + 1_024, properties.getFalsePositiveRate());
+        withFilterWriteLock(() -> rebuilding = next);
+
+        long added = 0;
+        long after = 0;
+        boolean complete = false;
+        try {
+            List<BookIsbn> chunk;
+            while (!(chunk = readChunk(after)).isEmpty()) {
+                after = chunk.get(chunk.size() - 1).bookId();
+                for (BookIsbn row : chunk) {
+                    String isbn13 = Isbn.toIsbn13(row.isbn()).orElse(null);
+                    if (isbn13 != null) {
+                        next.put(isbn13);
+                        added++;
+                    }
+                }
+            }
+            complete = true;
+        } finally {
+            boolean swap = complete;
+            withFilterWriteLock(() -> {
+                if (swap) {
+                    filter = next;
+                }
+                rebuilding = null;
+            });
+        }
+        if (complete && tailAfter < 0) {
+            // The tail adds every later row to whichever filter is current, so it starts where this scan ended
+            tailAfter = after;
+        }
+        log.info("Rebuilt ISBN filter with {} ISBNs ({} bits, {} hashes) in {} ms", added, next.bitCount(),
+                next.hashCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    double observedFalsePositiveRate() {
+        long passed = falsePositives.get();
+        long unknown = passed + filteredOut.get();
+        return unknown == 0 ? Double.NaN : (double) passed / unknown;
+    }
+
+    double expectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current != null ? current.expectedFalsePositiveRate() : Double.NaN;
+    }
+
+    private void putAll(List<String> isbn13s) {
+        if (isbn13s.isEmpty()) {
+            return;
+        }
+        filterLock.readLock().lock();
+        try {
+            BloomFilter current = filter;
+            for (String isbn13 : isbn13s) {
+                if (current != null) {
+                    current.put(isbn13);
+                }
+                if (rebuilding != null) {
+                    rebuilding.put(isbn13);
+                }
+            }
+        } finally {
+            filterLock.readLock().unlock();
+        }
+    }
+
+    private List<BookIsbn> readChunk(long after) {
+        return readOnlyTransaction.execute(status ->
+                bookRepository.findIsbnsAfter(after, Limit.of(properties.getRebuildChunkSize())));
+    }
+
+    private void withFilterWriteLock(Runnable action) {
+        filterLock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            filterLock.writeLock().unlock();
+        }
+    }
+
+    private static BookNotFoundException notFound(String isbn13) {
+        return new BookNotFoundException("Book not found with ISBN: " + isbn13);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("library.isbn.lookup.duration")
+                .description("ISBN lookups by how they were answered")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
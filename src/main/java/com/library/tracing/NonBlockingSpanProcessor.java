@@ -0,0 +1,208 @@
+package com.library.tracing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands finished spans to a single export thread without ever blocking the thread that ended them. The queue is
+ * a lock-free linked queue with a CAS-reserved capacity; a span that does not fit is dropped and counted. The
+ * export thread sends batches of up to max-batch-size spans as soon as that many are queued, or every
+ * schedule-delay otherwise, and waits at most export-timeout for each. A slow or absent collector therefore
+ * only fills the queue and shows up as drops.
+ *
+ * <p>OpenTelemetry's {@code BatchSpanProcessor} makes the same trade-off, but without JCTools on the classpath its
+ * queue is an {@code ArrayBlockingQueue} whose lock every request thread takes, and its metrics go to an
+ * OpenTelemetry meter provider this application does not have.
+ */
+@Slf4j
+public class NonBlockingSpanProcessor implements SpanProcessor {
+
+    private final SpanExporter exporter;
+    private final int capacity;
+    private final int maxBatchSize;
+    private final long scheduleDelayNanos;
+    private final long exportTimeoutNanos;
+    private final Queue<SpanData> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicReference<CompletableResultCode> pendingFlush = new AtomicReference<>();
+    private final CompletableResultCode shutdownResult = new CompletableResultCode();
+    private volatile boolean running = true;
+    private final Thread worker;
+    private final Counter dropped;
+    private final Counter exported;
+    private final Counter failed;
+    private final Timer exportTimer;
+
+    public NonBlockingSpanProcessor(SpanExporter exporter,
+                                    int capacity,
+                                    int maxBatchSize,
+                                    Duration scheduleDelay,
+                                    Duration exportTimeout,
+                                    MeterRegistry meterRegistry) {
+        this.exporter = exporter;
+        this.capacity = capacity;
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, capacity));
+        this.scheduleDelayNanos = scheduleDelay.toNanos();
+        this.exportTimeoutNanos = exportTimeout.toNanos();
+        this.dropped = Counter.builder("library.tracing.spans.dropped.total")
+                .description("Finished spans dropped because the export queue was full")
+                .register(meterRegistry);
+        this.exported = spanCounter(meterRegistry, "success");
+        this.failed = spanCounter(meterRegistry, "failure");
+        this.exportTimer = Timer.builder("library.tracing.export.duration")
+                .description("Time to export one batch of spans, including batches that timed out")
+                .register(meterRegistry);
+        Gauge.builder("library.tracing.export.queue.depth", depth, AtomicInteger::get)
+                .description("Finished spans waiting for export")
+                .register(meterRegistry);
+        this.worker = Thread.ofPlatform().name("span-export").daemon().start(this::exportLoop);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (!running || !span.getSpanContext().isSampled()) {
+            return;
+        }
+        int reserved;
+        do {
+            reserved = depth.get();
+            if (reserved >= capacity) {
+                dropped.increment();
+                return;
+            }
+        } while (!depth.compareAndSet(reserved, reserved + 1));
+        queue.offer(span.toSpanData());
+        if ((reserved + 1) % maxBatchSize == 0) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    /**
+     * Completes once every span queued before the call has been handed to the exporter.
+     */
+    @Override
+    public CompletableResultCode forceFlush() {
+        CompletableResultCode flush = new CompletableResultCode();
+        CompletableResultCode pending = pendingFlush.getAndSet(flush);
+        if (pending != null) {
+            flush.whenComplete(pending::succeed);
+        }
+        if (!running) {
+            shutdownResult.whenComplete(flush::succeed);
+        }
+        LockSupport.unpark(worker);
+        return flush;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        running = false;
+        LockSupport.unpark(worker);
+        return shutdownResult;
+    }
+
+    int queueDepth() {
+        return depth.get();
+    }
+
+    private void exportLoop() {
+        List<SpanData> batch = new ArrayList<>(maxBatchSize);
+        long nextExport = System.nanoTime() + scheduleDelayNanos;
+        while (running) {
+            CompletableResultCode flush = pendingFlush.getAndSet(null);
+            if (flush != null) {
+                while (drain(batch) > 0) {
+                    export(batch);
+                }
+                flush.succeed();
+                nextExport = System.nanoTime() + scheduleDelayNanos;
+                continue;
+            }
+            drain(batch);
+            if (batch.size() >= maxBatchSize || System.nanoTime() - nextExport >= 0) {
+                export(batch);
+                nextExport = System.nanoTime() + scheduleDelayNanos;
+            } else if (depth.get() < maxBatchSize) {
+                LockSupport.parkNanos(this, nextExport - System.nanoTime());
+            }
+        }
+        while (drain(batch) > 0) {
+            export(batch);
+        }
+        CompletableResultCode flush = pendingFlush.getAndSet(null);
+        if (flush != null) {
+            flush.succeed();
+        }
+        exporter.shutdown().join(exportTimeoutNanos, TimeUnit.NANOSECONDS);
+        shutdownResult.succeed();
+    }
+
+    // Tops the batch up to max-batch-size from the queue and returns its size
+    private int drain(List<SpanData> batch) {
+        SpanData span;
+        while (batch.size() < maxBatchSize && (span = queue.poll()) != null) {
+            depth.decrementAndGet();
+            batch.add(span);
+        }
+        return batch.size();
+    }
+
+    private void export(List<SpanData> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            CompletableResultCode result = exporter.export(List.copyOf(batch));
+            result.join(exportTimeoutNanos, TimeUnit.NANOSECONDS);
+            (result.isSuccess() ? exported : failed).increment(batch.size());
+        } catch (RuntimeException e) {
+            log.debug("Span export failed", e);
+            failed.increment(batch.size());
+        } finally {
+            exportTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+
+    private static Counter spanCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("library.tracing.spans.exported.total")
+                .description("Spans handed to the exporter, by whether the collector accepted them in time")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,23 @@
+-- Backfills borrowers.active_loans, the counter that library.loans.max-active-per-borrower is enforced against.
+--
+-- ddl-auto adds the column with default 0, so on a database that already has loans every borrower starts at 0
+-- and could borrow up to the limit on top of the books they already hold. Returns never take the counter below 0,
+-- so that undercount would not correct itself. Run this once when deploying the loan limit, while the application
+-- is stopped: a borrow or return committing during the UPDATE could be counted twice or not at all.
+-- It is safe to run again.
+
+BEGIN;
+
+ALTER TABLE borrowers ADD COLUMN IF NOT EXISTS active_loans integer NOT NULL DEFAULT 0;
+
+UPDATE borrowers
+SET active_loans = (SELECT count(*) FROM books WHERE books.borrowed_by = borrowers.id)
+WHERE active_loans <> (SELECT count(*) FROM books WHERE books.borrowed_by = borrowers.id);
+
+COMMIT;
+
+-- Borrowers already over the limit keep their books; they cannot borrow again until enough are returned
+SELECT id, active_loans
+FROM borrowers
+WHERE active_loans > 5
+ORDER BY active_loans DESC;
@@ -0,0 +1,74 @@
+-- Converts the books table into a LIST-partitioned table keyed by branch (PostgreSQL 12+).
+--
+-- Hibernate (ddl-auto) cannot create partitioned tables, so run this once against an existing
+-- schema during a maintenance window. Afterwards ddl-auto=update keeps working because the
+-- column set, uk_books_branch_isbn, idx_books_borrowed_by and idx_books_isbn match the JPA mapping.
+--
+-- Partitioned tables require every unique key to contain the partition key, which is why the
+-- primary key is (id, branch) and ISBNs are unique per branch. Queries that filter on branch
+-- (BookRepository.findByBranch*, GET /api/books?branch=...) are pruned to a single partition.
+--
+-- The trade-off is on lookups by id alone, which is how every borrow and return finds its book:
+-- PostgreSQL cannot prune those, so findById probes the (id, branch) index of every partition,
+-- one index probe per branch. That is fine for tens of branches, not for thousands.
+--
+-- The primary key no longer makes id unique on its own. The identity is GENERATED ALWAYS, so
+-- new ids only come from the one sequence and never repeat across partitions, and the copy below
+-- is checked for duplicates before the old table is dropped. Moving a book to another branch
+-- keeps its id.
+--
+-- New branches: SELECT create_branch_partition('NORTH');
+-- Rows of branches without their own partition land in books_default.
+
+BEGIN;
+
+CREATE OR REPLACE FUNCTION create_branch_partition(branch_code text) RETURNS void AS $$
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF books FOR VALUES IN (%L)',
+                   'books_' || lower(regexp_replace(branch_code, '[^A-Za-z0-9]', '_', 'g')), branch_code);
+END
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE books RENAME TO books_unpartitioned;
+ALTER TABLE books_unpartitioned DROP CONSTRAINT IF EXISTS uk_books_branch_isbn;
+DROP INDEX IF EXISTS idx_books_borrowed_by;
+DROP INDEX IF EXISTS idx_books_isbn;
+
+CREATE TABLE books (
+    id          bigint GENERATED ALWAYS AS IDENTITY,
+    title       varchar(255) NOT NULL,
+    author      varchar(255) NOT NULL,
+    isbn        varchar(255),
+    available   boolean      NOT NULL,
+    borrowed_by bigint,
+    branch      varchar(32)  NOT NULL DEFAULT 'MAIN',
+    PRIMARY KEY (id, branch),
+    CONSTRAINT uk_books_branch_isbn UNIQUE (branch, isbn)
+) PARTITION BY LIST (branch);
+
+CREATE INDEX idx_books_borrowed_by ON books (borrowed_by);
+CREATE INDEX idx_books_isbn ON books (isbn);
+
+CREATE TABLE books_default PARTITION OF books DEFAULT;
+
+SELECT create_branch_partition(branch)
+FROM (SELECT DISTINCT branch FROM books_unpartitioned UNION SELECT 'MAIN') AS branches;
+
+INSERT INTO books (id, title, author, isbn, available, borrowed_by, branch)
+OVERRIDING SYSTEM VALUE
+SELECT id, title, author, isbn, available, borrowed_by, branch
+FROM books_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('books', 'id'), (SELECT COALESCE(MAX(id), 0) + 1 FROM books), false);
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM books GROUP BY id HAVING count(*) > 1) THEN
+        RAISE EXCEPTION 'books.id is not unique across branches';
+    END IF;
+END
+$$;
+
+DROP TABLE books_unpartitioned;
+
+COMMIT;
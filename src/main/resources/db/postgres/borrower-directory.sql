@@ -0,0 +1,36 @@
+-- Adds the lower-cased search columns behind GET /api/borrowers to an existing borrowers table.
+--
+-- ddl-auto=update cannot add NOT NULL columns to a populated table, so run this once before deploying
+-- the paginated borrower directory. Borrower keeps the columns in sync on every insert and update.
+--
+-- The columns use the "C" collation: a plain btree index then serves both the keyset ORDER BY
+-- (name_lower, id) and the prefix predicate name_lower LIKE 'jo%', which a btree in a linguistic
+-- collation cannot do. Names sort by code point, which is fine for a directory.
+--
+-- The mapping cannot declare the collation (H2, used by the tests, has no column-level COLLATE), so this
+-- script is also required on a new database: run it after Hibernate has created the schema. It converts
+-- columns that ddl-auto created in the default collation and is safe to run again.
+
+BEGIN;
+
+ALTER TABLE borrowers ADD COLUMN IF NOT EXISTS name_lower varchar(255) COLLATE "C";
+ALTER TABLE borrowers ADD COLUMN IF NOT EXISTS email_lower varchar(255) COLLATE "C";
+ALTER TABLE borrowers ALTER COLUMN name_lower TYPE varchar(255) COLLATE "C";
+ALTER TABLE borrowers ALTER COLUMN email_lower TYPE varchar(255) COLLATE "C";
+
+UPDATE borrowers
+SET name_lower  = lower(name),
+    email_lower = lower(email)
+WHERE name_lower IS NULL OR email_lower IS NULL;
+
+ALTER TABLE borrowers ALTER COLUMN name_lower SET NOT NULL;
+ALTER TABLE borrowers ALTER COLUMN email_lower SET NOT NULL;
+
+DROP INDEX IF EXISTS idx_borrowers_name_lower;
+DROP INDEX IF EXISTS idx_borrowers_email_lower;
+CREATE INDEX idx_borrowers_name_lower ON borrowers (name_lower, id);
+CREATE INDEX idx_borrowers_email_lower ON borrowers (email_lower, id);
+
+COMMIT;
+
+ANALYZE borrowers;
@@ -0,0 +1,57 @@
+-- Rewrites existing ISBNs to the bare 13-digit form that BookService now stores and GET /api/books/isbn/{isbn}
+-- looks up, and adds the index behind that lookup (uk_books_branch_isbn leads with branch, so it cannot serve it).
+--
+-- Values that are a valid ISBN-10 or ISBN-13 once an "ISBN" prefix, hyphens and spaces are removed are rewritten;
+-- anything else is left as is, the same rule as com.library.service.Isbn. If one branch holds a title under two
+-- spellings of its ISBN, the rewrite would violate uk_books_branch_isbn and the transaction rolls back: the SELECT
+-- below lists those rows so they can be merged first.
+
+BEGIN;
+
+CREATE FUNCTION pg_temp.isbn13(value text) RETURNS text LANGUAGE plpgsql IMMUTABLE AS $$
+DECLARE
+    compact text := regexp_replace(regexp_replace(upper(value), '^\s*ISBN(-1[03])?:?', ''), '[\s-]', '', 'g');
+    digits  text;
+    total   int := 0;
+BEGIN
+    IF compact ~ '^[0-9]{9}[0-9X]$' THEN
+        FOR i IN 1..10 LOOP
+            total := total + (11 - i) * CASE WHEN substr(compact, i, 1) = 'X' THEN 10 ELSE substr(compact, i, 1)::int END;
+        END LOOP;
+        IF total % 11 <> 0 THEN
+            RETURN NULL;
+        END IF;
+        digits := '978' || substr(compact, 1, 9);
+    ELSIF compact ~ '^97[89][0-9]{10}$' THEN
+        digits := substr(compact, 1, 12);
+    ELSE
+        RETURN NULL;
+    END IF;
+    total := 0;
+    FOR i IN 1..12 LOOP
+        total := total + substr(digits, i, 1)::int * CASE WHEN i % 2 = 1 THEN 1 ELSE 3 END;
+    END LOOP;
+    digits := digits || ((10 - total % 10) % 10)::text;
+    IF length(compact) = 13 AND digits <> compact THEN
+        RETURN NULL;
+    END IF;
+    RETURN digits;
+END;
+$$;
+
+SELECT branch, pg_temp.isbn13(isbn) AS isbn13, array_agg(id ORDER BY id) AS book_ids
+FROM books
+WHERE pg_temp.isbn13(isbn) IS NOT NULL
+GROUP BY branch, pg_temp.isbn13(isbn)
+HAVING count(*) > 1;
+
+UPDATE books
+SET isbn = pg_temp.isbn13(isbn)
+WHERE pg_temp.isbn13(isbn) IS NOT NULL
+  AND isbn <> pg_temp.isbn13(isbn);
+
+CREATE INDEX IF NOT EXISTS idx_books_isbn ON books (isbn);
+
+COMMIT;
+
+ANALYZE books;
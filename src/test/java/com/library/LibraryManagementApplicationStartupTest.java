@@ -0,0 +1,39 @@
+package com.library;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LibraryManagementApplicationStartupTest {
+
+    private static final Duration STARTUP_BUDGET = Duration.ofSeconds(
+            Long.getLong("library.startup.budget-seconds", 20));
+
+    @Test
+    void startup_shouldAcceptTrafficWithinBudget_whenFastStartProfileActive() {
+        //given
+        SpringApplicationBuilder application = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .profiles("test", "fast-start")
+                .properties("server.port=0");
+
+        //when
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = application.run()) {
+            Duration startupTime = Duration.ofNanos(System.nanoTime() - start);
+
+            //then
+            ReadinessState readiness = context.getBean(ApplicationAvailability.class).getReadinessState();
+            assertThat(readiness).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+            assertThat(startupTime)
+                    .as("startup-to-ready time with fast-start, %d ms", startupTime.toMillis())
+                    .isLessThan(STARTUP_BUDGET);
+            assertThat(context.containsBean("dataLoader")).isFalse();
+        }
+    }
+}
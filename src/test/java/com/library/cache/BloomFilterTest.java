@@ -0,0 +1,33 @@
+package com.library.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_shouldNeverMissAnInsertedValue_andStayNearTheTargetRateForOthers() {
+        //given
+        BloomFilter filter = BloomFilter.create(100_000, 0.01);
+        IntStream.range(0, 100_000).forEach(i -> filter.put("978" + i));
+
+        //when
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("979" + i)).count();
+
+        //then
+        assertThat(IntStream.range(0, 100_000).allMatch(i -> filter.mightContain("978" + i))).isTrue();
+        assertThat(falsePositives / 100_000.0).isBetween(0.002, 0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isCloseTo(0.01, offset(0.002));
+    }
+
+    @Test
+    void create_shouldRejectRatesOutsideZeroAndOne() {
+        assertThatThrownBy(() -> BloomFilter.create(10, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.create(10, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
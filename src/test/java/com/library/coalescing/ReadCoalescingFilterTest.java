@@ -0,0 +1,207 @@
+package com.library.coalescing;
+
+import com.library.config.CoalescingProperties;
+import com.library.config.ReplicaDataSourceProperties;
+import com.library.datasource.ReadYourWritesTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadCoalescingFilterTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private SimpleMeterRegistry meterRegistry;
+    private ReadYourWritesTracker readYourWritesTracker;
+    private ReadCoalescingFilter filter;
+    private AtomicInteger handled;
+    private CountDownLatch entered;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReplicaDataSourceProperties replicaProperties = new ReplicaDataSourceProperties();
+        replicaProperties.setReadYourWritesWindow(Duration.ofMinutes(1));
+        readYourWritesTracker = new ReadYourWritesTracker(replicaProperties);
+        CoalescingProperties properties = new CoalescingProperties();
+        properties.setWindow(Duration.ofMinutes(1));
+        filter = new ReadCoalescingFilter(properties, readYourWritesTracker, meterRegistry);
+        handled = new AtomicInteger();
+        entered = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void doFilter_shouldAnswerIdenticalConcurrentReadsWithOneControllerCall() throws Exception {
+        //given
+        Future<MockHttpServletResponse> first = executor.submit(() -> get("/api/books", controller(200, "[{\"id\":1}]")));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //when
+        AtomicReference<Thread> joiner = new AtomicReference<>();
+        Future<MockHttpServletResponse> second = executor.submit(() -> {
+            joiner.set(Thread.currentThread());
+            return get("/api/books", controller(200, "[{\"id\":2}]"));
+        });
+        awaitWaiting(joiner);
+        release.countDown();
+
+        //then
+        assertThat(handled).hasValue(1);
+        assertThat(first.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("[{\"id\":1}]");
+        MockHttpServletResponse joined = second.get(5, TimeUnit.SECONDS);
+        assertThat(joined.getContentAsString()).isEqualTo("[{\"id\":1}]");
+        assertThat(joined.getContentType()).isEqualTo("application/json");
+        assertThat(joined.getHeader(ReadCoalescingFilter.COALESCED_HEADER)).isEqualTo("true");
+        assertThat(meterRegistry.get("library.coalescing.requests.total").tag("outcome", "joined").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_shouldRunWaitingReadItself_whenTheRunningReadFails() throws Exception {
+        //given
+        Future<MockHttpServletResponse> first = executor.submit(() -> get("/api/borrowers/7/books", controller(503, "{}")));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //when
+        AtomicReference<Thread> joiner = new AtomicReference<>();
+        Future<MockHttpServletResponse> second = executor.submit(() -> {
+            joiner.set(Thread.currentThread());
+            return get("/api/borrowers/7/books", controller(200, "[]"));
+        });
+        awaitWaiting(joiner);
+        release.countDown();
+
+        //then
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(503);
+        assertThat(second.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("[]");
+        assertThat(handled).hasValue(2);
+        assertThat(meterRegistry.get("library.coalescing.requests.total").tag("outcome", "unshared").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_shouldReleaseWaiters_beforeWritingToTheLeadersSlowClient() throws Exception {
+        //given
+        CountDownLatch clientReads = new CountDownLatch(1);
+        MockHttpServletResponse slowClient = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                ServletOutputStream target = super.getOutputStream();
+                return new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                    }
+
+                    @Override
+                    public void write(int b) throws IOException {
+                        try {
+                            clientReads.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        target.write(b);
+                    }
+                };
+            }
+        };
+        Future<?> first = executor.submit(() -> {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), slowClient, controller(200, "[{\"id\":1}]"));
+            return null;
+        });
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicReference<Thread> joiner = new AtomicReference<>();
+        Future<MockHttpServletResponse> second = executor.submit(() -> {
+            joiner.set(Thread.currentThread());
+            return get("/api/books", controller(200, "[{\"id\":2}]"));
+        });
+        awaitWaiting(joiner);
+
+        //when
+        release.countDown();
+
+        //then: the joined read is answered while the leader's client is still not reading
+        assertThat(second.get(5, TimeUnit.SECONDS).getContentAsString()).isEqualTo("[{\"id\":1}]");
+        assertThat(first.isDone()).isFalse();
+        clientReads.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertThat(slowClient.getContentAsString()).isEqualTo("[{\"id\":1}]");
+    }
+
+    @Test
+    void shouldNotFilter_shouldSkipWritesOtherPathsAndRecentBorrowers() {
+        //given
+        readYourWritesTracker.recordWrite(7L);
+
+        //when & then
+        assertThat(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/api/books"))).isFalse();
+        assertThat(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/api/borrowers/8/books"))).isFalse();
+        assertThat(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/api/borrowers/7/books"))).isTrue();
+        assertThat(filter.shouldNotFilter(new MockHttpServletRequest("POST", "/api/books"))).isTrue();
+        assertThat(filter.shouldNotFilter(new MockHttpServletRequest("GET", "/api/books/isbn/9780441013593"))).isTrue();
+    }
+
+    private MockHttpServletResponse get(String path, MockFilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", path), response, chain);
+        return response;
+    }
+
+    // The second request is parked on the first one's answer once its thread is waiting
+    private static void awaitWaiting(AtomicReference<Thread> thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.get() == null || thread.get().getState() != Thread.State.WAITING) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private MockFilterChain controller(int status, String body) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                handled.incrementAndGet();
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response.setStatus(status);
+                response.setContentType("application/json");
+                response.getWriter().write(body);
+            }
+        });
+    }
+}
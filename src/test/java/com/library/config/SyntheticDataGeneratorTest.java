@@ -0,0 +1,90 @@
+package com.library.config;
+
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class SyntheticDataGeneratorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Test
+    void generate_shouldInsertConfiguredVolumesWithSkewedLoans() {
+        //given
+        SyntheticDataProperties properties = new SyntheticDataProperties();
+        properties.setBorrowers(1_000);
+        properties.setBooks(2_000);
+        properties.setTitles(100);
+        properties.setBorrowedRatio(0.5);
+        properties.setBatchSize(128);
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(jdbcTemplate, properties, new LoanProperties());
+
+        //when
+        generator.generate();
+
+        //then
+        assertThat(borrowerRepository.count()).isEqualTo(1_000);
+        assertThat(bookRepository.count()).isEqualTo(2_000);
+        long borrowed = bookRepository.countByAvailable(false);
+        // About 1,000 draws, of which those for borrowers already at the limit leave the copy available
+        assertThat(borrowed).isBetween(300L, 1_200L);
+
+        // Skewed, but never past the loan limit: the heaviest borrowers sit at it while most hold fewer books
+        Map<Long, Long> loansPerBorrower = bookRepository.findByAvailable(false).stream()
+                .collect(groupingBy(Book::getBorrowerId, counting()));
+        long atLimit = loansPerBorrower.values().stream().filter(loans -> loans == 5).count();
+        assertThat(Collections.max(loansPerBorrower.values())).isEqualTo(5);
+        assertThat(atLimit).isPositive().isLessThan(loansPerBorrower.size() / 2);
+        Long activeLoans = jdbcTemplate.queryForObject("SELECT SUM(active_loans) FROM borrowers", Long.class);
+        assertThat(activeLoans).isEqualTo(borrowed);
+    }
+
+    @Test
+    void generate_shouldSpreadBooksOverBranches_whenMultipleBranchesConfigured() {
+        //given
+        SyntheticDataProperties properties = new SyntheticDataProperties();
+        properties.setBorrowers(10);
+        properties.setBooks(300);
+        properties.setTitles(20);
+        properties.setBranches(3);
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(jdbcTemplate, properties, new LoanProperties());
+
+        //when
+        generator.generate();
+
+        //then
+        for (int branch = 1; branch <= 3; branch++) {
+            assertThat(bookRepository.findByBranch(SyntheticDataGenerator.branchCode(branch))).hasSize(100);
+        }
+    }
+
+    @Test
+    void isbnOf_shouldProduceValidIsbn13_whenSequenceProvided() {
+        //when
+        String isbn = SyntheticDataGenerator.isbnOf(0);
+
+        //then
+        assertThat(isbn).isEqualTo("9790000000001");
+    }
+}
@@ -2,10 +2,17 @@ package com.library.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.library.dto.BookDto;
+import com.library.dto.BookField;
+import com.library.dto.CatalogSyncResult;
+import com.library.dto.SparseBookDto;
 import com.library.exception.BookAlreadyBorrowedException;
+import com.library.exception.BookNotBorrowedException;
 import com.library.exception.BookNotFoundException;
 import com.library.exception.BorrowerNotFoundException;
+import com.library.exception.DuplicateIsbnException;
+import com.library.exception.InvalidRequestParameterException;
 import com.library.service.BookService;
+import com.library.service.IsbnLookupService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -14,13 +21,19 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookController.class)
@@ -32,14 +45,17 @@ class BookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private IsbnLookupService isbnLookupService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @Test
     void getAllBooks_shouldReturnOk_whenBooksExist() throws Exception {
         //given
-        BookDto book1 = new BookDto(1L, "Book 1", "Author 1", "ISBN1", true, null);
-        BookDto book2 = new BookDto(2L, "Book 2", "Author 2", "ISBN2", false, 1L);
+        BookDto book1 = new BookDto(1L, "Book 1", "Author 1", "ISBN1", null, null);
+        BookDto book2 = new BookDto(2L, "Book 2", "Author 2", "ISBN2", 1L, null);
         List<BookDto> books = Arrays.asList(book1, book2);
         when(bookService.getAllBooks()).thenReturn(books);
 
@@ -50,6 +66,34 @@ class BookControllerTest {
         verify(bookService).getAllBooks();
     }
 
+    @Test
+    void getBookFields_shouldWriteOnlyRequestedFields_whenFieldsAreGiven() throws Exception {
+        //given
+        Set<BookField> fields = EnumSet.of(BookField.ID, BookField.TITLE, BookField.AVAILABLE);
+        when(bookService.getBookFields(fields, null, null))
+                .thenReturn(List.of(new SparseBookDto(fields, 1L, "Book 1", null, null, true, null, null)));
+
+        //when & then
+        mockMvc.perform(get("/api/books").param("fields", "id, title,available"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].title").value("Book 1"))
+                .andExpect(jsonPath("$[0].available").value(true))
+                .andExpect(jsonPath("$[0].author").doesNotExist())
+                .andExpect(jsonPath("$[0].borrowerId").doesNotExist());
+
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    void getBookFields_shouldReturnBadRequest_whenFieldIsUnknown() throws Exception {
+        //when & then
+        mockMvc.perform(get("/api/books").param("fields", "id,price"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(bookService);
+    }
+
     @Test
     void getAllBooks_shouldReturnOk_whenNoBooksExist() throws Exception {
         //given
@@ -62,11 +106,108 @@ class BookControllerTest {
         verify(bookService).getAllBooks();
     }
 
+    @Test
+    void getAllBooks_shouldQueryBranch_whenBranchParameterProvided() throws Exception {
+        //given
+        BookDto book = new BookDto(1L, "Book 1", "Author 1", "ISBN1", null, "NORTH");
+        when(bookService.getBooksByBranch("NORTH", true)).thenReturn(List.of(book));
+
+        //when & then
+        mockMvc.perform(get("/api/books").param("branch", "NORTH").param("available", "true"))
+                .andExpect(status().isOk());
+
+        verify(bookService).getBooksByBranch("NORTH", true);
+    }
+
+    @Test
+    void getAllBooks_shouldFilterByAvailability_whenOnlyAvailableParameterProvided() throws Exception {
+        //given
+        BookDto borrowed = new BookDto(2L, "Book 2", "Author 2", "ISBN2", 3L, "MAIN");
+        when(bookService.getBooksByAvailability(false)).thenReturn(List.of(borrowed));
+
+        //when & then
+        mockMvc.perform(get("/api/books").param("available", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].available").value(false));
+
+        verify(bookService, never()).getAllBooks();
+    }
+
+    @Test
+    void getBooksByIsbn_shouldReturnEveryCopy_whenIsbnIsKnown() throws Exception {
+        //given
+        BookDto north = new BookDto(1L, "Dune", "Frank Herbert", "9780441013593", null, "NORTH");
+        BookDto south = new BookDto(2L, "Dune", "Frank Herbert", "9780441013593", 3L, "SOUTH");
+        when(isbnLookupService.findByIsbn("0-441-01359-7")).thenReturn(List.of(north, south));
+
+        //when & then
+        mockMvc.perform(get("/api/books/isbn/0-441-01359-7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].branch").value("SOUTH"));
+    }
+
+    @Test
+    void getBooksByIsbn_shouldReturnNotFoundOrBadRequest_whenLookupFails() throws Exception {
+        //given
+        when(isbnLookupService.findByIsbn("9780000000002")).thenThrow(new BookNotFoundException("Book not found with ISBN: 9780000000002"));
+        when(isbnLookupService.findByIsbn("12345")).thenThrow(new InvalidRequestParameterException("Not a valid ISBN-10 or ISBN-13: 12345"));
+
+        //when & then
+        mockMvc.perform(get("/api/books/isbn/9780000000002"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/books/isbn/12345"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addBook_shouldReturnBadRequest_whenBranchIsMalformed() throws Exception {
+        //given
+        BookDto bookDto = new BookDto(null, "Title", "Author", "ISBN", null, "north side");
+
+        //when & then
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookDto)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addBook_shouldReturnConflict_whenBranchAlreadyHasIsbn() throws Exception {
+        //given
+        BookDto bookDto = new BookDto("Dune", "Frank Herbert", "9780441013593");
+        when(bookService.addBook(any(BookDto.class)))
+                .thenThrow(new DuplicateIsbnException("Branch MAIN already has a book with ISBN: 9780441013593"));
+
+        //when & then
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(bookDto)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void syncCatalog_shouldReturnCounts_whenFeedIsValid() throws Exception {
+        //given
+        List<BookDto> feed = List.of(new BookDto("Dune", "Frank Herbert", "9780441013593"),
+                new BookDto("Emma", "Jane Austen", "9780141439587"));
+        when(bookService.syncCatalog(feed)).thenReturn(new CatalogSyncResult(2, 1, 0, 1));
+
+        //when & then
+        mockMvc.perform(put("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(feed)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.unchanged").value(1));
+    }
+
     @Test
     void addBook_shouldReturnCreated_whenValidBookProvided() throws Exception {
         //given
         BookDto inputBook = new BookDto("New Book", "New Author", "ISBN123");
-        BookDto savedBook = new BookDto(1L, "New Book", "New Author", "ISBN123", true, null);
+        BookDto savedBook = new BookDto(1L, "New Book", "New Author", "ISBN123", null, null);
         when(bookService.addBook(any(BookDto.class))).thenReturn(savedBook);
 
         //when & then
@@ -83,7 +224,7 @@ class BookControllerTest {
         //given
         Long bookId = 1L;
         Long borrowerId = 2L;
-        BookDto borrowedBook = new BookDto(bookId, "Test Book", "Test Author", "ISBN123", false, borrowerId);
+        BookDto borrowedBook = new BookDto(bookId, "Test Book", "Test Author", "ISBN123", borrowerId, null);
         when(bookService.borrowBook(bookId, borrowerId)).thenReturn(borrowedBook);
 
         //when & then
@@ -137,4 +278,31 @@ class BookControllerTest {
 
         verify(bookService).borrowBook(bookId, borrowerId);
     }
+
+    @Test
+    void returnBook_shouldReturnOk_whenBookIsBorrowed() throws Exception {
+        //given
+        Long bookId = 1L;
+        BookDto returnedBook = new BookDto(bookId, "Test Book", "Test Author", "ISBN123", null, null);
+        when(bookService.returnBook(bookId)).thenReturn(returnedBook);
+
+        //when & then
+        mockMvc.perform(post("/api/books/{bookId}/return", bookId))
+                .andExpect(status().isOk());
+
+        verify(bookService).returnBook(bookId);
+    }
+
+    @Test
+    void returnBook_shouldReturnConflict_whenBookIsNotBorrowed() throws Exception {
+        //given
+        Long bookId = 1L;
+        when(bookService.returnBook(bookId)).thenThrow(new BookNotBorrowedException(bookId));
+
+        //when & then
+        mockMvc.perform(post("/api/books/{bookId}/return", bookId))
+                .andExpect(status().isConflict());
+
+        verify(bookService).returnBook(bookId);
+    }
 }
\ No newline at end of file
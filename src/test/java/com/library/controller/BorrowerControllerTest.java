@@ -3,9 +3,11 @@ package com.library.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.library.dto.BookDto;
 import com.library.dto.BorrowerDto;
+import com.library.dto.BorrowerPage;
 import com.library.exception.BorrowerNotFoundException;
 import com.library.exception.DuplicateEmailException;
 import com.library.service.BorrowerService;
+import com.library.service.BorrowerSort;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -17,10 +19,14 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BorrowerController.class)
@@ -36,30 +42,43 @@ class BorrowerControllerTest {
     private ObjectMapper objectMapper;
 
     @Test
-    void getAllBorrowers_shouldReturnOk_whenBorrowersExist() throws Exception {
+    void getBorrowers_shouldReturnFirstPageWithNextLink_whenMoreBorrowersExist() throws Exception {
         //given
         BorrowerDto borrower1 = new BorrowerDto(1L, "John Doe", "john@example.com");
         BorrowerDto borrower2 = new BorrowerDto(2L, "Jane Smith", "jane@example.com");
         List<BorrowerDto> borrowers = Arrays.asList(borrower1, borrower2);
-        when(borrowerService.getAllBorrowers()).thenReturn(borrowers);
+        when(borrowerService.getBorrowers(null, BorrowerSort.NAME, null, 2)).thenReturn(new BorrowerPage(borrowers, 2L));
 
         //when & then
-        mockMvc.perform(get("/api/borrowers"))
-                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/borrowers?size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("Link", "<http://localhost/api/borrowers?size=2&after=2>; rel=\"next\""));
 
-        verify(borrowerService).getAllBorrowers();
+        verify(borrowerService).getBorrowers(null, BorrowerSort.NAME, null, 2);
     }
 
     @Test
-    void getAllBorrowers_shouldReturnOk_whenNoBorrowersExist() throws Exception {
+    void getBorrowers_shouldReturnOkWithoutNextLink_whenNoBorrowersExist() throws Exception {
         //given
-        when(borrowerService.getAllBorrowers()).thenReturn(Arrays.asList());
+        when(borrowerService.getBorrowers("jo", BorrowerSort.EMAIL, 10L, 50)).thenReturn(new BorrowerPage(List.of(), null));
 
         //when & then
-        mockMvc.perform(get("/api/borrowers"))
-                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/borrowers").param("q", "jo").param("sort", "email").param("after", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void getBorrowers_shouldReturnBadRequest_whenPageSizeOrSortIsInvalid() throws Exception {
+        //when & then
+        mockMvc.perform(get("/api/borrowers").param("size", "5000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/borrowers").param("sort", "age"))
+                .andExpect(status().isBadRequest());
 
-        verify(borrowerService).getAllBorrowers();
+        verify(borrowerService, never()).getBorrowers(any(), any(), any(), anyInt());
     }
 
     @Test
@@ -126,8 +145,8 @@ class BorrowerControllerTest {
     void getBorrowedBooks_shouldReturnOk_whenBorrowerExists() throws Exception {
         //given
         Long borrowerId = 1L;
-        BookDto book1 = new BookDto(1L, "Book 1", "Author 1", "ISBN1", false, borrowerId);
-        BookDto book2 = new BookDto(2L, "Book 2", "Author 2", "ISBN2", false, borrowerId);
+        BookDto book1 = new BookDto(1L, "Book 1", "Author 1", "ISBN1", borrowerId, null);
+        BookDto book2 = new BookDto(2L, "Book 2", "Author 2", "ISBN2", borrowerId, null);
         List<BookDto> borrowedBooks = Arrays.asList(book1, book2);
         when(borrowerService.getBorrowedBooks(borrowerId)).thenReturn(borrowedBooks);
 
@@ -0,0 +1,55 @@
+package com.library.controller;
+
+import com.library.service.ExportDataset;
+import com.library.service.ExportFormat;
+import com.library.service.ExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ExportController.class)
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExportService exportService;
+
+    @Test
+    void export_shouldStreamGzipAttachment_whenDatasetAndFormatAreSupported() throws Exception {
+        //when
+        MvcResult result = mockMvc.perform(get("/api/export/{dataset}", "books").param("format", "ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"books.ndjson.gz\""));
+        verify(exportService).export(eq(ExportDataset.BOOKS), eq(ExportFormat.NDJSON), any());
+    }
+
+    @Test
+    void export_shouldReturnBadRequest_whenDatasetIsUnknown() throws Exception {
+        //when & then
+        mockMvc.perform(get("/api/export/{dataset}", "holds"))
+                .andExpect(status().isBadRequest());
+
+        verify(exportService, never()).export(any(), any(), any());
+    }
+}
@@ -0,0 +1,82 @@
+package com.library.controller;
+
+import com.library.dto.HoldDto;
+import com.library.exception.HoldNotAllowedException;
+import com.library.exception.HoldNotFoundException;
+import com.library.service.HoldService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(HoldController.class)
+class HoldControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private HoldService holdService;
+
+    @Test
+    void placeHold_shouldReturnCreated_whenHoldAllowed() throws Exception {
+        //given
+        HoldDto hold = new HoldDto(10L, 1L, 2L, LocalDateTime.now());
+        when(holdService.placeHold(1L, 2L)).thenReturn(hold);
+
+        //when & then
+        mockMvc.perform(post("/api/books/{bookId}/holds/{borrowerId}", 1L, 2L))
+                .andExpect(status().isCreated());
+
+        verify(holdService).placeHold(1L, 2L);
+    }
+
+    @Test
+    void placeHold_shouldReturnConflict_whenHoldNotAllowed() throws Exception {
+        //given
+        when(holdService.placeHold(1L, 2L))
+                .thenThrow(new HoldNotAllowedException("Book with ID 1 is available and can be borrowed directly"));
+
+        //when & then
+        mockMvc.perform(post("/api/books/{bookId}/holds/{borrowerId}", 1L, 2L))
+                .andExpect(status().isConflict());
+
+        verify(holdService).placeHold(1L, 2L);
+    }
+
+    @Test
+    void getHolds_shouldReturnOk_whenBookExists() throws Exception {
+        //given
+        when(holdService.getHolds(1L)).thenReturn(List.of(new HoldDto(10L, 1L, 2L, LocalDateTime.now())));
+
+        //when & then
+        mockMvc.perform(get("/api/books/{bookId}/holds", 1L))
+                .andExpect(status().isOk());
+
+        verify(holdService).getHolds(1L);
+    }
+
+    @Test
+    void cancelHold_shouldReturnNotFound_whenHoldDoesNotExist() throws Exception {
+        //given
+        doThrow(new HoldNotFoundException(10L)).when(holdService).cancelHold(1L, 10L);
+
+        //when & then
+        mockMvc.perform(delete("/api/books/{bookId}/holds/{holdId}", 1L, 10L))
+                .andExpect(status().isNotFound());
+
+        verify(holdService).cancelHold(1L, 10L);
+    }
+}
@@ -0,0 +1,76 @@
+package com.library.datasource;
+
+import com.library.config.ReplicaDataSourceProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadYourWritesTrackerTest {
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void recordWrite_shouldOnlyTrackBorrower_afterTransactionCommits() {
+        //given
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(properties(Duration.ofMinutes(1)));
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when
+        tracker.recordWrite(1L);
+        boolean trackedBeforeCommit = tracker.isRecentlyWritten(1L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        //then
+        assertThat(trackedBeforeCommit).isFalse();
+        assertThat(tracker.isRecentlyWritten(1L)).isTrue();
+    }
+
+    @Test
+    void pinToPrimaryIfRecentlyWritten_shouldPinUntilTransactionCompletes_whenBorrowerWroteRecently() {
+        //given
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(properties(Duration.ofMinutes(1)));
+        tracker.recordWrite(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when
+        tracker.pinToPrimaryIfRecentlyWritten(2L);
+        boolean pinnedForOtherBorrower = ReadYourWritesTracker.isPrimaryPinned();
+        tracker.pinToPrimaryIfRecentlyWritten(1L);
+        boolean pinned = ReadYourWritesTracker.isPrimaryPinned();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        //then
+        assertThat(pinnedForOtherBorrower).isFalse();
+        assertThat(pinned).isTrue();
+        assertThat(ReadYourWritesTracker.isPrimaryPinned()).isFalse();
+    }
+
+    @Test
+    void isRecentlyWritten_shouldBeFalse_whenWindowIsDisabled() {
+        //given
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(properties(Duration.ZERO));
+
+        //when
+        tracker.recordWrite(1L);
+
+        //then
+        assertThat(tracker.isRecentlyWritten(1L)).isFalse();
+    }
+
+    private static ReplicaDataSourceProperties properties(Duration window) {
+        ReplicaDataSourceProperties properties = new ReplicaDataSourceProperties();
+        properties.setReadYourWritesWindow(window);
+        return properties;
+    }
+}
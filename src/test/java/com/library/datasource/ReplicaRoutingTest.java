@@ -0,0 +1,107 @@
+package com.library.datasource;
+
+import com.library.dto.BookDto;
+import com.library.dto.BorrowerDto;
+import com.library.exception.BorrowerNotFoundException;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against two independent H2 databases. Nothing replicates between them, which makes it easy to see
+ * which one a service method actually read from.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica.username=sa",
+        "library.datasource.replica.password=",
+        "library.datasource.replica.read-your-writes-window=1m",
+        "library.sample-data.enabled=false"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void copySchemaToReplica() {
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("DROP ALL OBJECTS");
+        List<String> ddl = primary.queryForList("SCRIPT NODATA", String.class);
+        ddl.stream()
+                .filter(statement -> !statement.startsWith("CREATE USER"))
+                .forEach(replica::execute);
+    }
+
+    @Test
+    void readOnlyMethods_shouldReadFromReplica_whileWritesGoToPrimary() {
+        //given
+        bookService.addBook(new BookDto("Written To Primary", "Author", "PRIMARY-" + System.nanoTime()));
+        replica.update("INSERT INTO books (title, author, isbn, available, branch) VALUES (?, ?, ?, true, 'MAIN')",
+                "Only On Replica", "Author", "REPLICA-" + System.nanoTime());
+
+        //when
+        List<BookDto> books = bookService.getAllBooks();
+
+        //then
+        assertThat(books).extracting(BookDto::title)
+                .contains("Only On Replica")
+                .doesNotContain("Written To Primary");
+    }
+
+    @Test
+    void getBorrowedBooks_shouldReadFromPrimary_whenBorrowerJustBorrowed() {
+        //given
+        BorrowerDto borrower = borrowerService.createBorrower(new BorrowerDto("Fresh Reader", "fresh" + System.nanoTime() + "@example.com"));
+        BookDto book = bookService.addBook(new BookDto("Just Borrowed", "Author", "RYW-" + System.nanoTime()));
+        bookService.borrowBook(book.id(), borrower.id());
+
+        //when
+        List<BookDto> borrowedBooks = borrowerService.getBorrowedBooks(borrower.id());
+
+        //then
+        assertThat(borrowedBooks).extracting(BookDto::title).containsExactly("Just Borrowed");
+    }
+
+    @Test
+    void getBorrower_shouldReadFromReplica_whenBorrowerHasNoRecentWrites() {
+        //given
+        String email = "quiet" + System.nanoTime() + "@example.com";
+        Long borrowerId = new JdbcTemplate(primaryDataSource).queryForObject(
+                "SELECT id FROM FINAL TABLE (INSERT INTO borrowers (name, email, name_lower, email_lower, active_loans, branch) "
+                        + "VALUES (?, ?, LOWER(?), LOWER(?), 0, 'MAIN'))",
+                Long.class, "Quiet Reader", email, "Quiet Reader", email);
+
+        //when & then
+        assertThatThrownBy(() -> borrowerService.getBorrower(borrowerId))
+                .isInstanceOf(BorrowerNotFoundException.class);
+    }
+}
@@ -0,0 +1,254 @@
+package com.library.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.library.config.IdempotencyProperties;
+import com.library.entity.IdempotencyRecord;
+import com.library.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyFilterTest {
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyFilter filter;
+    private AtomicInteger handled;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = newFilter();
+        handled = new AtomicInteger();
+    }
+
+    @Test
+    void doFilter_shouldReplayRecordedResponseWithoutCallingController_whenKeyIsRetried() throws Exception {
+        //given
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(borrowRequest("key-1"), first, controller(200, "{\"id\":1}"));
+
+        //when
+        MockHttpServletResponse retried = new MockHttpServletResponse();
+        filter.doFilter(borrowRequest("key-1"), retried, controller(200, "{\"id\":1}"));
+
+        //then
+        assertThat(handled).hasValue(1);
+        assertThat(first.getContentAsString()).isEqualTo("{\"id\":1}");
+        assertThat(retried.getStatus()).isEqualTo(200);
+        assertThat(retried.getContentAsString()).isEqualTo("{\"id\":1}");
+        assertThat(retried.getContentType()).isEqualTo("application/json");
+        assertThat(retried.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(meterRegistry.get("library.idempotency.lookups.total").tag("result", "memory").counter().count())
+                .isEqualTo(1);
+        verify(repository).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void doFilter_shouldReplayPersistedResponse_whenKeyIsNotInMemory() throws Exception {
+        //given
+        byte[] body = "{\"id\":7}".getBytes(StandardCharsets.UTF_8);
+        MockHttpServletResponse original = new MockHttpServletResponse();
+        filter.doFilter(borrowRequest("key-2"), original, controller(200, "{\"id\":7}"));
+        String fingerprint = fingerprintOfSavedRecord();
+        when(repository.findByIdempotencyKey("key-2")).thenReturn(Optional.of(
+                new IdempotencyRecord("key-2", fingerprint, 200, "application/json", body, LocalDateTime.now())));
+        IdempotencyFilter restarted = newFilter();
+
+        //when
+        MockHttpServletResponse retried = new MockHttpServletResponse();
+        restarted.doFilter(borrowRequest("key-2"), retried, controller(200, "{\"id\":8}"));
+
+        //then
+        assertThat(handled).hasValue(1);
+        assertThat(retried.getContentAsString()).isEqualTo("{\"id\":7}");
+        assertThat(meterRegistry.get("library.idempotency.lookups.total").tag("result", "database").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_shouldReturn422_whenKeyIsReusedForDifferentRequest() throws Exception {
+        //given
+        filter.doFilter(borrowRequest("key-3"), new MockHttpServletResponse(), controller(200, "{}"));
+        MockHttpServletRequest otherBorrow = new MockHttpServletRequest("POST", "/api/books/2/borrow/3");
+        otherBorrow.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-3");
+
+        //when
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(otherBorrow, response, controller(200, "{}"));
+
+        //then
+        assertThat(response.getStatus()).isEqualTo(422);
+        assertThat(response.getContentAsString()).contains("already used for a different request");
+        assertThat(handled).hasValue(1);
+    }
+
+    @Test
+    void doFilter_shouldProcessAgain_whenFirstAttemptFailedWithServerError() throws Exception {
+        //given
+        filter.doFilter(borrowRequest("key-4"), new MockHttpServletResponse(), controller(503, "{}"));
+
+        //when
+        MockHttpServletResponse retried = new MockHttpServletResponse();
+        filter.doFilter(borrowRequest("key-4"), retried, controller(200, "{\"id\":1}"));
+
+        //then
+        assertThat(handled).hasValue(2);
+        assertThat(retried.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(retried.getContentAsString()).isEqualTo("{\"id\":1}");
+    }
+
+    @Test
+    void doFilter_shouldPassThrough_whenRequestHasNoKeyOrIsNotCovered() throws Exception {
+        //given
+        MockHttpServletRequest withoutKey = new MockHttpServletRequest("POST", "/api/books/1/borrow/2");
+        MockHttpServletRequest returnRequest = new MockHttpServletRequest("POST", "/api/books/1/return");
+        returnRequest.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-5");
+
+        //when
+        filter.doFilter(withoutKey, new MockHttpServletResponse(), controller(200, "{}"));
+        filter.doFilter(returnRequest, new MockHttpServletResponse(), controller(200, "{}"));
+
+        //then
+        assertThat(handled).hasValue(2);
+        verify(repository, never()).findByIdempotencyKey(anyString());
+    }
+
+    @Test
+    void doFilter_shouldLookUpDatabaseOnce_whenKeyIsNew() throws Exception {
+        //given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //when
+        filter.doFilter(borrowRequest("key-6"), response, controller(200, "{\"id\":1}"));
+
+        //then
+        assertThat(handled).hasValue(1);
+        verify(repository, times(1)).findByIdempotencyKey("key-6");
+    }
+
+    @Test
+    void doFilter_shouldNotifyReadListenerWithWholeBody_whenControllerReadsAsynchronously() throws Exception {
+        //given
+        MockHttpServletRequest request = borrowRequest("key-7");
+        request.setContent("{\"note\":\"async\"}".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allRead = new AtomicBoolean();
+        MockFilterChain asyncController = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                ServletInputStream input = request.getInputStream();
+                input.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        while (input.isReady() && !input.isFinished()) {
+                            read.write(input.read());
+                        }
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        allRead.set(true);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                    }
+                });
+                response.setStatus(200);
+            }
+        });
+
+        //when
+        filter.doFilter(request, new MockHttpServletResponse(), asyncController);
+
+        //then
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo("{\"note\":\"async\"}");
+        assertThat(allRead).isTrue();
+    }
+
+    @Test
+    void replayFilter_shouldReplayFromMemoryAndLeaveOtherKeysToTheChain() throws Exception {
+        //given
+        IdempotencyStore store = new IdempotencyStore(repository, new IdempotencyProperties(), meterRegistry);
+        IdempotencyFilter recorder = new IdempotencyFilter(store, new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry);
+        recorder.doFilter(borrowRequest("key-8"), new MockHttpServletResponse(), controller(200, "{\"id\":1}"));
+        clearInvocations(repository);
+        IdempotentReplayFilter replayFilter = new IdempotentReplayFilter(store);
+
+        //when
+        MockHttpServletResponse retried = new MockHttpServletResponse();
+        replayFilter.doFilter(borrowRequest("key-8"), retried, controller(200, "{\"id\":2}"));
+        replayFilter.doFilter(borrowRequest("key-9"), new MockHttpServletResponse(), controller(200, "{\"id\":3}"));
+
+        //then
+        assertThat(retried.getContentAsString()).isEqualTo("{\"id\":1}");
+        assertThat(retried.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(handled).hasValue(2);
+        verify(repository, never()).findByIdempotencyKey(anyString());
+    }
+
+    private IdempotencyFilter newFilter() {
+        IdempotencyStore store = new IdempotencyStore(repository, new IdempotencyProperties(), meterRegistry);
+        return new IdempotencyFilter(store, new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry);
+    }
+
+    private String fingerprintOfSavedRecord() {
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(captor.capture());
+        return captor.getValue().getFingerprint();
+    }
+
+    private MockFilterChain controller(int status, String body) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response)
+                    throws IOException {
+                handled.incrementAndGet();
+                request.getInputStream().readAllBytes();
+                response.setStatus(status);
+                response.setContentType("application/json");
+                response.getWriter().write(body);
+            }
+        });
+    }
+
+    private static MockHttpServletRequest borrowRequest(String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/books/1/borrow/2");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        return request;
+    }
+}
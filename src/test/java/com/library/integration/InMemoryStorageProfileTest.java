@@ -0,0 +1,83 @@
+package com.library.integration;
+
+import com.library.dto.BookDto;
+import com.library.dto.BorrowerDto;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.repository.memory.InMemorySnapshotter;
+import com.library.repository.memory.InMemoryStorage;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import com.library.service.BorrowerSort;
+import com.library.service.ExportService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "library.sample-data.enabled=false")
+@ActiveProfiles({"test", "in-memory"})
+class InMemoryStorageProfileTest {
+
+    @TempDir
+    static Path storageDirectory;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowerService borrowerService;
+
+    @Autowired
+    private InMemoryStorage storage;
+
+    @Autowired
+    private InMemorySnapshotter snapshotter;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @DynamicPropertySource
+    static void storageDirectory(DynamicPropertyRegistry registry) {
+        registry.add("library.in-memory.directory", () -> storageDirectory.resolve("library").toString());
+    }
+
+    @Test
+    void services_shouldRunOnTheInMemoryRepositories_whenProfileIsActive() throws Exception {
+        //given
+        BookDto book = bookService.addBook(new BookDto(null, "Dune", "Frank Herbert", "978-MEM-0001", null, null));
+        BorrowerDto borrower = borrowerService.createBorrower(new BorrowerDto(null, "Memory Reader", "memory.reader@example.com", null));
+
+        //when
+        bookService.borrowBook(book.id(), borrower.id());
+        snapshotter.checkpoint();
+
+        //then
+        assertThat((Object) AopTestUtils.getUltimateTargetObject(bookRepository)).isSameAs(storage.bookRepository());
+        assertThat(borrowerRepository.findById(borrower.id()).orElseThrow().getActiveLoans()).isEqualTo(1);
+        assertThat(borrowerService.getBorrowedBooks(borrower.id())).extracting(BookDto::title).containsExactly("Dune");
+        assertThat(borrowerService.getBorrowers("memory", BorrowerSort.NAME, null, 10).borrowers())
+                .extracting(BorrowerDto::id).containsExactly(borrower.id());
+
+        // Exports read the SQL tables, which stay empty in this profile
+        assertThat(applicationContext.getBeanNamesForType(ExportService.class)).isEmpty();
+        assertThat(storage.isDurable()).isTrue();
+        InMemoryStorage restored = InMemoryStorage.open(storageDirectory.resolve("library"), false);
+        assertThat(restored.bookRepository().findByBorrowerId(borrower.id())).hasSize(1);
+    }
+}
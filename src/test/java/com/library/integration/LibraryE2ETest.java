@@ -1,17 +1,37 @@
 package com.library.integration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.library.controller.ErrorResponse;
+import com.library.dto.AvailabilityEventDto;
 import com.library.dto.BookDto;
 import com.library.dto.BorrowerDto;
+import com.library.dto.HoldDto;
+import com.library.idempotency.IdempotencyFilter;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -24,6 +44,11 @@ class LibraryE2ETest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
     private String baseUrl() {
         return "http://localhost:" + port + "/api";
     }
@@ -34,14 +59,14 @@ class LibraryE2ETest {
         BookDto book = createBook("The Great Gatsby", "F. Scott Fitzgerald");
         BorrowerDto firstBorrower = createBorrower("John Smith", "john.smith");
         BorrowerDto secondBorrower = createBorrower("Jane Doe", "jane.doe");
-        borrowBook(book.getId(), firstBorrower.getId());
+        borrowBook(book.id(), firstBorrower.id());
 
         //when
-        ErrorResponse errorResponse = attemptToBorrowBook(book.getId(), secondBorrower.getId());
+        ErrorResponse errorResponse = attemptToBorrowBook(book.id(), secondBorrower.id());
 
         //then
         assertThat(errorResponse.getError()).isEqualTo("Book Already Borrowed");
-        assertThat(errorResponse.getMessage()).contains("Book with ID " + book.getId() + " is already borrowed");
+        assertThat(errorResponse.getMessage()).contains("Book with ID " + book.id() + " is already borrowed");
     }
 
     @Test
@@ -52,7 +77,7 @@ class LibraryE2ETest {
         BookDto book1 = createBook(uniqueTitle1, "George Orwell");
         BookDto book2 = createBook(uniqueTitle2, "Harper Lee");
         BorrowerDto borrower = createBorrower("Alice Johnson", "alice");
-        borrowBook(book1.getId(), borrower.getId());
+        borrowBook(book1.id(), borrower.id());
 
         //when
         BookDto[] allBooks = getAllBooks();
@@ -61,10 +86,10 @@ class LibraryE2ETest {
         assertThat(allBooks).hasSizeGreaterThanOrEqualTo(2);
         BookDto borrowedBook = findBookByTitle(allBooks, uniqueTitle1);
         BookDto availableBook = findBookByTitle(allBooks, uniqueTitle2);
-        assertThat(borrowedBook.getAvailable()).isFalse();
-        assertThat(borrowedBook.getBorrowerId()).isEqualTo(borrower.getId());
-        assertThat(availableBook.getAvailable()).isTrue();
-        assertThat(availableBook.getBorrowerId()).isNull();
+        assertThat(borrowedBook.available()).isFalse();
+        assertThat(borrowedBook.borrowerId()).isEqualTo(borrower.id());
+        assertThat(availableBook.available()).isTrue();
+        assertThat(availableBook.borrowerId()).isNull();
     }
 
     @Test
@@ -74,34 +99,196 @@ class LibraryE2ETest {
         BookDto book1 = createBook("Clean Code", "Robert Martin");
         BookDto book2 = createBook("Design Patterns", "Gang of Four");
         BookDto book3 = createBook("Refactoring", "Martin Fowler");
-        borrowBook(book1.getId(), borrower.getId());
-        borrowBook(book2.getId(), borrower.getId());
+        borrowBook(book1.id(), borrower.id());
+        borrowBook(book2.id(), borrower.id());
 
         //when
-        BookDto[] borrowedBooks = getBorrowedBooks(borrower.getId());
+        BookDto[] borrowedBooks = getBorrowedBooks(borrower.id());
 
         //then - should return exactly the two borrowed books
         assertThat(borrowedBooks).hasSize(2);
         assertThat(borrowedBooks)
-                .extracting(BookDto::getTitle)
+                .extracting(BookDto::title)
                 .containsExactlyInAnyOrder("Clean Code", "Design Patterns");
         assertThat(borrowedBooks)
-                .allMatch(book -> book.getBorrowerId().equals(borrower.getId()))
-                .allMatch(book -> !book.getAvailable());
+                .allMatch(book -> book.borrowerId().equals(borrower.id()))
+                .allMatch(book -> !book.available());
+    }
+
+    @Test
+    void borrowBook_shouldEnforceLoanLimit_untilABookIsReturned() {
+        //given
+        BorrowerDto borrower = createBorrower("Carol White", "carol");
+        BookDto[] books = new BookDto[6];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = createBook("Limit Book " + i, "Various");
+        }
+        for (int i = 0; i < 5; i++) {
+            borrowBook(books[i].id(), borrower.id());
+        }
+
+        //when
+        ErrorResponse limitError = attemptToBorrowBook(books[5].id(), borrower.id());
+        returnBook(books[0].id());
+
+        //then
+        assertThat(limitError.getError()).isEqualTo("Loan Limit Exceeded");
+        borrowBook(books[5].id(), borrower.id());
+        assertThat(getBorrowedBooks(borrower.id()))
+                .extracting(BookDto::title)
+                .doesNotContain("Limit Book 0")
+                .contains("Limit Book 5");
+    }
+
+    @Test
+    void returnBook_shouldHandBookToFirstHolder_whenHoldsAreQueued() {
+        //given
+        BookDto book = createBook("Popular Release", "Famous Author");
+        BorrowerDto owner = createBorrower("Dave Brown", "dave");
+        BorrowerDto firstHolder = createBorrower("Erin Green", "erin");
+        BorrowerDto secondHolder = createBorrower("Frank Black", "frank");
+        borrowBook(book.id(), owner.id());
+        placeHold(book.id(), firstHolder.id());
+        placeHold(book.id(), secondHolder.id());
+
+        //when
+        returnBook(book.id());
+
+        //then
+        assertThat(getBorrowedBooks(firstHolder.id()))
+                .extracting(BookDto::title)
+                .containsExactly("Popular Release");
+        HoldDto[] remainingHolds = restTemplate.getForObject(
+                baseUrl() + "/books/" + book.id() + "/holds", HoldDto[].class);
+        assertThat(remainingHolds)
+                .extracting(HoldDto::getBorrowerId)
+                .containsExactly(secondHolder.id());
+    }
+
+    @Test
+    void borrowBook_shouldReplayOriginalResponse_whenRetriedWithSameIdempotencyKey() {
+        //given
+        BookDto book = createBook("Retried Book", "Flaky Network");
+        BorrowerDto borrower = createBorrower("Mobile Reader", "mobile");
+        String idempotencyKey = "borrow-" + System.nanoTime();
+        ResponseEntity<BookDto> first = borrowBookIdempotently(book.id(), borrower.id(), idempotencyKey);
+
+        //when
+        ResponseEntity<BookDto> retried = borrowBookIdempotently(book.id(), borrower.id(), idempotencyKey);
+
+        //then
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retried.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retried.getHeaders().getFirst(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retried.getBody()).isEqualTo(first.getBody());
+        assertThat(getBorrowedBooks(borrower.id())).extracting(BookDto::id).containsExactly(book.id());
+    }
+
+    @Test
+    void availabilityStream_shouldPushDeltas_whenBooksAreBorrowedAndReturned() throws Exception {
+        //given
+        BookDto book = createBook("Streamed Book", "Feed Author");
+        BorrowerDto borrower = createBorrower("Stream Reader", "stream");
+
+        try (AvailabilityStream stream = openAvailabilityStream(null)) {
+            //when
+            borrowBook(book.id(), borrower.id());
+            returnBook(book.id());
+
+            //then
+            List<AvailabilityEventDto> events = stream.next(2, Set.of(book.id()));
+            assertThat(events.get(0).getAvailable()).isFalse();
+            assertThat(events.get(0).getBorrowerId()).isEqualTo(borrower.id());
+            assertThat(events.get(1).getAvailable()).isTrue();
+            assertThat(events.get(1).getBorrowerId()).isNull();
+            assertThat(events.get(1).getSequence()).isGreaterThan(events.get(0).getSequence());
+        }
+    }
+
+    @Test
+    void availabilityStream_shouldReplayMissedEvents_whenResumedFromLastEventId() throws Exception {
+        //given
+        BookDto firstBook = createBook("Resumed Book One", "Feed Author");
+        BookDto secondBook = createBook("Resumed Book Two", "Feed Author");
+        BorrowerDto borrower = createBorrower("Resuming Reader", "resume");
+        Set<Long> bookIds = Set.of(firstBook.id(), secondBook.id());
+        long lastSeen;
+        try (AvailabilityStream stream = openAvailabilityStream(null)) {
+            borrowBook(firstBook.id(), borrower.id());
+            lastSeen = stream.next(1, bookIds).get(0).getSequence();
+        }
+        borrowBook(secondBook.id(), borrower.id());
+        returnBook(firstBook.id());
+
+        //when
+        try (AvailabilityStream resumed = openAvailabilityStream(lastSeen)) {
+            List<AvailabilityEventDto> missed = resumed.next(2, bookIds);
+
+            //then
+            assertThat(missed).extracting(AvailabilityEventDto::getBookId)
+                    .containsExactly(secondBook.id(), firstBook.id());
+            assertThat(missed).extracting(AvailabilityEventDto::getAvailable).containsExactly(false, true);
+        }
     }
 
     private BookDto findBookByTitle(BookDto[] books, String title) {
         for (BookDto book : books) {
-            if (book.getTitle().equals(title)) {
+            if (book.title().equals(title)) {
                 return book;
             }
         }
         throw new AssertionError("Book with title '" + title + "' not found");
     }
 
+    private AvailabilityStream openAvailabilityStream(Long lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl() + "/books/availability/stream"))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", String.valueOf(lastEventId));
+        }
+        HttpResponse<java.io.InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return new AvailabilityStream(new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8)));
+    }
+
+    private final class AvailabilityStream implements AutoCloseable {
+
+        private final BufferedReader reader;
+
+        private AvailabilityStream(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        // Other tests share the feed, so only events for the given books are collected
+        List<AvailabilityEventDto> next(int count, Set<Long> bookIds) throws Exception {
+            return CompletableFuture.supplyAsync(() -> {
+                List<AvailabilityEventDto> events = new ArrayList<>();
+                try {
+                    String line;
+                    while (events.size() < count && (line = reader.readLine()) != null) {
+                        if (line.startsWith("data:")) {
+                            AvailabilityEventDto event = objectMapper.readValue(line.substring(5), AvailabilityEventDto.class);
+                            if (bookIds.contains(event.getBookId())) {
+                                events.add(event);
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return events;
+            }).get(10, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void close() throws Exception {
+            reader.close();
+        }
+    }
+
     // Helper methods for creating test data
     private BookDto createBook(String title, String author) {
-        String uniqueIsbn = "978-TEST-" + System.currentTimeMillis();
+        String uniqueIsbn = "978-TEST-" + System.nanoTime();
         BookDto book = new BookDto(title, author, uniqueIsbn);
         ResponseEntity<BookDto> response = restTemplate.postForEntity(
                 baseUrl() + "/books",
@@ -133,6 +320,35 @@ class LibraryE2ETest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
+    private ResponseEntity<BookDto> borrowBookIdempotently(Long bookId, Long borrowerId, String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        return restTemplate.exchange(
+                baseUrl() + "/books/" + bookId + "/borrow/" + borrowerId,
+                HttpMethod.POST,
+                new HttpEntity<>(headers),
+                BookDto.class
+        );
+    }
+
+    private void placeHold(Long bookId, Long borrowerId) {
+        ResponseEntity<HoldDto> response = restTemplate.postForEntity(
+                baseUrl() + "/books/" + bookId + "/holds/" + borrowerId,
+                null,
+                HoldDto.class
+        );
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    private void returnBook(Long bookId) {
+        ResponseEntity<BookDto> response = restTemplate.postForEntity(
+                baseUrl() + "/books/" + bookId + "/return",
+                null,
+                BookDto.class
+        );
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
     private ErrorResponse attemptToBorrowBook(Long bookId, Long borrowerId) {
         ResponseEntity<ErrorResponse> response = restTemplate.postForEntity(
                 baseUrl() + "/books/" + bookId + "/borrow/" + borrowerId,
@@ -0,0 +1,110 @@
+package com.library.integration;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "library.sample-data.enabled=false")
+@ActiveProfiles({"test", "l2-cache"})
+class SecondLevelCacheTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        cache = entityManagerFactory.getCache();
+    }
+
+    @Test
+    void findById_shouldBeServedFromCache_whenBookWasLoadedBefore() {
+        //given
+        Book book = bookRepository.save(new Book("Dune", "Frank Herbert", "978-L2-0001"));
+        bookRepository.findById(book.getId());
+        statistics.clear();
+
+        //when
+        Book cached = bookRepository.findById(book.getId()).orElseThrow();
+
+        //then
+        assertThat(cached.getTitle()).isEqualTo("Dune");
+        assertThat(statistics.getCacheRegionStatistics(Book.CACHE_REGION).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getCacheRegionStatistics(Book.CACHE_REGION).getMissCount()).isZero();
+        assertThat(meterRegistry.get("library.cache.hit.ratio").tag("region", Book.CACHE_REGION).gauge().value())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void borrowAndReturn_shouldEvictOnlyTheAffectedBorrower_andServeFreshLoanCounts() {
+        //given
+        Borrower borrower = borrowerRepository.save(new Borrower("Cached Reader", "cached.reader@example.com"));
+        Borrower bystander = borrowerRepository.save(new Borrower("Bystander", "bystander@example.com"));
+        Book book = bookRepository.save(new Book("Emma", "Jane Austen", "978-L2-0002"));
+        Book otherBook = bookRepository.save(new Book("Persuasion", "Jane Austen", "978-L2-0003"));
+        borrowerRepository.findById(borrower.getId());
+        borrowerRepository.findById(bystander.getId());
+        bookRepository.findById(otherBook.getId());
+
+        //when
+        bookService.borrowBook(book.getId(), borrower.getId());
+
+        //then
+        assertThat(cache.contains(Borrower.class, borrower.getId())).isFalse();
+        assertThat(cache.contains(Borrower.class, bystander.getId())).isTrue();
+        assertThat(cache.contains(Book.class, otherBook.getId())).isTrue();
+        assertThat(borrowerRepository.findById(borrower.getId()).orElseThrow().getActiveLoans()).isEqualTo(1);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailable()).isFalse();
+
+        //when
+        bookService.returnBook(book.getId());
+
+        //then
+        assertThat(borrowerRepository.findById(borrower.getId()).orElseThrow().getActiveLoans()).isZero();
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailable()).isTrue();
+    }
+
+    @Test
+    void findByIsbn_shouldUseQueryCache_whenLookedUpRepeatedly() {
+        //given
+        bookRepository.save(new Book("Middlemarch", "George Eliot", "978-L2-0004"));
+        bookRepository.findByIsbn("978-L2-0004");
+        statistics.clear();
+
+        //when
+        Book found = bookRepository.findByIsbn("978-L2-0004").orElseThrow();
+
+        //then
+        assertThat(found.getTitle()).isEqualTo("Middlemarch");
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+}
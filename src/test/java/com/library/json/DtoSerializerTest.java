@@ -0,0 +1,73 @@
+package com.library.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.BookDto;
+import com.library.dto.BookField;
+import com.library.dto.BorrowerDto;
+import com.library.dto.SparseBookDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JsonTest
+class DtoSerializerTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void serialize_shouldDeriveAvailability_whenBookHasNoBorrower() throws Exception {
+        //given
+        BookDto book = new BookDto(1L, "Dune", "Frank \"Herbert\"", null, null, "MAIN");
+
+        //when
+        String json = objectMapper.writeValueAsString(book);
+
+        //then
+        assertThat(json).isEqualTo("{\"id\":1,\"title\":\"Dune\",\"author\":\"Frank \\\"Herbert\\\"\",\"isbn\":null,"
+                + "\"available\":true,\"borrowerId\":null,\"branch\":\"MAIN\"}");
+    }
+
+    @Test
+    void serialize_shouldRoundTrip_whenBookIsBorrowed() throws Exception {
+        //given
+        BookDto book = new BookDto(2L, "Emma", "Jane Austen", "9780141439587", 7L, "NORTH");
+
+        //when
+        String json = objectMapper.writeValueAsString(book);
+        BookDto read = objectMapper.readValue(json, BookDto.class);
+
+        //then
+        assertThat(json).contains("\"available\":false", "\"borrowerId\":7");
+        assertThat(read).isEqualTo(book);
+    }
+
+    @Test
+    void serialize_shouldWriteOnlySelectedFields_whenBookIsSparse() throws Exception {
+        //given
+        SparseBookDto book = new SparseBookDto(EnumSet.of(BookField.AVAILABLE, BookField.ID, BookField.TITLE),
+                4L, "Dune", null, null, false, null, null);
+
+        //when
+        String json = objectMapper.writeValueAsString(book);
+
+        //then
+        assertThat(json).isEqualTo("{\"id\":4,\"title\":\"Dune\",\"available\":false}");
+    }
+
+    @Test
+    void serialize_shouldWriteAllFields_whenBorrowerProvided() throws Exception {
+        //given
+        BorrowerDto borrower = new BorrowerDto(3L, "Ada Lovelace", "ada@example.com", "MAIN");
+
+        //when
+        String json = objectMapper.writeValueAsString(borrower);
+
+        //then
+        assertThat(json).isEqualTo("{\"id\":3,\"name\":\"Ada Lovelace\",\"email\":\"ada@example.com\",\"branch\":\"MAIN\"}");
+    }
+}
@@ -0,0 +1,152 @@
+package com.library.load;
+
+import com.library.LibraryManagementApplication;
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.service.BookService;
+import com.library.service.BorrowPipeline;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Compares borrow throughput and latency of the direct path, one transaction per borrow, with the group-commit
+ * pipeline at increasing concurrency. Each borrow takes a book nobody has borrowed yet, so every call commits a
+ * loan and the curves show commit cost rather than conflict handling.
+ *
+ * <p>An in-memory H2 database commits almost for free, so the pipeline can only lose there. Run it against
+ * PostgreSQL, where every commit waits for a WAL fsync, to see the difference:
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.library.load.BorrowPipelineBenchmark \
+ *     -Dbench.url=jdbc:postgresql://localhost:5432/library_db -Dbench.user=library_user -Dbench.password=library_pass \
+ *     -Dbench.concurrency=1,8,32,128 -Dbench.borrows=5000 -Dbench.window=2ms -Dbench.batch=64
+ * </pre>
+ */
+public class BorrowPipelineBenchmark {
+
+    private final String url = System.getProperty("bench.url", "jdbc:h2:mem:pipelinebench;DB_CLOSE_DELAY=-1");
+    private final String user = System.getProperty("bench.user", "sa");
+    private final String password = System.getProperty("bench.password", "");
+    private final int[] concurrency = Arrays.stream(System.getProperty("bench.concurrency", "1,8,32,128").split(","))
+            .mapToInt(Integer::parseInt).toArray();
+    private final int borrows = Integer.getInteger("bench.borrows", 5_000);
+    private final int borrowers = Integer.getInteger("bench.borrowers", 1_000);
+    private final String window = System.getProperty("bench.window", "2ms");
+    private final int batch = Integer.getInteger("bench.batch", 64);
+
+    public static void main(String[] args) throws Exception {
+        new BorrowPipelineBenchmark().run();
+    }
+
+    void run() throws Exception {
+        System.out.printf("%-10s %8s %10s %10s %10s %10s%n", "path", "threads", "borrows/s", "p50 ms", "p99 ms", "max ms");
+        measure("direct", false);
+        measure("pipeline", true);
+    }
+
+    private void measure(String path, boolean pipelined) throws Exception {
+        try (ConfigurableApplicationContext context = boot(pipelined)) {
+            BookService bookService = context.getBean(BookService.class);
+            BiConsumer<Long, Long> borrow = pipelined
+                    ? context.getBean(BorrowPipeline.class)::borrow
+                    : bookService::borrowBook;
+            List<Long> borrowerIds = seedBorrowers(context.getBean(BorrowerRepository.class));
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+
+            // Warm-up on a catalog of its own, then one fresh catalog per concurrency level
+            report(path, concurrency[concurrency.length - 1], seedBooks(bookRepository, borrows / 10), borrowerIds, borrow, false);
+            for (int threads : concurrency) {
+                report(path, threads, seedBooks(bookRepository, borrows), borrowerIds, borrow, true);
+            }
+        }
+    }
+
+    // Passed as command-line arguments because builder defaults rank below application.yml
+    private ConfigurableApplicationContext boot(boolean pipelined) {
+        return new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + user,
+                        "--spring.datasource.password=" + password,
+                        // Blank so the driver is derived from the URL instead of application.yml's PostgreSQL driver
+                        "--spring.datasource.driver-class-name=",
+                        "--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, concurrency[concurrency.length - 1]),
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.show-sql=false",
+                        "--library.sample-data.enabled=false",
+                        "--library.loans.max-active-per-borrower=1000000",
+                        "--library.profiling.continuous.enabled=false",
+                        "--library.borrow-pipeline.enabled=" + pipelined,
+                        "--library.borrow-pipeline.window=" + window,
+                        "--library.borrow-pipeline.max-batch-size=" + batch,
+                        "--logging.level.com.library=WARN",
+                        "--logging.level.org.springframework.web=WARN");
+    }
+
+    private List<Long> seedBorrowers(BorrowerRepository borrowerRepository) {
+        List<Long> borrowerIds = new ArrayList<>();
+        borrowerRepository.saveAll(IntStream.range(0, borrowers)
+                        .mapToObj(i -> new Borrower("Bench Borrower " + i, "pipeline" + i + "@example.com"))
+                        .toList())
+                .forEach(borrower -> borrowerIds.add(borrower.getId()));
+        return borrowerIds;
+    }
+
+    private List<Long> seedBooks(BookRepository bookRepository, int count) {
+        List<Long> bookIds = new ArrayList<>(count);
+        bookRepository.saveAll(IntStream.range(0, count)
+                        .mapToObj(i -> new Book("Bench Title " + i, "Bench Author " + (i % 500), null))
+                        .toList())
+                .forEach(book -> bookIds.add(book.getId()));
+        return bookIds;
+    }
+
+    private void report(String path, int threads, List<Long> bookIds, List<Long> borrowerIds,
+                        BiConsumer<Long, Long> borrow, boolean print) throws Exception {
+        long[] latencies = new long[bookIds.size()];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < bookIds.size(); i = next.getAndIncrement()) {
+                        long start = System.nanoTime();
+                        borrow.accept(bookIds.get(i), borrowerIds.get(i % borrowerIds.size()));
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        if (!print) {
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-10s %8d %10.0f %10.3f %10.3f %10.3f%n", path, threads, latencies.length / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,145 @@
+package com.library.load;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.library.config.SyntheticDataGenerator.branchCode;
+
+/**
+ * Measures a branch-scoped availability query while the number of branches (and therefore the total size of
+ * the table) grows. With LIST partitioning by branch the query is pruned to one partition, so latency should
+ * stay flat as branches are added; the plan line shows how many partitions were actually scanned.
+ *
+ * <p>Works on a scratch {@code bench_books} table that mirrors {@code db/postgres/books-partitioned-by-branch.sql}
+ * and is dropped afterwards.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.library.load.BranchQueryBenchmark \
+ *     -Dbench.branches=1,4,16,64 -Dbench.booksPerBranch=20000 -Dbench.iterations=2000
+ * </pre>
+ */
+public class BranchQueryBenchmark {
+
+    private static final String QUERY =
+            "SELECT id, title, author, isbn, available, borrowed_by, branch FROM bench_books WHERE branch = ? AND available";
+
+    private final String url = System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/library_db");
+    private final String user = System.getProperty("bench.user", "library_user");
+    private final String password = System.getProperty("bench.password", "library_pass");
+    private final int[] branchCounts = Arrays.stream(System.getProperty("bench.branches", "1,4,16,64").split(","))
+            .map(String::trim).mapToInt(Integer::parseInt).sorted().toArray();
+    private final int booksPerBranch = Integer.getInteger("bench.booksPerBranch", 20_000);
+    private final int iterations = Integer.getInteger("bench.iterations", 2_000);
+
+    public static void main(String[] args) throws Exception {
+        new BranchQueryBenchmark().run();
+    }
+
+    void run() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            createTable(connection);
+            try {
+                System.out.printf("%-9s %12s %10s %10s %10s  %s%n", "branches", "total rows", "rows/query", "mean ms", "p99 ms", "plan");
+                int branches = 0;
+                for (int target : branchCounts) {
+                    for (; branches < target; branches++) {
+                        addBranch(connection, branchCode(branches + 1));
+                    }
+                    analyze(connection);
+                    measure(connection, branches);
+                }
+            } finally {
+                execute(connection, "DROP TABLE IF EXISTS bench_books");
+            }
+        }
+    }
+
+    private void createTable(Connection connection) throws SQLException {
+        execute(connection, "DROP TABLE IF EXISTS bench_books");
+        execute(connection, """
+                CREATE TABLE bench_books (
+                    id          bigint GENERATED BY DEFAULT AS IDENTITY,
+                    title       varchar(255) NOT NULL,
+                    author      varchar(255) NOT NULL,
+                    isbn        varchar(255),
+                    available   boolean      NOT NULL,
+                    borrowed_by bigint,
+                    branch      varchar(32)  NOT NULL,
+                    PRIMARY KEY (id, branch),
+                    UNIQUE (branch, isbn)
+                ) PARTITION BY LIST (branch)""");
+        execute(connection, "CREATE INDEX ON bench_books (borrowed_by)");
+    }
+
+    private void addBranch(Connection connection, String branch) throws SQLException {
+        execute(connection, "CREATE TABLE bench_books_" + branch.toLowerCase()
+                + " PARTITION OF bench_books FOR VALUES IN ('" + branch + "')");
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO bench_books (title, author, isbn, available, borrowed_by, branch)
+                SELECT 'Title ' || n, 'Author ' || (n % 500), lpad(n::text, 13, '0'), n % 3 <> 0,
+                       CASE WHEN n % 3 = 0 THEN n % 1000 END, ?
+                FROM generate_series(1, ?) AS n""")) {
+            insert.setString(1, branch);
+            insert.setInt(2, booksPerBranch);
+            insert.executeUpdate();
+        }
+    }
+
+    private void measure(Connection connection, int branches) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[iterations];
+        long rows = 0;
+        try (PreparedStatement query = connection.prepareStatement(QUERY)) {
+            for (int i = -iterations / 10; i < iterations; i++) {
+                query.setString(1, branchCode(random.nextInt(branches) + 1));
+                long start = System.nanoTime();
+                try (ResultSet resultSet = query.executeQuery()) {
+                    while (resultSet.next()) {
+                        rows++;
+                    }
+                }
+                if (i >= 0) {
+                    latencies[i] = System.nanoTime() - start;
+                } else {
+                    rows = 0;
+                }
+            }
+        }
+        Arrays.sort(latencies);
+        double mean = Arrays.stream(latencies).average().orElse(0) / 1e6;
+        double p99 = latencies[Math.min(latencies.length - 1, (int) Math.ceil(latencies.length * 0.99) - 1)] / 1e6;
+        System.out.printf("%-9d %12d %10d %10.3f %10.3f  %s%n",
+                branches, (long) branches * booksPerBranch, rows / iterations, mean, p99, plan(connection));
+    }
+
+    private String plan(Connection connection) throws SQLException {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + QUERY)) {
+            explain.setString(1, branchCode(1));
+            int scans = 0;
+            try (ResultSet resultSet = explain.executeQuery()) {
+                while (resultSet.next()) {
+                    if (resultSet.getString(1).contains(" on bench_books_")) {
+                        scans++;
+                    }
+                }
+            }
+            return scans + " partition(s) scanned";
+        }
+    }
+
+    private void analyze(Connection connection) throws SQLException {
+        execute(connection, "ANALYZE bench_books");
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.library.load;
+
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.BookRepository;
+import com.library.repository.memory.InMemoryStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long durable in-memory storage takes to become ready: a catalog is written, checkpointed, followed
+ * by a tail of borrows in the write-ahead log, and then reopened from disk. Startup time is dominated by that
+ * reopen, so it is reported separately for the snapshot alone and for snapshot plus log.
+ *
+ * <pre>
+ * MAVEN_OPTS=-Xmx6g mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.library.load.InMemoryRecoveryBenchmark -Dbench.books=10000000 -Dbench.log=100000
+ * </pre>
+ */
+public class InMemoryRecoveryBenchmark {
+
+    private final int books = Integer.getInteger("bench.books", 1_000_000);
+    private final int borrowers = Integer.getInteger("bench.borrowers", Math.max(1, books / 20));
+    private final int logged = Integer.getInteger("bench.log", 100_000);
+    private final int batch = 10_000;
+
+    public static void main(String[] args) throws IOException {
+        new InMemoryRecoveryBenchmark().run();
+    }
+
+    void run() throws IOException {
+        Path directory = Files.createTempDirectory("library-recovery-bench");
+        try {
+            try (InMemoryStorage storage = InMemoryStorage.open(directory, false)) {
+                seed(storage);
+                storage.checkpoint();
+            }
+            report("snapshot", directory);
+
+            try (InMemoryStorage storage = InMemoryStorage.open(directory, false)) {
+                BookRepository bookRepository = storage.bookRepository();
+                for (int i = 0; i < logged; i++) {
+                    Book book = bookRepository.findById(1L + i % books).orElseThrow();
+                    book.setBorrowerId(book.getBorrowerId() == null ? 1L + i % borrowers : null);
+                    bookRepository.save(book);
+                }
+            }
+            report("snapshot+log", directory);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private void seed(InMemoryStorage storage) {
+        for (int from = 0; from < borrowers; from += batch) {
+            storage.borrowerRepository().saveAll(IntStream.range(from, Math.min(borrowers, from + batch))
+                    .mapToObj(i -> new Borrower("Bench Borrower " + i, "bench" + i + "@example.com"))
+                    .toList());
+        }
+        for (int from = 0; from < books; from += batch) {
+            List<Book> chunk = new ArrayList<>(batch);
+            for (int i = from; i < Math.min(books, from + batch); i++) {
+                Book book = new Book("Bench Title " + i, "Bench Author " + (i % 50_000), "BENCH-%09d".formatted(i));
+                book.setBranch("BRANCH-" + (i % 20));
+                if (i % 5 == 0) {
+                    book.setBorrowerId(1L + i / 5 % borrowers);
+                }
+                chunk.add(book);
+            }
+            storage.bookRepository().saveAll(chunk);
+        }
+    }
+
+    private void report(String contents, Path directory) throws IOException {
+        long bytes;
+        try (Stream<Path> files = Files.list(directory)) {
+            bytes = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+        System.gc();
+        long started = System.nanoTime();
+        try (InMemoryStorage storage = InMemoryStorage.open(directory, false)) {
+            double seconds = (System.nanoTime() - started) / 1e9;
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            System.out.printf("%-14s %,12d books %,8d MB on disk %8.2f s to open %,8d MB heap%n", contents,
+                    storage.bookRepository().count(), bytes >> 20, seconds,
+                    (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.library.load;
+
+import com.library.LibraryManagementApplication;
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.service.BookService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the same workload against the JPA repositories and against the {@code in-memory} profile. Both are booted
+ * in-process and driven through the service and repository layer, so the numbers compare the storage backends
+ * rather than HTTP handling.
+ *
+ * <p>The JPA side defaults to an in-memory H2 database, which is the kindest case for it; point it at PostgreSQL
+ * to compare against the real deployment.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.library.load.InMemoryStorageBenchmark \
+ *     -Dbench.url=jdbc:postgresql://localhost:5432/library_db -Dbench.user=library_user -Dbench.password=library_pass \
+ *     -Dbench.books=5000 -Dbench.borrowers=1000 -Dbench.iterations=20000
+ * </pre>
+ */
+public class InMemoryStorageBenchmark {
+
+    private final String url = System.getProperty("bench.url", "jdbc:h2:mem:memorybench;DB_CLOSE_DELAY=-1");
+    private final String user = System.getProperty("bench.user", "sa");
+    private final String password = System.getProperty("bench.password", "");
+    private final int books = Integer.getInteger("bench.books", 5_000);
+    private final int borrowers = Integer.getInteger("bench.borrowers", 1_000);
+    private final int iterations = Integer.getInteger("bench.iterations", 20_000);
+
+    public static void main(String[] args) throws IOException {
+        new InMemoryStorageBenchmark().run();
+    }
+
+    void run() throws IOException {
+        System.out.printf("%-10s %-18s %10s %10s %10s%n", "backend", "operation", "ops/s", "mean ms", "p99 ms");
+        measure("jpa");
+        measure("in-memory");
+    }
+
+    private void measure(String backend) throws IOException {
+        try (ConfigurableApplicationContext context = boot(backend)) {
+            BookService bookService = context.getBean(BookService.class);
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            BorrowerRepository borrowerRepository = context.getBean(BorrowerRepository.class);
+            List<Long> availableBookIds = new ArrayList<>();
+            List<Long> borrowerIds = new ArrayList<>();
+            List<String> isbns = new ArrayList<>();
+            seed(bookRepository, borrowerRepository, availableBookIds, borrowerIds, isbns);
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            report(backend, "borrow+return", i -> {
+                Long bookId = availableBookIds.get(random.nextInt(availableBookIds.size()));
+                bookService.borrowBook(bookId, borrowerIds.get(random.nextInt(borrowerIds.size())));
+                bookService.returnBook(bookId);
+            });
+            report(backend, "findByBorrowerId", i -> bookRepository.findByBorrowerId(borrowerIds.get(random.nextInt(borrowerIds.size()))));
+            report(backend, "findByIsbn", i -> bookRepository.findByIsbn(isbns.get(random.nextInt(isbns.size()))));
+            report(backend, "countByAvailable", i -> bookRepository.countByAvailable(random.nextBoolean()));
+            report(backend, "existsByEmail", i -> borrowerRepository.existsByEmail("bench" + random.nextInt(borrowers) + "@example.com"));
+        }
+    }
+
+    // Passed as command-line arguments because builder defaults rank below application.yml
+    private ConfigurableApplicationContext boot(String backend) throws IOException {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE);
+        if (!"jpa".equals(backend)) {
+            builder.profiles(backend);
+        }
+        return builder.run(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + user,
+                "--spring.datasource.password=" + password,
+                // Blank so the driver is derived from the URL instead of application.yml's PostgreSQL driver
+                "--spring.datasource.driver-class-name=",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--library.sample-data.enabled=false",
+                "--library.loans.max-active-per-borrower=1000",
+                "--library.in-memory.directory=" + Files.createTempDirectory("library-bench"),
+                "--logging.level.com.library=WARN",
+                "--logging.level.org.springframework.web=WARN");
+    }
+
+    private void seed(BookRepository bookRepository, BorrowerRepository borrowerRepository,
+                      List<Long> availableBookIds, List<Long> borrowerIds, List<String> isbns) {
+        borrowerRepository.saveAll(IntStream.range(0, borrowers)
+                        .mapToObj(i -> new Borrower("Bench Borrower " + i, "bench" + i + "@example.com"))
+                        .toList())
+                .forEach(borrower -> borrowerIds.add(borrower.getId()));
+        List<Book> catalog = IntStream.range(0, books)
+                .mapToObj(i -> new Book("Bench Title " + i, "Bench Author " + (i % 500), "BENCH-%07d".formatted(i)))
+                .toList();
+        // A fifth of the catalog starts out on loan so findByBorrowerId has something to return
+        for (int i = 0; i < catalog.size(); i += 5) {
+            catalog.get(i).setBorrowerId(borrowerIds.get(i / 5 % borrowerIds.size()));
+        }
+        bookRepository.saveAll(catalog).forEach(book -> {
+            if (book.getAvailable()) {
+                availableBookIds.add(book.getId());
+            }
+            isbns.add(book.getIsbn());
+        });
+    }
+
+    private void report(String backend, String operation, LongConsumer call) {
+        for (int i = 0; i < iterations / 10; i++) {
+            call.accept(i);
+        }
+        long[] latencies = new long[iterations];
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            call.accept(i);
+            latencies[i] = System.nanoTime() - start;
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Arrays.sort(latencies);
+        double mean = Arrays.stream(latencies).average().orElse(0) / 1e6;
+        double p99 = latencies[Math.min(latencies.length - 1, (int) Math.ceil(latencies.length * 0.99) - 1)] / 1e6;
+        System.out.printf("%-10s %-18s %10.0f %10.3f %10.3f%n", backend, operation, iterations / seconds, mean, p99);
+    }
+}
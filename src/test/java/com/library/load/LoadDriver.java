@@ -0,0 +1,184 @@
+package com.library.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load driver that replays a borrow/list/lookup mix against a running instance and prints
+ * throughput and latency percentiles per operation.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.library.load.LoadDriver \
+ *     -Dload.duration=60 -Dload.concurrency=64 -Dload.mix=borrow=10,list=5,lookup=60,loans=25
+ * </pre>
+ */
+public class LoadDriver {
+
+    enum Operation { BORROW, LIST, LOOKUP, LOANS }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl = System.getProperty("load.baseUrl", "http://localhost:8080/api");
+    private final Duration duration = Duration.ofSeconds(Long.getLong("load.duration", 60));
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup", 10));
+    private final int concurrency = Integer.getInteger("load.concurrency", 64);
+    private final long maxBookId = Long.getLong("load.books", 1_000);
+    private final long maxBorrowerId = Long.getLong("load.borrowers", 100);
+    private final Map<Operation, Integer> mix = parseMix(System.getProperty("load.mix", "borrow=10,list=5,lookup=60,loans=25"));
+
+    public static void main(String[] args) throws Exception {
+        new LoadDriver().run();
+    }
+
+    void run() throws Exception {
+        System.out.printf("Driving %s with %d workers for %ds (warm-up %ds), mix %s%n",
+                baseUrl, concurrency, duration.toSeconds(), warmup.toSeconds(), mix);
+        runPhase(warmup);
+        Map<Operation, Samples> results = runPhase(duration);
+        report(results);
+    }
+
+    private Map<Operation, Samples> runPhase(Duration phase) throws Exception {
+        long deadline = System.nanoTime() + phase.toNanos();
+        List<Future<Map<Operation, Samples>>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> work(deadline)));
+            }
+        }
+        Map<Operation, Samples> merged = new EnumMap<>(Operation.class);
+        for (Future<Map<Operation, Samples>> worker : workers) {
+            worker.get().forEach((operation, samples) ->
+                    merged.computeIfAbsent(operation, ignored -> new Samples()).addAll(samples));
+        }
+        return merged;
+    }
+
+    private Map<Operation, Samples> work(long deadline) {
+        Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(random.nextInt(totalWeight));
+            HttpRequest request = requestFor(operation, random);
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (Exception e) {
+                status = -1;
+            }
+            samples.computeIfAbsent(operation, ignored -> new Samples()).add(System.nanoTime() - start, status);
+        }
+        return samples;
+    }
+
+    private Operation pick(int roll) {
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty operation mix");
+    }
+
+    private HttpRequest requestFor(Operation operation, ThreadLocalRandom random) {
+        long bookId = random.nextLong(1, maxBookId + 1);
+        long borrowerId = random.nextLong(1, maxBorrowerId + 1);
+        return switch (operation) {
+            case BORROW -> HttpRequest.newBuilder(URI.create(baseUrl + "/books/" + bookId + "/borrow/" + borrowerId))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+            case LIST -> HttpRequest.newBuilder(URI.create(baseUrl + "/books")).GET().build();
+            case LOOKUP -> HttpRequest.newBuilder(URI.create(baseUrl + "/borrowers/" + borrowerId)).GET().build();
+            case LOANS -> HttpRequest.newBuilder(URI.create(baseUrl + "/borrowers/" + borrowerId + "/books")).GET().build();
+        };
+    }
+
+    private void report(Map<Operation, Samples> results) {
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%-8s %10s %10s %9s %9s %9s %9s %9s %s%n",
+                "op", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "status codes");
+        long total = 0;
+        for (Map.Entry<Operation, Samples> entry : results.entrySet()) {
+            Samples samples = entry.getValue();
+            long[] sorted = samples.sortedLatencies();
+            total += sorted.length;
+            System.out.printf("%-8s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %s%n",
+                    entry.getKey().name().toLowerCase(), sorted.length, sorted.length / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0), samples.statusCounts());
+        }
+        System.out.printf("total    %10d %10.1f%n", total, total / seconds);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        return weights;
+    }
+
+    static final class Samples {
+
+        private long[] latencies = new long[1024];
+        private int size;
+        private final Map<Integer, Integer> statuses = new TreeMap<>();
+
+        void add(long latencyNanos, int status) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+            statuses.merge(status, 1, Integer::sum);
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                if (size == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, size * 2);
+                }
+                latencies[size++] = other.latencies[i];
+            }
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Integer::sum));
+        }
+
+        long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        Map<Integer, Integer> statusCounts() {
+            return statuses;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.library.load;
+
+import com.library.LibraryManagementApplication;
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.service.BookService;
+import com.library.service.BorrowerService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Compares borrow/return and lookup latency with and without the {@code l2-cache} profile. The application is
+ * booted in-process twice against the same database, reseeded each time, and driven through the service layer
+ * so the numbers show what the second-level cache saves per call rather than HTTP overhead.
+ *
+ * <p>Defaults to an in-memory H2 database, which understates the gain because every miss is already cheap;
+ * point it at PostgreSQL for realistic numbers.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.library.load.SecondLevelCacheBenchmark \
+ *     -Dbench.url=jdbc:postgresql://localhost:5432/library_db -Dbench.user=library_user -Dbench.password=library_pass \
+ *     -Dbench.books=5000 -Dbench.borrowers=1000 -Dbench.iterations=20000
+ * </pre>
+ */
+public class SecondLevelCacheBenchmark {
+
+    private final String url = System.getProperty("bench.url", "jdbc:h2:mem:l2bench;DB_CLOSE_DELAY=-1");
+    private final String user = System.getProperty("bench.user", "sa");
+    private final String password = System.getProperty("bench.password", "");
+    private final int books = Integer.getInteger("bench.books", 5_000);
+    private final int borrowers = Integer.getInteger("bench.borrowers", 1_000);
+    private final int iterations = Integer.getInteger("bench.iterations", 20_000);
+
+    public static void main(String[] args) {
+        new SecondLevelCacheBenchmark().run();
+    }
+
+    void run() {
+        System.out.printf("%-10s %-16s %10s %10s %10s%n", "cache", "operation", "ops/s", "mean ms", "p99 ms");
+        measure("off");
+        measure("l2-cache");
+    }
+
+    private void measure(String profile) {
+        try (ConfigurableApplicationContext context = boot(profile)) {
+            BookService bookService = context.getBean(BookService.class);
+            BorrowerService borrowerService = context.getBean(BorrowerService.class);
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            List<Long> bookIds = new ArrayList<>();
+            List<Long> borrowerIds = new ArrayList<>();
+            List<String> isbns = new ArrayList<>();
+            seed(context, bookIds, borrowerIds, isbns);
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            report(profile, "borrow+return", i -> {
+                Long bookId = bookIds.get(random.nextInt(bookIds.size()));
+                bookService.borrowBook(bookId, borrowerIds.get(random.nextInt(borrowerIds.size())));
+                bookService.returnBook(bookId);
+            });
+            report(profile, "borrower lookup", i -> borrowerService.getBorrower(borrowerIds.get(random.nextInt(borrowerIds.size()))));
+            report(profile, "isbn lookup", i -> bookRepository.findByIsbn(isbns.get(random.nextInt(isbns.size()))));
+        }
+    }
+
+    // Passed as command-line arguments because builder defaults rank below application.yml
+    private ConfigurableApplicationContext boot(String profile) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .web(WebApplicationType.NONE);
+        if (!"off".equals(profile)) {
+            builder.profiles(profile);
+        }
+        return builder.run(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + user,
+                "--spring.datasource.password=" + password,
+                // Blank so the driver is derived from the URL instead of application.yml's PostgreSQL driver
+                "--spring.datasource.driver-class-name=",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--library.sample-data.enabled=false",
+                "--library.loans.max-active-per-borrower=1000",
+                "--logging.level.com.library=WARN",
+                "--logging.level.org.springframework.web=WARN");
+    }
+
+    private void seed(ConfigurableApplicationContext context, List<Long> bookIds, List<Long> borrowerIds, List<String> isbns) {
+        BorrowerRepository borrowerRepository = context.getBean(BorrowerRepository.class);
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        borrowerRepository.saveAll(IntStream.range(0, borrowers)
+                        .mapToObj(i -> new Borrower("Bench Borrower " + i, "bench" + i + "@example.com"))
+                        .toList())
+                .forEach(borrower -> borrowerIds.add(borrower.getId()));
+        bookRepository.saveAll(IntStream.range(0, books)
+                        .mapToObj(i -> new Book("Bench Title " + i, "Bench Author " + (i % 500), "BENCH-%07d".formatted(i)))
+                        .toList())
+                .forEach(book -> {
+                    bookIds.add(book.getId());
+                    isbns.add(book.getIsbn());
+                });
+    }
+
+    private void report(String profile, String operation, LongConsumer call) {
+        for (int i = 0; i < iterations / 10; i++) {
+            call.accept(i);
+        }
+        long[] latencies = new long[iterations];
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            call.accept(i);
+            latencies[i] = System.nanoTime() - start;
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Arrays.sort(latencies);
+        double mean = Arrays.stream(latencies).average().orElse(0) / 1e6;
+        double p99 = latencies[Math.min(latencies.length - 1, (int) Math.ceil(latencies.length * 0.99) - 1)] / 1e6;
+        System.out.printf("%-10s %-16s %10.0f %10.3f %10.3f%n", profile, operation, iterations / seconds, mean, p99);
+    }
+}
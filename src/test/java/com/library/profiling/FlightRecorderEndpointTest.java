@@ -0,0 +1,121 @@
+package com.library.profiling;
+
+import com.library.config.ProfilingProperties;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlightRecorderEndpointTest {
+
+    @TempDir
+    Path directory;
+
+    private ProfilingProperties properties;
+    private FlightRecorderEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProfilingProperties();
+        properties.getContinuous().setEventThreshold(Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.close();
+    }
+
+    @Test
+    void dump_shouldReturnTheLastMinutesOfTheContinuousRecording() throws Exception {
+        //given
+        endpoint = new FlightRecorderEndpoint(properties);
+        new BorrowEvent(3L, 7L).complete("borrowed");
+        repository().get();
+
+        //when
+        long id = endpoint.recordings().get(0).id();
+        WebEndpointResponse<Resource> response = endpoint.dump(id, Duration.ofMinutes(5));
+
+        //then
+        assertThat(endpoint.recordings()).extracting(RecordingDescriptor::name)
+                .containsExactly(FlightRecorderEndpoint.CONTINUOUS);
+        List<RecordedEvent> events = read(response.getBody());
+        RecordedEvent borrow = events.stream()
+                .filter(event -> event.getEventType().getName().equals(BorrowEvent.NAME))
+                .findFirst().orElseThrow();
+        assertThat(borrow.getLong("bookId")).isEqualTo(3);
+        assertThat(borrow.getString("outcome")).isEqualTo("borrowed");
+        assertThat(events).anyMatch(event -> event.getEventType().getName().equals(RepositoryCallEvent.NAME)
+                && "Supplier".equals(event.getString("repository"))
+                && "get".equals(event.getString("method")));
+    }
+
+    @Test
+    void start_shouldRecordUntilStoppedAndKeepTheRecordingUntilDeleted() throws Exception {
+        //given
+        properties.getContinuous().setEnabled(false);
+        endpoint = new FlightRecorderEndpoint(properties);
+
+        //when
+        RecordingDescriptor started = endpoint.start(Duration.ofMinutes(1), null);
+        new BorrowEvent(4L, 8L).complete("BookAlreadyBorrowedException");
+        RecordingDescriptor stopped = endpoint.stop(started.id()).getBody();
+
+        //then
+        assertThat(started.state()).isEqualTo("RUNNING");
+        assertThat(started.duration()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(stopped.state()).isEqualTo("STOPPED");
+        assertThat(read(endpoint.dump(started.id(), null).getBody()))
+                .anyMatch(event -> event.getEventType().getName().equals(BorrowEvent.NAME)
+                        && "BookAlreadyBorrowedException".equals(event.getString("outcome")));
+        assertThat(endpoint.delete(started.id()).getStatus()).isEqualTo(WebEndpointResponse.STATUS_NO_CONTENT);
+        assertThat(endpoint.recordings()).isEmpty();
+        assertThat(endpoint.dump(started.id(), null).getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Test
+    void start_shouldRejectRecordingsThatAreNotTimeBoxed() {
+        //given
+        properties.getContinuous().setEnabled(false);
+        endpoint = new FlightRecorderEndpoint(properties);
+
+        //when & then
+        assertThatThrownBy(() -> endpoint.start(Duration.ofHours(1), null))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+        assertThatThrownBy(() -> endpoint.start(null, "everything"))
+                .isInstanceOf(InvalidEndpointRequestException.class);
+        assertThat(endpoint.recordings()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<String> repository() {
+        ProxyFactory proxyFactory = new ProxyFactory((Supplier<String>) () -> "book");
+        proxyFactory.addInterface(Supplier.class);
+        proxyFactory.addAdvice(new RepositoryCallInterceptor(Supplier.class));
+        return (Supplier<String>) proxyFactory.getProxy();
+    }
+
+    private List<RecordedEvent> read(Resource resource) throws Exception {
+        Path file = directory.resolve("dump.jfr");
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+}
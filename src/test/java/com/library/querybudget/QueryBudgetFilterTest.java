@@ -0,0 +1,99 @@
+package com.library.querybudget;
+
+import com.library.config.QueryBudgetProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryBudgetFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcTemplate jdbcTemplate;
+    private QueryBudgetFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:query-budget;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(new QueryCountingDataSource(h2));
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS loans (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("MERGE INTO loans KEY (id) VALUES (1), (2), (3)");
+
+        QueryBudgetProperties.Budget budget = new QueryBudgetProperties.Budget();
+        budget.setEndpoint("GET /api/borrowers/{id}/books");
+        budget.setMaxStatements(1);
+        QueryBudgetProperties properties = new QueryBudgetProperties();
+        properties.setEnforce(true);
+        properties.setBudgets(List.of(budget));
+        filter = new QueryBudgetFilter(properties, meterRegistry, ObservationRegistry.NOOP);
+    }
+
+    @Test
+    void doFilter_shouldRecordStatementsAndRows_whenRequestStaysWithinBudget() throws Exception {
+        //when
+        filter.doFilter(borrowedBooksRequest(), new MockHttpServletResponse(), controller(1));
+
+        //then
+        assertThat(meterRegistry.get("library.request.statements").tag("uri", "/api/borrowers/{id}/books")
+                .summary().totalAmount()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.request.rows").tag("uri", "/api/borrowers/{id}/books")
+                .summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void doFilter_shouldFailTheStatementOverBudget_whenLoansAreQueriedOnePerRow() {
+        //when & then
+        assertThatThrownBy(() -> filter.doFilter(borrowedBooksRequest(), new MockHttpServletResponse(), controller(3)))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessage("GET /api/borrowers/{id}/books ran more than its budget of 1 statements");
+        assertThat(meterRegistry.get("library.request.statements").summary().max()).isEqualTo(2);
+    }
+
+    @Test
+    void getConnection_shouldNotCount_whenNoRequestIsActive() {
+        //when
+        Integer loans = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loans", Integer.class);
+
+        //then
+        assertThat(loans).isEqualTo(3);
+        assertThat(QueryCounter.current()).isNull();
+    }
+
+    private static MockHttpServletRequest borrowedBooksRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/borrowers/7/books");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/borrowers/{id}/books");
+        return request;
+    }
+
+    // Reads every loan, with the whole table in one query or, like an N+1 regression, one query per loan
+    private MockFilterChain controller(int queries) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                if (queries == 1) {
+                    jdbcTemplate.queryForList("SELECT id FROM loans", Long.class);
+                } else {
+                    for (long id = 1; id <= queries; id++) {
+                        jdbcTemplate.queryForList("SELECT id FROM loans WHERE id = ?", Long.class, id);
+                    }
+                }
+            }
+        });
+    }
+}
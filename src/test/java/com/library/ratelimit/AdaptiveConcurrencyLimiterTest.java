@@ -0,0 +1,79 @@
+package com.library.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void tryAcquire_shouldRejectBeyondLimit_whenAllPermitsInFlight() {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, TARGET);
+
+        //when
+        boolean first = limiter.tryAcquire();
+        boolean second = limiter.tryAcquire();
+        boolean third = limiter.tryAcquire();
+
+        //then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void release_shouldShrinkLimit_whenLatencyExceedsTarget() {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 50, TARGET);
+
+        //when
+        long now = 0;
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(now, now + TARGET * 2);
+            now += TARGET * 2;
+        }
+
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void release_shouldShrinkLimitOnce_whenConcurrentRequestsAreSlowInOneSpike() {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 50, TARGET);
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+        }
+
+        //when
+        for (int i = 0; i < 20; i++) {
+            limiter.release(0, TARGET * 2 + i);
+        }
+
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(18);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void release_shouldGrowLimit_whenFastRequestsUseTheLimit() {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 3, TARGET);
+
+        //when
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.release(0, TARGET / 2);
+        limiter.release(0, TARGET / 2);
+
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,110 @@
+package com.library.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.library.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new RateLimitProperties();
+        properties.setPerClient(new RateLimitProperties.Bucket(1, 2));
+    }
+
+    @Test
+    void doFilter_shouldReturn429WithRetryAfter_whenClientExceedsWriteBurst() throws Exception {
+        //given
+        RateLimitFilter filter = new RateLimitFilter(properties, objectMapper(), meterRegistry);
+        filter.doFilter(borrowRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(borrowRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+
+        //when
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(borrowRequest("10.0.0.1"), rejected, chain);
+
+        //then
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejected.getContentAsString()).contains("Too Many Requests");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(meterRegistry.get("library.requests.shed.total").tag("reason", "client_rate").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void doFilter_shouldKeepClientsIndependent_whenOneClientIsThrottled() throws Exception {
+        //given
+        RateLimitFilter filter = new RateLimitFilter(properties, objectMapper(), meterRegistry);
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(borrowRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        //when
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(borrowRequest("10.0.0.2"), response, new MockFilterChain());
+
+        //then
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_shouldKeepClientTokens_whenGlobalBucketRejects() throws Exception {
+        //given
+        properties.setGlobal(new RateLimitProperties.Bucket(0.001, 1));
+        RateLimitFilter filter = new RateLimitFilter(properties, objectMapper(), meterRegistry);
+        filter.doFilter(borrowRequest("10.0.0.2"), new MockHttpServletResponse(), new MockFilterChain());
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(borrowRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        //then
+        assertThat(meterRegistry.get("library.requests.shed.total").tag("reason", "global_rate").counter().count())
+                .isEqualTo(3);
+        assertThat(meterRegistry.get("library.requests.shed.total").tag("reason", "client_rate").counter().count())
+                .isZero();
+    }
+
+    @Test
+    void doFilter_shouldNotRateLimitReads_whenClientExceedsWriteBurst() throws Exception {
+        //given
+        RateLimitFilter filter = new RateLimitFilter(properties, objectMapper(), meterRegistry);
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(borrowRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        }
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/books");
+        read.setRemoteAddr("10.0.0.1");
+
+        //when
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(read, response, new MockFilterChain());
+
+        //then
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletRequest borrowRequest(String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/books/1/borrow/2");
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+
+    private ObjectMapper objectMapper() {
+        return new ObjectMapper().registerModule(new JavaTimeModule());
+    }
+}
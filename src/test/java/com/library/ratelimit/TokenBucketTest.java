@@ -0,0 +1,46 @@
+package com.library.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryAcquire_shouldAllowBurstThenReject_whenRequestsArriveAtOnce() {
+        //given
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        //when
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (bucket.tryAcquire(0) == 0) {
+                admitted++;
+            }
+        }
+
+        //then
+        assertThat(admitted).isEqualTo(5);
+        assertThat(bucket.tryAcquire(0)).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void tryAcquire_shouldRefillAtConfiguredRate_whenTimePasses() {
+        //given
+        TokenBucket bucket = new TokenBucket(10, 1, 0);
+        bucket.tryAcquire(0);
+
+        //when
+        long tooEarly = bucket.tryAcquire(SECOND / 20);
+        long onTime = bucket.tryAcquire(SECOND / 10);
+
+        //then
+        assertThat(tooEarly).isEqualTo(SECOND / 20);
+        assertThat(onTime).isZero();
+        assertThat(bucket.isFull(SECOND)).isTrue();
+    }
+}
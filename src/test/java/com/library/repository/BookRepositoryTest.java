@@ -1,15 +1,21 @@
 package com.library.repository;
 
+import com.library.dto.BookField;
+import com.library.dto.SparseBookDto;
 import com.library.entity.Book;
+import com.library.repository.BookUpsertRepository.UpsertCounts;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 @ActiveProfiles("test")
@@ -18,6 +24,9 @@ class BookRepositoryTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void findByAvailable_shouldReturnAvailableBooks_whenAvailableIsTrue() {
         //given
@@ -107,4 +116,190 @@ class BookRepositoryTest {
         assertThat(availableCount).isEqualTo(2);
         assertThat(borrowedCount).isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByBranchAndAvailable_shouldOnlyReturnBooksOfBranch_whenBranchProvided() {
+        //given
+        Book northBook = new Book("North Book", "Author", "1111111111");
+        northBook.setBranch("NORTH");
+        Book northBorrowed = new Book("North Borrowed", "Author", "2222222222");
+        northBorrowed.setBranch("NORTH");
+        northBorrowed.setBorrowerId(1L);
+        Book southBook = new Book("South Book", "Author", "3333333333");
+        southBook.setBranch("SOUTH");
+        
+        bookRepository.saveAll(List.of(northBook, northBorrowed, southBook));
+        
+        //when
+        List<Book> availableInNorth = bookRepository.findByBranchAndAvailable("NORTH", true);
+        List<Book> borrowedInNorth = bookRepository.findByBranchAndBorrowerId("NORTH", 1L);
+        List<Book> borrowedInSouth = bookRepository.findByBranchAndBorrowerId("SOUTH", 1L);
+        
+        //then
+        assertThat(availableInNorth).extracting(Book::getTitle).containsExactly("North Book");
+        assertThat(borrowedInNorth).extracting(Book::getTitle).containsExactly("North Borrowed");
+        assertThat(borrowedInSouth).isEmpty();
+        assertThat(bookRepository.countByBranchAndAvailable("SOUTH", true)).isEqualTo(1);
+    }
+
+    @Test
+    void save_shouldAllowSameIsbnInDifferentBranches_whenBranchesDiffer() {
+        //given
+        Book mainCopy = new Book("Shared Title", "Author", "9780000000002");
+        Book northCopy = new Book("Shared Title", "Author", "9780000000002");
+        northCopy.setBranch("NORTH");
+        
+        //when
+        bookRepository.saveAllAndFlush(List.of(mainCopy, northCopy));
+        
+        //then
+        assertThat(mainCopy.getBranch()).isEqualTo(Book.DEFAULT_BRANCH);
+        assertThat(bookRepository.findByBranch("NORTH")).hasSize(1);
+        assertThat(bookRepository.findByBranch(Book.DEFAULT_BRANCH)).hasSize(1);
+    }
+
+    @Test
+    void upsertByIsbn_shouldInsertNewIsbnsAndUpdateKnownOnes_whenLoanStateMustBeKept() {
+        //given
+        Book borrowed = new Book("Old Title", "Author", "9780000000003");
+        borrowed.setBorrowerId(7L);
+        Book unchanged = new Book("Same Title", "Author", "9780000000004");
+        bookRepository.saveAllAndFlush(List.of(borrowed, unchanged));
+        entityManager.clear();
+        
+        Book renamed = new Book("New Title", "Author", "9780000000003");
+        Book same = new Book("Same Title", "Author", "9780000000004");
+        Book added = new Book("Added Title", "Author", "9780000000005");
+        added.setBranch("NORTH");
+        
+        //when
+        UpsertCounts counts = bookRepository.upsertByIsbn(List.of(renamed, same, added));
+        
+        //then
+        assertThat(counts).isEqualTo(new UpsertCounts(1, 1));
+        Book updated = bookRepository.findById(borrowed.getId()).orElseThrow();
+        assertThat(updated.getTitle()).isEqualTo("New Title");
+        assertThat(updated.getBorrowerId()).isEqualTo(7L);
+        assertThat(updated.getAvailable()).isFalse();
+        assertThat(bookRepository.findByBranch("NORTH")).singleElement()
+                .satisfies(book -> {
+                    assertThat(book.getIsbn()).isEqualTo("9780000000005");
+                    assertThat(book.getAvailable()).isTrue();
+                });
+        assertThat(bookRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void findFields_shouldReadOnlySelectedColumns_whenBranchAndAvailabilityAreGiven() {
+        //given
+        Book available = new Book("North Book", "Author", "1111111111");
+        available.setBranch("NORTH");
+        Book borrowed = new Book("Borrowed North Book", "Author", "2222222222");
+        borrowed.setBranch("NORTH");
+        borrowed.setBorrowerId(4L);
+        entityManager.persist(available);
+        entityManager.persist(borrowed);
+        entityManager.persist(new Book("Main Book", "Author", "3333333333"));
+        entityManager.flush();
+        entityManager.clear();
+
+        //when
+        List<SparseBookDto> books = bookRepository.findFields(EnumSet.of(BookField.ID, BookField.TITLE, BookField.AVAILABLE),
+                "NORTH", true);
+
+        //then
+        assertThat(books).singleElement().satisfies(book -> {
+            assertThat(book.id()).isEqualTo(available.getId());
+            assertThat(book.title()).isEqualTo("North Book");
+            assertThat(book.available()).isTrue();
+            assertThat(book.author()).isNull();
+            assertThat(book.branch()).isNull();
+        });
+        assertThat(bookRepository.findFields(EnumSet.of(BookField.BORROWER_ID), null, null))
+                .extracting(SparseBookDto::borrowerId).containsExactlyInAnyOrder(null, 4L, null);
+    }
+
+    @Test
+    void findFieldsAndFindByAvailable_shouldDeriveAvailabilityFromBorrower_whenStoredFlagHasDrifted() {
+        //given
+        Book borrowed = new Book("Borrowed North Book", "Author", "2222222222");
+        borrowed.setBranch("NORTH");
+        borrowed.setBorrowerId(4L);
+        entityManager.persist(borrowed);
+        Book available = entityManager.persist(new Book("Main Book", "Author", "3333333333"));
+        entityManager.flush();
+        // A drifted flag, as the nightly reconciliation would find it
+        entityManager.getEntityManager().createNativeQuery("UPDATE books SET available = TRUE WHERE id = :id")
+                .setParameter("id", borrowed.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        //when
+        List<SparseBookDto> books = bookRepository.findFields(EnumSet.of(BookField.ID, BookField.AVAILABLE), null, true);
+
+        //then
+        assertThat(books).singleElement()
+                .extracting(SparseBookDto::id, SparseBookDto::available)
+                .containsExactly(available.getId(), true);
+        // The full list agrees with the sparse view
+        assertThat(bookRepository.findByAvailable(true)).extracting(Book::getId).containsExactly(available.getId());
+        assertThat(bookRepository.findByBranchAndAvailable("NORTH", false)).extracting(Book::getId).containsExactly(borrowed.getId());
+        assertThat(bookRepository.findFields(EnumSet.of(BookField.ID, BookField.AVAILABLE), null, null))
+                .extracting(SparseBookDto::id, SparseBookDto::available)
+                .containsExactlyInAnyOrder(tuple(borrowed.getId(), false), tuple(available.getId(), true));
+    }
+
+    @Test
+    void assignBorrower_shouldOnlyLendAnAvailableBook_whenTwoBorrowsRace() {
+        //given
+        Book book = entityManager.persistFlushFind(new Book("Dune", "Frank Herbert", "9780441013593"));
+
+        //when
+        int first = bookRepository.assignBorrower(book.getId(), 2L);
+        int second = bookRepository.assignBorrower(book.getId(), 3L);
+        entityManager.clear();
+
+        //then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        Book stored = bookRepository.findById(book.getId()).orElseThrow();
+        assertThat(stored.getBorrowerId()).isEqualTo(2L);
+        assertThat(stored.getAvailable()).isFalse();
+    }
+
+    @Test
+    void releaseBorrower_shouldOnlyReturnTheLoanItRead_whenTwoReturnsRace() {
+        //given
+        Book book = new Book("Dune", "Frank Herbert", "9780441013593");
+        book.setBorrowerId(2L);
+        Long bookId = entityManager.persistAndFlush(book).getId();
+
+        //when
+        int first = bookRepository.releaseBorrower(bookId, 2L);
+        int second = bookRepository.releaseBorrower(bookId, 2L);
+        entityManager.clear();
+
+        //then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isZero();
+        assertThat(bookRepository.findById(bookId).orElseThrow().getAvailable()).isTrue();
+    }
+
+    @Test
+    void save_shouldNotWriteLoanColumns_whenAManagedBookChanges() {
+        //given
+        Book book = entityManager.persistFlushFind(new Book("Dune", "Frank Herbert", "9780441013593"));
+        bookRepository.assignBorrower(book.getId(), 2L);
+
+        //when
+        book.setBorrowerId(3L);
+        book.setTitle("Dune Messiah");
+        entityManager.flush();
+        entityManager.clear();
+
+        //then
+        Book stored = bookRepository.findById(book.getId()).orElseThrow();
+        assertThat(stored.getTitle()).isEqualTo("Dune Messiah");
+        assertThat(stored.getBorrowerId()).isEqualTo(2L);
+    }
+}
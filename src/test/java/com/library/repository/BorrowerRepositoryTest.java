@@ -1,11 +1,19 @@
 package com.library.repository;
 
+import com.library.entity.Book;
 import com.library.entity.Borrower;
+import com.library.service.BorrowerSort;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -17,6 +25,9 @@ class BorrowerRepositoryTest {
     @Autowired
     private BorrowerRepository borrowerRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void findByEmail_shouldReturnBorrower_whenEmailExists() {
         //given
@@ -88,4 +99,101 @@ class BorrowerRepositoryTest {
         assertThat(foundBorrower).isPresent();
         assertThat(foundBorrower.get().getName()).isEqualTo("New User");
     }
-}
\ No newline at end of file
+
+    @Test
+    void incrementActiveLoans_shouldStopAtLimit_whenBorrowerReachesMaxActiveLoans() {
+        //given
+        Borrower borrower = borrowerRepository.save(new Borrower("Busy Reader", "busy@example.com"));
+        
+        //when
+        int first = borrowerRepository.incrementActiveLoans(borrower.getId(), 2);
+        int second = borrowerRepository.incrementActiveLoans(borrower.getId(), 2);
+        int third = borrowerRepository.incrementActiveLoans(borrower.getId(), 2);
+        
+        //then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(1);
+        assertThat(third).isZero();
+        entityManager.clear();
+        assertThat(borrowerRepository.findById(borrower.getId()).get().getActiveLoans()).isEqualTo(2);
+    }
+
+    @Test
+    void findAllBy_shouldPageByNameThenId_whenNamesTie() {
+        //given
+        Borrower zoe = borrowerRepository.save(new Borrower("zoe Adams", "zoe@example.com"));
+        Borrower firstAnna = borrowerRepository.save(new Borrower("Anna Berg", "anna.one@example.com"));
+        Borrower secondAnna = borrowerRepository.save(new Borrower("anna berg", "anna.two@example.com"));
+        Borrower max = borrowerRepository.save(new Borrower("Max Carter", "max@example.com"));
+        Sort byName = BorrowerSort.NAME.sort();
+
+        //when
+        Window<Borrower> firstPage = borrowerRepository.findAllBy(ScrollPosition.keyset(), byName, Limit.of(2));
+        Window<Borrower> secondPage = borrowerRepository.findAllBy(
+                ScrollPosition.forward(BorrowerSort.NAME.keysetOf(secondAnna)), byName, Limit.of(2));
+
+        //then
+        assertThat(firstPage.getContent()).containsExactly(firstAnna, secondAnna);
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.getContent()).containsExactly(max, zoe);
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @Test
+    void findByNameLowerStartingWith_shouldPageThroughMatchesOfTheSortColumnIgnoringCase() {
+        //given
+        Borrower jonas = borrowerRepository.save(new Borrower("Jonas Weber", "weber@example.com"));
+        Borrower jonathan = borrowerRepository.save(new Borrower("JONATHAN Reed", "reed@example.com"));
+        Borrower byEmail = borrowerRepository.save(new Borrower("Mia Stone", "JOnes.m@example.com"));
+        borrowerRepository.save(new Borrower("Ben Jonsson", "ben@example.com"));
+        String prefix = Borrower.searchKey("JON");
+
+        //when
+        Window<Borrower> firstPage = borrowerRepository.findByNameLowerStartingWith(
+                prefix, ScrollPosition.keyset(), BorrowerSort.NAME.sort(), Limit.of(1));
+        Window<Borrower> secondPage = borrowerRepository.findByNameLowerStartingWith(
+                prefix, ScrollPosition.forward(BorrowerSort.NAME.keysetOf(jonas)), BorrowerSort.NAME.sort(), Limit.of(1));
+        Window<Borrower> emails = borrowerRepository.findByEmailLowerStartingWith(
+                prefix, ScrollPosition.keyset(), BorrowerSort.EMAIL.sort(), Limit.of(10));
+
+        //then
+        assertThat(firstPage.getContent()).containsExactly(jonas);
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.getContent()).containsExactly(jonathan);
+        assertThat(secondPage.hasNext()).isFalse();
+        assertThat(emails.getContent()).containsExactly(byEmail);
+    }
+
+    @Test
+    void findLoans_shouldDistinguishUnknownBorrowerFromBorrowerWithoutLoans() {
+        //given
+        Borrower reader = borrowerRepository.save(new Borrower("Reader", "reader@example.com"));
+        Borrower idle = borrowerRepository.save(new Borrower("Idle", "idle@example.com"));
+        Book first = new Book("First", "Author", "1111111111");
+        first.setBorrowerId(reader.getId());
+        Book second = new Book("Second", "Author", "2222222222");
+        second.setBorrowerId(reader.getId());
+        second.setBranch("NORTH");
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.persist(new Book("Unborrowed", "Author", "3333333333"));
+        entityManager.flush();
+        entityManager.clear();
+        
+        //when & then
+        assertThat(borrowerRepository.findLoans(reader.getId()))
+                .extracting(loan -> loan.book().getTitle())
+                .containsExactly("First", "Second");
+        assertThat(borrowerRepository.findLoansInBranch(reader.getId(), "NORTH"))
+                .extracting(loan -> loan.book().getTitle())
+                .containsExactly("Second");
+        assertThat(borrowerRepository.findLoansInBranch(reader.getId(), "SOUTH"))
+                .containsExactly(new BorrowerLoan(reader.getId(), null));
+        assertThat(borrowerRepository.findLoans(idle.getId()))
+                .containsExactly(new BorrowerLoan(idle.getId(), null));
+        assertThat(borrowerRepository.findLoans(idle.getId() + 1000)).isEmpty();
+        assertThat(borrowerRepository.findLoans(List.of(reader.getId(), idle.getId(), idle.getId() + 1000)))
+                .extracting(BorrowerLoan::borrowerId)
+                .containsExactly(reader.getId(), reader.getId(), idle.getId());
+    }
+}
@@ -0,0 +1,254 @@
+package com.library.repository.memory;
+
+import com.library.dto.BookField;
+import com.library.dto.SparseBookDto;
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.BookRepository;
+import com.library.repository.BookUpsertRepository.UpsertCounts;
+import com.library.repository.BorrowerLoan;
+import com.library.repository.BorrowerRepository;
+import com.library.service.BorrowerSort;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryStorageTest {
+
+    private final InMemoryStorage storage = new InMemoryStorage();
+    private final BookRepository bookRepository = storage.bookRepository();
+    private final BorrowerRepository borrowerRepository = storage.borrowerRepository();
+
+    @Test
+    void save_shouldKeepIndexesInSync_whenBookIsBorrowedAndReturned() {
+        //given
+        Borrower borrower = borrowerRepository.save(new Borrower("Reader", "reader@example.com"));
+        Book book = bookRepository.save(new Book("Dune", "Frank Herbert", "9780441013593"));
+
+        //when
+        Book loaded = bookRepository.findById(book.getId()).orElseThrow();
+        loaded.setBorrowerId(borrower.getId());
+
+        //then: changing a loaded copy does nothing until it is saved
+        assertThat(bookRepository.findByBorrowerId(borrower.getId())).isEmpty();
+        bookRepository.save(loaded);
+        assertThat(bookRepository.findByBorrowerId(borrower.getId())).extracting(Book::getTitle).containsExactly("Dune");
+        assertThat(bookRepository.countByAvailable(false)).isEqualTo(1);
+        assertThat(bookRepository.findByIsbn("9780441013593")).get().extracting(Book::getAvailable).isEqualTo(false);
+
+        loaded.setBorrowerId(null);
+        bookRepository.save(loaded);
+        assertThat(bookRepository.findByBorrowerId(borrower.getId())).isEmpty();
+        assertThat(bookRepository.findByAvailable(true)).extracting(Book::getId).containsExactly(book.getId());
+    }
+
+    @Test
+    void upsertByIsbn_shouldKeepLoanState_whenIsbnIsAlreadyInBranch() {
+        //given
+        Book borrowed = new Book("Dune", "Frank Herbert", "9780441013593");
+        borrowed.setBorrowerId(3L);
+        bookRepository.save(borrowed);
+
+        //when
+        UpsertCounts counts = bookRepository.upsertByIsbn(List.of(
+                new Book("Dune (Deluxe)", "Frank Herbert", "9780441013593"),
+                new Book("Emma", "Jane Austen", "9780141439587")));
+
+        //then
+        assertThat(counts).isEqualTo(new UpsertCounts(1, 1));
+        assertThat(bookRepository.findById(borrowed.getId())).get()
+                .extracting(Book::getTitle, Book::getBorrowerId).containsExactly("Dune (Deluxe)", 3L);
+        assertThat(bookRepository.existsByBranchAndIsbn(Book.DEFAULT_BRANCH, "9780141439587")).isTrue();
+        assertThat(bookRepository.upsertByIsbn(List.of(new Book("Emma", "Jane Austen", "9780141439587"))))
+                .isEqualTo(new UpsertCounts(0, 0));
+    }
+
+    @Test
+    void findFields_shouldReadSelectedAttributes_whenBranchAndAvailabilityAreGiven() {
+        //given
+        Book borrowed = new Book("Dune", "Frank Herbert", "9780441013593");
+        borrowed.setBranch("NORTH");
+        borrowed.setBorrowerId(3L);
+        bookRepository.save(borrowed);
+        Book available = new Book("Emma", "Jane Austen", "9780141439587");
+        available.setBranch("NORTH");
+        bookRepository.save(available);
+
+        //when
+        List<SparseBookDto> books = bookRepository.findFields(EnumSet.of(BookField.TITLE, BookField.AVAILABLE), "NORTH", false);
+
+        //then
+        assertThat(books).singleElement()
+                .extracting(SparseBookDto::title, SparseBookDto::available, SparseBookDto::id)
+                .containsExactly("Dune", false, null);
+        assertThat(bookRepository.findFields(EnumSet.of(BookField.ID), null, null)).hasSize(2);
+    }
+
+    @Test
+    void findFields_shouldFilterOnAvailability_whenNoBranchIsGiven() {
+        //given
+        Book borrowed = new Book("Dune", "Frank Herbert", "9780441013593");
+        borrowed.setBranch("NORTH");
+        borrowed.setBorrowerId(3L);
+        bookRepository.save(borrowed);
+        bookRepository.save(new Book("Emma", "Jane Austen", "9780141439587"));
+
+        //when
+        List<SparseBookDto> books = bookRepository.findFields(EnumSet.of(BookField.TITLE, BookField.AVAILABLE), null, true);
+
+        //then
+        assertThat(books).singleElement()
+                .extracting(SparseBookDto::title, SparseBookDto::available)
+                .containsExactly("Emma", true);
+    }
+
+    @Test
+    void borrowerQueries_shouldMatchTheJpaBackend() {
+        //given
+        Borrower reader = borrowerRepository.save(new Borrower("Reader", "reader@example.com"));
+        Borrower idle = borrowerRepository.save(new Borrower("Idle", "idle@example.com"));
+        Book book = new Book("Emma", "Jane Austen", null);
+        book.setBorrowerId(reader.getId());
+        bookRepository.save(book);
+
+        //when & then
+        assertThat(borrowerRepository.existsByEmail("reader@example.com")).isTrue();
+        assertThat(borrowerRepository.findByEmail("idle@example.com")).get().extracting(Borrower::getId).isEqualTo(idle.getId());
+        assertThatThrownBy(() -> borrowerRepository.save(new Borrower("Copy", "reader@example.com")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(borrowerRepository.incrementActiveLoans(reader.getId(), 1)).isEqualTo(1);
+        assertThat(borrowerRepository.incrementActiveLoans(reader.getId(), 1)).isZero();
+        assertThat(borrowerRepository.decrementActiveLoans(idle.getId())).isZero();
+        assertThat(borrowerRepository.findLoans(reader.getId())).extracting(loan -> loan.book().getTitle()).containsExactly("Emma");
+        assertThat(borrowerRepository.findLoans(idle.getId())).containsExactly(new BorrowerLoan(idle.getId(), null));
+        assertThat(borrowerRepository.findLoans(idle.getId() + 1000)).isEmpty();
+    }
+
+    @Test
+    void findAllBy_shouldPageByNameThenId_andSearchByPrefix() {
+        //given
+        for (String name : List.of("bob", "Alice", "alice", "Carol", "Alfred")) {
+            borrowerRepository.save(new Borrower(name, name.toLowerCase() + borrowerRepository.count() + "@example.com"));
+        }
+
+        //when
+        Window<Borrower> first = borrowerRepository.findAllBy(ScrollPosition.keyset(), BorrowerSort.NAME.sort(), Limit.of(2));
+        Window<Borrower> second = borrowerRepository.findAllBy(
+                ScrollPosition.forward(BorrowerSort.NAME.keysetOf(first.getContent().get(1))), BorrowerSort.NAME.sort(), Limit.of(2));
+        Window<Borrower> search = borrowerRepository.findByNameLowerStartingWith(
+                "al", ScrollPosition.keyset(), BorrowerSort.NAME.sort(), Limit.of(10));
+        Window<Borrower> searchAfter = borrowerRepository.findByNameLowerStartingWith(
+                "al", ScrollPosition.forward(BorrowerSort.NAME.keysetOf(first.getContent().get(1))), BorrowerSort.NAME.sort(), Limit.of(10));
+
+        //then
+        assertThat(first.getContent()).extracting(Borrower::getName).containsExactly("Alfred", "Alice");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting(Borrower::getName).containsExactly("alice", "bob");
+        assertThat(search.getContent()).extracting(Borrower::getName).containsExactly("Alfred", "Alice", "alice");
+        assertThat(search.hasNext()).isFalse();
+        assertThat(searchAfter.getContent()).extracting(Borrower::getName).containsExactly("alice");
+    }
+
+    @Test
+    void open_shouldRestoreCheckpointAndReplayLaterWrites(@TempDir Path directory) throws Exception {
+        //given
+        InMemoryStorage durable = InMemoryStorage.open(directory, false);
+        Borrower borrower = durable.borrowerRepository().save(new Borrower("Reader", "reader@example.com"));
+        durable.borrowerRepository().incrementActiveLoans(borrower.getId(), 5);
+        Book book = new Book("Dune", "Frank Herbert", null);
+        book.setBorrowerId(borrower.getId());
+        book.setBranch("NORTH");
+        durable.bookRepository().save(book);
+        durable.checkpoint();
+        Book emma = durable.bookRepository().save(new Book("Emma", "Jane Austen", "9780141439587"));
+        durable.bookRepository().deleteById(book.getId());
+        durable.close();
+
+        //when
+        InMemoryStorage restored = InMemoryStorage.open(directory, false);
+
+        //then
+        assertThat(WriteAheadLog.segments(directory)).containsExactly(2L);
+        assertThat(restored.borrowerRepository().findByEmail("reader@example.com")).get()
+                .extracting(Borrower::getActiveLoans).isEqualTo(1);
+        assertThat(restored.bookRepository().findByBorrowerId(borrower.getId())).isEmpty();
+        assertThat(restored.bookRepository().findByIsbn("9780141439587")).get().extracting(Book::getId).isEqualTo(emma.getId());
+        assertThat(restored.bookRepository().countByBranchAndAvailable(Book.DEFAULT_BRANCH, true)).isEqualTo(1);
+        assertThat(restored.bookRepository().save(new Book("Ulysses", "James Joyce", null)).getId()).isGreaterThan(emma.getId());
+    }
+
+    @Test
+    void open_shouldKeepWritesBeforeATornRecord_andTruncateIt(@TempDir Path directory) throws Exception {
+        //given: the process dies part way through appending a record, without checkpoint or close
+        InMemoryStorage crashed = InMemoryStorage.open(directory, true);
+        Borrower borrower = crashed.borrowerRepository().save(new Borrower("Reader", "reader@example.com"));
+        Book book = new Book("Dune", "Frank Herbert", null);
+        book.setBorrowerId(borrower.getId());
+        crashed.bookRepository().save(book);
+        Path segment = WriteAheadLog.segmentFile(directory, 1);
+        long intact = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 1, 0, 0}, StandardOpenOption.APPEND);
+
+        //when
+        InMemoryStorage recovered = InMemoryStorage.open(directory, false);
+        recovered.bookRepository().save(new Book("Emma", "Jane Austen", null));
+        recovered.close();
+        InMemoryStorage reopened = InMemoryStorage.open(directory, false);
+
+        //then
+        assertThat(recovered.bookRepository().findByBorrowerId(borrower.getId())).extracting(Book::getTitle).containsExactly("Dune");
+        assertThat(reopened.bookRepository().findAll()).extracting(Book::getTitle).containsExactly("Dune", "Emma");
+        assertThat(Files.size(segment)).isGreaterThan(intact);
+    }
+
+    @Test
+    void open_shouldReplayEverySegmentAfterTheSnapshot_whenACheckpointDiedBeforeItsRename(@TempDir Path directory) throws Exception {
+        //given: a checkpoint rotated to segment 3 but its snapshot never replaced the one that ends at segment 2
+        InMemoryStorage crashed = InMemoryStorage.open(directory, false);
+        crashed.bookRepository().save(new Book("Dune", "Frank Herbert", null));
+        crashed.checkpoint();
+        crashed.bookRepository().save(new Book("Emma", "Jane Austen", null));
+        Path snapshot = directory.resolve(InMemoryStorage.SNAPSHOT_FILE);
+        byte[] earlierSnapshot = Files.readAllBytes(snapshot);
+        byte[] segmentTwo = Files.readAllBytes(WriteAheadLog.segmentFile(directory, 2));
+        crashed.checkpoint();
+        crashed.bookRepository().save(new Book("Ulysses", "James Joyce", null));
+        Files.write(snapshot, earlierSnapshot);
+        Files.write(WriteAheadLog.segmentFile(directory, 2), segmentTwo);
+
+        //when
+        InMemoryStorage recovered = InMemoryStorage.open(directory, false);
+
+        //then
+        assertThat(recovered.bookRepository().findAll()).extracting(Book::getTitle).containsExactly("Dune", "Emma", "Ulysses");
+        assertThat(WriteAheadLog.segments(directory)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void open_shouldRefuseToSkipADamagedSegmentThatIsNotTheLast(@TempDir Path directory) throws Exception {
+        //given
+        InMemoryStorage storage = InMemoryStorage.open(directory, false);
+        storage.bookRepository().save(new Book("Dune", "Frank Herbert", null));
+        storage.close();
+        Files.write(WriteAheadLog.segmentFile(directory, 1), new byte[]{0, 0, 0, 9}, StandardOpenOption.APPEND);
+        Files.createFile(WriteAheadLog.segmentFile(directory, 2));
+
+        //when & then
+        assertThatThrownBy(() -> InMemoryStorage.open(directory, false))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("damaged");
+    }
+}
@@ -0,0 +1,147 @@
+package com.library.service;
+
+import com.library.config.AvailabilityFeedProperties;
+import com.library.dto.AvailabilityEventDto;
+import com.library.entity.AvailabilityEvent;
+import com.library.mapper.AvailabilityEventMapper;
+import com.library.repository.AvailabilityEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedConstruction;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.when;
+
+class AvailabilityFeedTest {
+
+    private AvailabilityEventRepository availabilityEventRepository;
+    private AvailabilityFeedProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private AvailabilityFeed feed;
+    private MockedConstruction<SseEmitter> emitters;
+
+    @BeforeEach
+    void setUp() {
+        availabilityEventRepository = mock(AvailabilityEventRepository.class);
+        when(availabilityEventRepository.findMaxId()).thenReturn(10L);
+        when(availabilityEventRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenReturn(List.of());
+        properties = new AvailabilityFeedProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+        emitters.close();
+    }
+
+    @Test
+    void poll_shouldPublishLateEventAndHoldBackResumePoint_whenSequenceCommitsAfterHigherOne() throws Exception {
+        //given
+        List<String> frames = new CopyOnWriteArrayList<>();
+        CountDownLatch sent = new CountDownLatch(2);
+        emitters = mockConstruction(SseEmitter.class, (emitter, context) -> doAnswer(invocation -> {
+            String frame = render(invocation.getArgument(0));
+            if (frame.startsWith("id:")) {
+                frames.add(frame);
+                sent.countDown();
+            }
+            return null;
+        }).when(emitter).send(any(SseEventBuilder.class)));
+        feed = newFeed();
+        feed.subscribe(null);
+        when(availabilityEventRepository.findByIdGreaterThanOrderByIdAsc(eq(10L), any(Limit.class)))
+                .thenReturn(List.of(event(12L)));
+        when(availabilityEventRepository.findAllById(List.of(11L))).thenReturn(List.of(event(11L)));
+
+        //when
+        feed.poll();
+        feed.poll();
+
+        //then
+        assertThat(sent.await(1, TimeUnit.SECONDS)).isTrue();
+        // 12 arrived while 11 was missing, so it may only claim 10; 11 then moves the resume point on
+        assertThat(frames).hasSize(2);
+        assertThat(frames.get(0)).startsWith("id:10\n").contains("sequence=12");
+        assertThat(frames.get(1)).startsWith("id:11\n").contains("sequence=11");
+    }
+
+    @Test
+    void poll_shouldDisconnectSubscriber_whenItsBufferOverflows() throws Exception {
+        //given
+        properties.setSubscriberBuffer(1);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        // Latches rather than verify(timeout): verifying a synchronized emitter method can hold its monitor
+        emitters = mockConstruction(SseEmitter.class, (emitter, context) -> {
+            doAnswer(invocation -> {
+                if (render(invocation.getArgument(0)).startsWith("id:")) {
+                    sending.countDown();
+                    stalled.await(5, TimeUnit.SECONDS);
+                }
+                return null;
+            }).when(emitter).send(any(SseEventBuilder.class));
+            doAnswer(invocation -> {
+                completed.countDown();
+                return null;
+            }).when(emitter).complete();
+        });
+        feed = newFeed();
+        feed.subscribe(null);
+        when(availabilityEventRepository.findByIdGreaterThanOrderByIdAsc(eq(10L), any(Limit.class)))
+                .thenReturn(List.of(event(11L)));
+        when(availabilityEventRepository.findByIdGreaterThanOrderByIdAsc(eq(11L), any(Limit.class)))
+                .thenReturn(List.of(event(12L), event(13L)));
+        feed.poll();
+        // The sender thread is now blocked writing sequence 11
+        assertThat(sending.await(1, TimeUnit.SECONDS)).isTrue();
+
+        //when
+        feed.poll();
+
+        //then
+        assertThat(meterRegistry.get("library.availability.subscribers.dropped.total").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.availability.subscribers").gauge().value()).isZero();
+        stalled.countDown();
+        assertThat(completed.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private AvailabilityFeed newFeed() {
+        return new AvailabilityFeed(availabilityEventRepository, new AvailabilityEventMapper(), properties, meterRegistry);
+    }
+
+    private static AvailabilityEvent event(long id) {
+        AvailabilityEvent event = new AvailabilityEvent();
+        event.setId(id);
+        event.setBookId(id * 100);
+        event.setAvailable(false);
+        event.setBranch("MAIN");
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+
+    private static String render(SseEventBuilder builder) {
+        return String.join("", builder.build().stream()
+                .map(part -> Objects.toString(part.getData()))
+                .toList());
+    }
+}
@@ -0,0 +1,115 @@
+package com.library.service;
+
+import com.library.cache.EntityCacheEvictor;
+import com.library.config.ReconciliationProperties;
+import com.library.entity.Book;
+import com.library.entity.Borrower;
+import com.library.repository.AvailabilityEventRepository;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.service.BookConsistencyReconciler.ReconciliationReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class BookConsistencyReconcilerTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowerRepository borrowerRepository;
+
+    @Autowired
+    private AvailabilityEventRepository availabilityEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private ReconciliationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private BookConsistencyReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ReconciliationProperties();
+        properties.setChunkSize(2);
+        properties.setChunkPause(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        reconciler = new BookConsistencyReconciler(bookRepository, borrowerRepository, availabilityEventRepository,
+                new EntityCacheEvictor(entityManager.getEntityManager().getEntityManagerFactory()), transactionManager, properties, meterRegistry);
+    }
+
+    @Test
+    void reconcile_shouldRepairMismatchesAndDanglingBorrowers_acrossChunks() {
+        //given
+        Borrower borrower = borrowerRepository.save(new Borrower("Reader", "reader@example.com"));
+        Book consistent = saveBook("Consistent", borrower.getId(), false);
+        Book flaggedButFree = saveBook("Flagged But Free", null, false);
+        Book borrowedButAvailable = saveBook("Borrowed But Available", borrower.getId(), true);
+        Book dangling = saveBook("Dangling", borrower.getId() + 1000, false);
+        saveBook("Available", null, true);
+
+        //when
+        ReconciliationReport report = reconciler.reconcile();
+        entityManager.flush();
+        entityManager.clear();
+
+        //then
+        assertThat(report.scanned()).isEqualTo(5);
+        assertThat(report.availabilityMismatches()).isEqualTo(2);
+        assertThat(report.danglingBorrowers()).isEqualTo(1);
+        assertThat(report.repaired()).isEqualTo(3);
+        assertThat(bookRepository.findById(consistent.getId()).orElseThrow().getAvailable()).isFalse();
+        assertThat(bookRepository.findById(flaggedButFree.getId()).orElseThrow().getAvailable()).isTrue();
+        assertThat(bookRepository.findById(borrowedButAvailable.getId()).orElseThrow().getAvailable()).isFalse();
+        Book released = bookRepository.findById(dangling.getId()).orElseThrow();
+        assertThat(released.getBorrowerId()).isNull();
+        assertThat(released.getAvailable()).isTrue();
+        assertThat(availabilityEventRepository.count()).isEqualTo(3);
+        assertThat(meterRegistry.get("library.reconciliation.anomalies.total").tag("type", "dangling_borrower")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.reconciliation.repairs.total").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void reconcile_shouldOnlyReport_whenRepairIsDisabled() {
+        //given
+        properties.setRepair(false);
+        Book flaggedButFree = saveBook("Flagged But Free", null, false);
+
+        //when
+        ReconciliationReport report = reconciler.reconcile();
+        entityManager.clear();
+
+        //then
+        assertThat(report.availabilityMismatches()).isEqualTo(1);
+        assertThat(report.repaired()).isZero();
+        assertThat(bookRepository.findById(flaggedButFree.getId()).orElseThrow().getAvailable()).isFalse();
+        assertThat(availabilityEventRepository.count()).isZero();
+    }
+
+    // Writes the columns as given, the way direct SQL or a partial failure could leave them
+    private Book saveBook(String title, Long borrowerId, boolean available) {
+        Book book = new Book(title, "Author", null);
+        book.setBorrowerId(borrowerId);
+        book.setAvailable(available);
+        Book saved = entityManager.persistAndFlush(book);
+        entityManager.clear();
+        return saved;
+    }
+}
@@ -0,0 +1,112 @@
+package com.library.service;
+
+import com.library.config.BorrowPipelineProperties;
+import com.library.dto.BookDto;
+import com.library.exception.BookAlreadyBorrowedException;
+import com.library.service.BookService.BorrowRequest;
+import com.library.service.BookService.BorrowResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BorrowPipelineTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookService bookService;
+    private BorrowPipelineProperties properties;
+    private BorrowPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookService = mock(BookService.class);
+        properties = new BorrowPipelineProperties();
+        // Long enough that every borrow of a test lands in the first batch
+        properties.setWindow(Duration.ofMillis(500));
+        properties.setMaxBatchSize(3);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.close();
+    }
+
+    @Test
+    void submit_shouldCommitBorrowsTogetherAndCompleteEachCallerWithItsOwnResult() throws Exception {
+        //given
+        BookDto borrowed = new BookDto(1L, "Dune", "Frank Herbert", "9780441013593", 2L, null);
+        when(bookService.borrowBooks(anyList())).thenAnswer(invocation -> {
+            List<BorrowRequest> requests = invocation.getArgument(0);
+            return requests.stream()
+                    .map(request -> request.borrowerId() == 2L
+                            ? new BorrowResult(borrowed, null)
+                            : new BorrowResult(null, new BookAlreadyBorrowedException(request.bookId())))
+                    .toList();
+        });
+        pipeline = newPipeline();
+
+        //when
+        List<CompletableFuture<BookDto>> results = new ArrayList<>();
+        for (long borrowerId = 2; borrowerId <= 4; borrowerId++) {
+            results.add(pipeline.submit(1L, borrowerId));
+        }
+
+        //then
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isEqualTo(borrowed);
+        assertThat(results.get(1)).failsWithin(5, TimeUnit.SECONDS).withThrowableThat()
+                .withCauseInstanceOf(BookAlreadyBorrowedException.class);
+        assertThatThrownBy(() -> pipeline.borrow(1L, 5L)).isInstanceOf(BookAlreadyBorrowedException.class);
+        verify(bookService).borrowBooks(List.of(new BorrowRequest(1L, 2L), new BorrowRequest(1L, 3L),
+                new BorrowRequest(1L, 4L)));
+        assertThat(meterRegistry.get("library.borrow.pipeline.batch.size").summary().max()).isEqualTo(3);
+        assertThat(meterRegistry.get("library.borrows.successful.total").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.borrows.failed.total").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void submit_shouldRetryEachBorrowOnItsOwn_whenTheBatchTransactionFails() throws Exception {
+        //given
+        BookDto first = new BookDto(1L, "Dune", "Frank Herbert", "9780441013593", 2L, null);
+        BookDto second = new BookDto(2L, "Emma", "Jane Austen", "9780141439587", 2L, null);
+        when(bookService.borrowBooks(anyList())).thenThrow(new CannotAcquireLockException("deadlock detected"));
+        when(bookService.borrowBook(1L, 2L)).thenReturn(first);
+        when(bookService.borrowBook(2L, 2L)).thenReturn(second);
+        properties.setMaxBatchSize(2);
+        pipeline = newPipeline();
+
+        //when
+        CompletableFuture<BookDto> firstResult = pipeline.submit(1L, 2L);
+        CompletableFuture<BookDto> secondResult = pipeline.submit(2L, 2L);
+
+        //then
+        assertThat(firstResult.get(5, TimeUnit.SECONDS)).isEqualTo(first);
+        assertThat(secondResult.get(5, TimeUnit.SECONDS)).isEqualTo(second);
+        verify(bookService, times(1)).borrowBooks(anyList());
+        assertThat(meterRegistry.get("library.borrow.pipeline.fallbacks.total").tag("reason", "batch_failed")
+                .counter().count()).isEqualTo(2);
+    }
+
+    private BorrowPipeline newPipeline() {
+        return new BorrowPipeline(bookService, properties,
+                Counter.builder("library.borrows.successful.total").register(meterRegistry),
+                Counter.builder("library.borrows.failed.total").register(meterRegistry),
+                meterRegistry);
+    }
+}
@@ -1,14 +1,16 @@
 package com.library.service;
 
+import com.library.datasource.ReadYourWritesTracker;
 import com.library.dto.BookDto;
 import com.library.dto.BorrowerDto;
 import com.library.entity.Book;
 import com.library.entity.Borrower;
 import com.library.exception.BorrowerNotFoundException;
 import com.library.exception.DuplicateEmailException;
+import com.library.exception.InvalidRequestParameterException;
 import com.library.mapper.BookMapper;
 import com.library.mapper.BorrowerMapper;
-import com.library.repository.BookRepository;
+import com.library.repository.BorrowerLoan;
 import com.library.repository.BorrowerRepository;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Timer;
@@ -20,6 +22,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -33,15 +36,15 @@ class BorrowerServiceTest {
     @Mock
     private BorrowerRepository borrowerRepository;
 
-    @Mock
-    private BookRepository bookRepository;
-
     @Mock
     private BorrowerMapper borrowerMapper;
 
     @Mock
     private BookMapper bookMapper;
 
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
     @Mock
     private Counter borrowersCreatedCounter;
 
@@ -69,9 +72,9 @@ class BorrowerServiceTest {
         BorrowerDto result = borrowerService.createBorrower(borrowerDto);
 
         //then
-        assertThat(result.getId()).isEqualTo(1L);
-        assertThat(result.getName()).isEqualTo("John Doe");
-        assertThat(result.getEmail()).isEqualTo("john@example.com");
+        assertThat(result.id()).isEqualTo(1L);
+        assertThat(result.name()).isEqualTo("John Doe");
+        assertThat(result.email()).isEqualTo("john@example.com");
         verify(borrowerRepository).existsByEmail("john@example.com");
         verify(borrowerMapper).toEntity(borrowerDto);
         verify(borrowerRepository).save(borrower);
@@ -112,8 +115,6 @@ class BorrowerServiceTest {
     void getBorrowedBooks_shouldReturnBorrowedBooks_whenBorrowerExists() {
         //given
         Long borrowerId = 1L;
-        Borrower borrower = new Borrower("John Doe", "john@example.com");
-        borrower.setId(borrowerId);
         
         Book book1 = new Book("Book 1", "Author 1", "ISBN1");
         book1.setId(1L);
@@ -123,11 +124,11 @@ class BorrowerServiceTest {
         book2.setId(2L);
         book2.setBorrowerId(borrowerId);
         
-        BookDto bookDto1 = new BookDto(1L, "Book 1", "Author 1", "ISBN1", false, borrowerId);
-        BookDto bookDto2 = new BookDto(2L, "Book 2", "Author 2", "ISBN2", false, borrowerId);
+        BookDto bookDto1 = new BookDto(1L, "Book 1", "Author 1", "ISBN1", borrowerId, null);
+        BookDto bookDto2 = new BookDto(2L, "Book 2", "Author 2", "ISBN2", borrowerId, null);
         
-        when(borrowerRepository.findById(borrowerId)).thenReturn(Optional.of(borrower));
-        when(bookRepository.findByBorrowerId(borrowerId)).thenReturn(Arrays.asList(book1, book2));
+        when(borrowerRepository.findLoans(borrowerId))
+                .thenReturn(List.of(new BorrowerLoan(borrowerId, book1), new BorrowerLoan(borrowerId, book2)));
         when(bookMapper.toDto(book1)).thenReturn(bookDto1);
         when(bookMapper.toDto(book2)).thenReturn(bookDto2);
 
@@ -136,28 +137,71 @@ class BorrowerServiceTest {
 
         //then
         assertThat(result).hasSize(2);
-        assertThat(result.get(0).getBorrowerId()).isEqualTo(borrowerId);
-        assertThat(result.get(1).getBorrowerId()).isEqualTo(borrowerId);
-        assertThat(result.get(0).getTitle()).isEqualTo("Book 1");
-        assertThat(result.get(1).getTitle()).isEqualTo("Book 2");
-        verify(borrowerRepository).findById(borrowerId);
-        verify(bookRepository).findByBorrowerId(borrowerId);
-        verify(bookMapper).toDto(book1);
-        verify(bookMapper).toDto(book2);
+        assertThat(result.get(0).borrowerId()).isEqualTo(borrowerId);
+        assertThat(result.get(1).borrowerId()).isEqualTo(borrowerId);
+        assertThat(result.get(0).title()).isEqualTo("Book 1");
+        assertThat(result.get(1).title()).isEqualTo("Book 2");
+        verify(borrowerRepository).findLoans(borrowerId);
+        verify(borrowerRepository, never()).findById(any());
+    }
+
+    @Test
+    void getBorrowedBooks_shouldReturnEmptyList_whenBorrowerHasNoLoans() {
+        //given
+        Long borrowerId = 1L;
+        when(borrowerRepository.findLoans(borrowerId)).thenReturn(List.of(new BorrowerLoan(borrowerId, null)));
+
+        //when
+        List<BookDto> result = borrowerService.getBorrowedBooks(borrowerId);
+
+        //then
+        assertThat(result).isEmpty();
+        verifyNoInteractions(bookMapper);
     }
 
     @Test
     void getBorrowedBooks_shouldThrowBorrowerNotFoundException_whenBorrowerDoesNotExist() {
         //given
         Long nonExistentBorrowerId = 999L;
-        when(borrowerRepository.findById(nonExistentBorrowerId)).thenReturn(Optional.empty());
+        when(borrowerRepository.findLoans(nonExistentBorrowerId)).thenReturn(List.of());
 
         //when & then
         assertThatThrownBy(() -> borrowerService.getBorrowedBooks(nonExistentBorrowerId))
                 .isInstanceOf(BorrowerNotFoundException.class)
                 .hasMessage("Borrower not found with ID: " + nonExistentBorrowerId);
         
-        verify(borrowerRepository).findById(nonExistentBorrowerId);
-        verify(bookRepository, never()).findByBorrowerId(any());
+        verify(borrowerRepository).findLoans(nonExistentBorrowerId);
+    }
+
+    @Test
+    void getBorrowers_shouldRejectSearch_whenSortedById() {
+        //when & then
+        assertThatThrownBy(() -> borrowerService.getBorrowers("jo", BorrowerSort.ID, null, 50))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessage("A search needs sort=name or sort=email");
+
+        verifyNoInteractions(borrowerRepository);
+    }
+
+    @Test
+    void getBorrowedBooksByBorrower_shouldGroupBooksAndSkipUnknownBorrowers_whenManyBorrowersRequested() {
+        //given
+        Book book = new Book("Book 1", "Author 1", "ISBN1");
+        book.setId(1L);
+        book.setBorrowerId(1L);
+        BookDto bookDto = new BookDto(1L, "Book 1", "Author 1", "ISBN1", 1L, null);
+        
+        when(borrowerRepository.findLoans(List.of(1L, 2L, 999L)))
+                .thenReturn(List.of(new BorrowerLoan(1L, book), new BorrowerLoan(2L, null)));
+        when(bookMapper.toDto(book)).thenReturn(bookDto);
+
+        //when
+        Map<Long, List<BookDto>> result = borrowerService.getBorrowedBooksByBorrower(List.of(1L, 2L, 999L, 1L));
+
+        //then
+        assertThat(result).containsOnlyKeys(1L, 2L);
+        assertThat(result.get(1L)).containsExactly(bookDto);
+        assertThat(result.get(2L)).isEmpty();
+        verify(borrowerRepository).findLoans(List.of(1L, 2L, 999L));
     }
 }
\ No newline at end of file
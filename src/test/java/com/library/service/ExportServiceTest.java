@@ -0,0 +1,110 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.config.ExportProperties;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ExportServiceTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        ExportProperties properties = new ExportProperties();
+        properties.setFetchSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        exportService = new ExportService(dataSource, transactionManager, properties, objectMapper, meterRegistry);
+    }
+
+    @Test
+    void export_shouldWriteGzippedCsvWithEscaping_whenBooksExist() throws Exception {
+        //given
+        bookRepository.save(new Book("Plain Title", "Author One", "1111111111"));
+        bookRepository.save(new Book("Title, with \"quotes\"", "Author Two", "2222222222"));
+        bookRepository.flush();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        long rows = exportService.export(ExportDataset.BOOKS, ExportFormat.CSV, out);
+
+        //then
+        List<String> lines = gunzip(out).lines().toList();
+        assertThat(rows).isEqualTo(2);
+        assertThat(lines.get(0)).isEqualTo("id,title,author,isbn,available,borrowed_by,branch");
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(2)).contains("\"Title, with \"\"quotes\"\"\",Author Two,2222222222,true,");
+        assertThat(meterRegistry.get("library.export.rows.total").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void export_shouldWriteOneJsonObjectPerLine_whenNdjsonRequested() throws Exception {
+        //given
+        Book borrowed = new Book("Borrowed Title", "Author", "3333333333");
+        borrowed.setBorrowerId(7L);
+        bookRepository.save(borrowed);
+        bookRepository.save(new Book("Available Title", "Author", "4444444444"));
+        bookRepository.flush();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        exportService.export(ExportDataset.BOOKS, ExportFormat.NDJSON, out);
+
+        //then
+        List<JsonNode> records = gunzip(out).lines().map(this::readJson).toList();
+        assertThat(records).hasSize(2);
+        assertThat(records).extracting(node -> node.get("title").asText())
+                .containsExactlyInAnyOrder("Borrowed Title", "Available Title");
+        JsonNode borrowedRecord = records.stream()
+                .filter(node -> node.get("title").asText().equals("Borrowed Title"))
+                .findFirst().orElseThrow();
+        assertThat(borrowedRecord.get("borrowed_by").asLong()).isEqualTo(7L);
+        assertThat(borrowedRecord.get("available").asBoolean()).isFalse();
+    }
+
+    private String gunzip(ByteArrayOutputStream out) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private JsonNode readJson(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new AssertionError("Invalid JSON line: " + line, e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.service;
+
+import com.library.entity.Hold;
+import com.library.repository.HoldRepository;
+import com.library.service.HoldQueue.QueuedHold;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HoldQueueTest {
+
+    @Mock
+    private HoldRepository holdRepository;
+
+    @InjectMocks
+    private HoldQueue holdQueue;
+
+    @Test
+    void poll_shouldReturnHoldsInFifoOrder_whenLoadedFromRepository() {
+        //given
+        Long bookId = 1L;
+        when(holdRepository.findByBookIdOrderByIdAsc(bookId)).thenReturn(List.of(hold(10L, bookId, 100L), hold(11L, bookId, 101L)));
+
+        //when
+        Optional<QueuedHold> first = holdQueue.poll(bookId);
+        Optional<QueuedHold> second = holdQueue.poll(bookId);
+
+        //then
+        assertThat(first).contains(new QueuedHold(10L, 100L));
+        assertThat(second).contains(new QueuedHold(11L, 101L));
+        verify(holdRepository, times(1)).findByBookIdOrderByIdAsc(bookId);
+    }
+
+    @Test
+    void enqueueAfterCommit_shouldAppendToLoadedQueue_whenNoTransactionActive() {
+        //given
+        Long bookId = 1L;
+        when(holdRepository.findByBookIdOrderByIdAsc(bookId)).thenReturn(List.of(hold(10L, bookId, 100L), hold(11L, bookId, 101L)));
+        holdQueue.poll(bookId);
+
+        //when
+        holdQueue.enqueueAfterCommit(hold(12L, bookId, 102L));
+
+        //then
+        assertThat(holdQueue.poll(bookId)).contains(new QueuedHold(11L, 101L));
+        assertThat(holdQueue.poll(bookId)).contains(new QueuedHold(12L, 102L));
+    }
+
+    @Test
+    void reloadAfterCompletion_shouldServeAPolledHoldAgain_whenItWasLeftInTheTable() {
+        //given
+        Long bookId = 1L;
+        when(holdRepository.findByBookIdOrderByIdAsc(bookId)).thenReturn(List.of(hold(10L, bookId, 100L), hold(11L, bookId, 101L)));
+        holdQueue.poll(bookId);
+
+        //when
+        holdQueue.reloadAfterCompletion(bookId);
+
+        //then
+        assertThat(holdQueue.poll(bookId)).contains(new QueuedHold(10L, 100L));
+        verify(holdRepository, times(2)).findByBookIdOrderByIdAsc(bookId);
+    }
+
+    @Test
+    void poll_shouldHandEachHoldToExactlyOneCaller_whenPolledConcurrently() throws Exception {
+        //given
+        Long bookId = 1L;
+        List<Hold> holds = new ArrayList<>();
+        for (long i = 0; i < 5_000; i++) {
+            holds.add(hold(i, bookId, 1_000 + i));
+        }
+        when(holdRepository.findByBookIdOrderByIdAsc(bookId)).thenReturn(holds, List.of());
+        holdQueue.poll(bookId);
+        List<Long> dispatched = Collections.synchronizedList(new ArrayList<>());
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int worker = 0; worker < 8; worker++) {
+            executor.submit(() -> {
+                for (Optional<QueuedHold> next = holdQueue.poll(bookId); next.isPresent(); next = holdQueue.poll(bookId)) {
+                    dispatched.add(next.get().holdId());
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        //then
+        assertThat(dispatched).hasSize(4_999).doesNotHaveDuplicates();
+    }
+
+    private Hold hold(Long id, Long bookId, Long borrowerId) {
+        Hold hold = new Hold(bookId, borrowerId);
+        hold.setId(id);
+        return hold;
+    }
+}
@@ -0,0 +1,125 @@
+package com.library.service;
+
+import com.library.dto.HoldDto;
+import com.library.entity.Book;
+import com.library.entity.Hold;
+import com.library.exception.HoldNotAllowedException;
+import com.library.exception.HoldNotFoundException;
+import com.library.mapper.HoldMapper;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowerRepository;
+import com.library.repository.HoldRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+
+    @Mock
+    private HoldRepository holdRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BorrowerRepository borrowerRepository;
+
+    @Mock
+    private HoldQueue holdQueue;
+
+    @Mock
+    private HoldMapper holdMapper;
+
+    @InjectMocks
+    private HoldService holdService;
+
+    @Test
+    void placeHold_shouldPersistAndEnqueueHold_whenBookIsBorrowedBySomeoneElse() {
+        //given
+        Long bookId = 1L;
+        Long borrowerId = 2L;
+        Book borrowedBook = new Book("Test Book", "Test Author", "ISBN123");
+        borrowedBook.setId(bookId);
+        borrowedBook.setBorrowerId(3L);
+        Hold savedHold = new Hold(bookId, borrowerId);
+        savedHold.setId(10L);
+        HoldDto holdDto = new HoldDto(10L, bookId, borrowerId, savedHold.getCreatedAt());
+
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(borrowedBook));
+        when(borrowerRepository.existsById(borrowerId)).thenReturn(true);
+        when(holdRepository.existsByBookIdAndBorrowerId(bookId, borrowerId)).thenReturn(false);
+        when(holdRepository.save(any(Hold.class))).thenReturn(savedHold);
+        when(holdMapper.toDto(savedHold)).thenReturn(holdDto);
+
+        //when
+        HoldDto result = holdService.placeHold(bookId, borrowerId);
+
+        //then
+        assertThat(result.getId()).isEqualTo(10L);
+        verify(holdQueue).enqueueAfterCommit(savedHold);
+    }
+
+    @Test
+    void placeHold_shouldThrowHoldNotAllowedException_whenBookIsAvailable() {
+        //given
+        Long bookId = 1L;
+        Long borrowerId = 2L;
+        Book availableBook = new Book("Test Book", "Test Author", "ISBN123");
+        availableBook.setId(bookId);
+
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(availableBook));
+        when(borrowerRepository.existsById(borrowerId)).thenReturn(true);
+
+        //when & then
+        assertThatThrownBy(() -> holdService.placeHold(bookId, borrowerId))
+                .isInstanceOf(HoldNotAllowedException.class)
+                .hasMessage("Book with ID 1 is available and can be borrowed directly");
+
+        verify(holdRepository, never()).save(any());
+        verify(holdQueue, never()).enqueueAfterCommit(any());
+    }
+
+    @Test
+    void placeHold_shouldThrowHoldNotAllowedException_whenBorrowerAlreadyHoldsBook() {
+        //given
+        Long bookId = 1L;
+        Long borrowerId = 2L;
+        Book borrowedBook = new Book("Test Book", "Test Author", "ISBN123");
+        borrowedBook.setId(bookId);
+        borrowedBook.setBorrowerId(3L);
+
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(borrowedBook));
+        when(borrowerRepository.existsById(borrowerId)).thenReturn(true);
+        when(holdRepository.existsByBookIdAndBorrowerId(bookId, borrowerId)).thenReturn(true);
+
+        //when & then
+        assertThatThrownBy(() -> holdService.placeHold(bookId, borrowerId))
+                .isInstanceOf(HoldNotAllowedException.class)
+                .hasMessage("Borrower with ID 2 already holds book with ID 1");
+
+        verify(holdRepository, never()).save(any());
+    }
+
+    @Test
+    void cancelHold_shouldThrowHoldNotFoundException_whenHoldDoesNotBelongToBook() {
+        //given
+        when(holdRepository.findByIdAndBookId(10L, 1L)).thenReturn(Optional.empty());
+
+        //when & then
+        assertThatThrownBy(() -> holdService.cancelHold(1L, 10L))
+                .isInstanceOf(HoldNotFoundException.class)
+                .hasMessage("Hold not found with ID: 10");
+
+        verify(holdRepository, never()).delete(any());
+    }
+}
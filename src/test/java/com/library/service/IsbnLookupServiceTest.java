@@ -0,0 +1,138 @@
+package com.library.service;
+
+import com.library.config.IsbnLookupProperties;
+import com.library.dto.BookDto;
+import com.library.entity.Book;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.InvalidRequestParameterException;
+import com.library.mapper.BookMapper;
+import com.library.repository.BookIsbn;
+import com.library.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IsbnLookupServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private IsbnLookupService isbnLookupService;
+
+    @BeforeEach
+    void setUp() {
+        isbnLookupService = new IsbnLookupService(bookRepository, new BookMapper(), new IsbnLookupProperties(),
+                transactionManager, meterRegistry);
+    }
+
+    @Test
+    void toIsbn13_shouldNormalizeIsbn10AndHyphenatedForms_andRejectBadCheckDigits() {
+        assertThat(Isbn.toIsbn13("0-441-01359-7")).contains("9780441013593");
+        assertThat(Isbn.toIsbn13("ISBN 978-0-441-01359-3")).contains("9780441013593");
+        assertThat(Isbn.toIsbn13("080442957X")).contains("9780804429573");
+        assertThat(Isbn.toIsbn13("9780441013594")).isEmpty();
+        assertThat(Isbn.canonical(" 978-TEST-1 ")).isEqualTo("978-TEST-1");
+        assertThatThrownBy(() -> isbnLookupService.findByIsbn("978-TEST-1"))
+                .isInstanceOf(InvalidRequestParameterException.class);
+    }
+
+    @Test
+    void findByIsbn_shouldAnswerUnknownIsbnsFromTheFilter_withoutQueryingBooks() {
+        //given
+        when(bookRepository.count()).thenReturn(1L);
+        when(bookRepository.findIsbnsAfter(eq(0L), any(Limit.class))).thenReturn(List.of(new BookIsbn(1L, "0-441-01359-7")));
+        isbnLookupService.rebuildFilter();
+
+        //when & then
+        assertThatThrownBy(() -> isbnLookupService.findByIsbn("9780141439587")).isInstanceOf(BookNotFoundException.class);
+        verify(bookRepository, never()).findByIsbnOrderByIdAsc(anyString());
+        assertThat(meterRegistry.get("library.isbn.lookup.duration").tag("outcome", "filtered").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("library.isbn.filter.false_positive.ratio").gauge().value()).isZero();
+    }
+
+    @Test
+    void findByIsbn_shouldReadEveryHitFromTheDatabase_soAvailabilityIsCurrent() {
+        //given
+        Book book = new Book("Dune", "Frank Herbert", "9780441013593");
+        book.setId(7L);
+        when(bookRepository.findByIsbnOrderByIdAsc("9780441013593")).thenReturn(List.of(book));
+
+        //when
+        List<BookDto> first = isbnLookupService.findByIsbn("0441013597");
+        List<BookDto> second = isbnLookupService.findByIsbn("978-0441013593");
+
+        //then
+        assertThat(first).extracting(BookDto::id).containsExactly(7L);
+        assertThat(second).extracting(BookDto::id).containsExactly(7L);
+        verify(bookRepository, times(2)).findByIsbnOrderByIdAsc("9780441013593");
+        assertThat(meterRegistry.get("library.isbn.lookup.duration").tag("outcome", "found").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshFilter_shouldAddBooksWrittenElsewhere_includingIdsThatCommitLate() {
+        //given
+        Book late = new Book("Dune Messiah", "Frank Herbert", "9780441172696");
+        late.setId(2L);
+        when(bookRepository.count()).thenReturn(1L);
+        when(bookRepository.findIsbnsAfter(eq(0L), any(Limit.class))).thenReturn(List.of(new BookIsbn(1L, "9780441013593")));
+        when(bookRepository.findIsbnsAfter(eq(1L), any(Limit.class)))
+                .thenReturn(List.of(), List.of(new BookIsbn(3L, "9780141439587")));
+        when(bookRepository.findIsbnsAfter(eq(3L), any(Limit.class))).thenReturn(List.of());
+        when(bookRepository.findAllById(List.of(2L))).thenReturn(List.of(), List.of(late));
+        isbnLookupService.rebuildFilter();
+
+        //when: id 3 is committed by another writer while id 2 is still open, then id 2 commits
+        isbnLookupService.refreshFilter();
+        isbnLookupService.refreshFilter();
+        isbnLookupService.refreshFilter();
+
+        //then: both pass the filter and are looked up
+        when(bookRepository.findByIsbnOrderByIdAsc(anyString())).thenReturn(List.of());
+        assertThatThrownBy(() -> isbnLookupService.findByIsbn("9780141439587")).isInstanceOf(BookNotFoundException.class);
+        assertThatThrownBy(() -> isbnLookupService.findByIsbn("9780441172696")).isInstanceOf(BookNotFoundException.class);
+        verify(bookRepository).findByIsbnOrderByIdAsc("9780141439587");
+        verify(bookRepository).findByIsbnOrderByIdAsc("9780441172696");
+        assertThat(meterRegistry.get("library.isbn.lookup.duration").tag("outcome", "filtered").timer().count()).isZero();
+    }
+
+    @Test
+    void recordAdded_shouldMakeANewIsbnPassTheFilter() {
+        //given
+        when(bookRepository.count()).thenReturn(0L);
+        when(bookRepository.findIsbnsAfter(anyLong(), any(Limit.class))).thenReturn(List.of());
+        isbnLookupService.rebuildFilter();
+        when(bookRepository.findByIsbnOrderByIdAsc("9780441013593")).thenReturn(List.of());
+
+        //when
+        isbnLookupService.recordAdded("0-441-01359-7");
+
+        //then: the filter lets it through, and a miss there counts as a false positive
+        assertThatThrownBy(() -> isbnLookupService.findByIsbn("9780441013593")).isInstanceOf(BookNotFoundException.class);
+        verify(bookRepository).findByIsbnOrderByIdAsc("9780441013593");
+        assertThat(meterRegistry.get("library.isbn.filter.false_positive.ratio").gauge().value()).isEqualTo(1.0);
+    }
+}
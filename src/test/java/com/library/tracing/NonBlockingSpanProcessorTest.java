@@ -0,0 +1,138 @@
+package com.library.tracing;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NonBlockingSpanProcessorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SdkTracerProvider tracerProvider;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (tracerProvider != null) {
+            tracerProvider.shutdown().join(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void onEnd_shouldNeverWaitForTheCollector_whenItStalls() throws Exception {
+        //given: a collector that accepts the export request and never answers
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch stalled = new CountDownLatch(1);
+        HttpServer collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        collector.createContext("/v1/traces", exchange -> {
+            received.countDown();
+            try {
+                stalled.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        collector.start();
+        SpanExporter exporter = OtlpHttpSpanExporter.builder()
+                .setEndpoint("http://localhost:" + collector.getAddress().getPort() + "/v1/traces")
+                .setTimeout(Duration.ofSeconds(30))
+                .build();
+        NonBlockingSpanProcessor processor = newProcessor(exporter, 100, 10, Duration.ofMillis(10), Duration.ofSeconds(30));
+        Tracer tracer = tracer(processor);
+
+        try {
+            //when
+            long start = System.nanoTime();
+            for (int i = 0; i < 5_000; i++) {
+                tracer.spanBuilder("book.borrow").startSpan().end();
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            //then
+            assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(elapsedMillis).isLessThan(2_000);
+            assertThat(processor.queueDepth()).isLessThanOrEqualTo(100);
+            assertThat(meterRegistry.get("library.tracing.spans.dropped.total").counter().count()).isGreaterThan(0);
+            assertThat(meterRegistry.get("library.tracing.export.queue.depth").gauge().value()).isLessThanOrEqualTo(100);
+        } finally {
+            stalled.countDown();
+            tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+            collector.stop(0);
+        }
+    }
+
+    @Test
+    void forceFlush_shouldExportEverySpanInBatchesOfAtMostMaxBatchSize() {
+        //given
+        RecordingExporter exporter = new RecordingExporter();
+        NonBlockingSpanProcessor processor = newProcessor(exporter, 100, 10, Duration.ofHours(1), Duration.ofSeconds(5));
+        Tracer tracer = tracer(processor);
+
+        //when
+        for (int i = 0; i < 25; i++) {
+            tracer.spanBuilder("book.borrow").startSpan().end();
+        }
+        boolean flushed = processor.forceFlush().join(5, TimeUnit.SECONDS).isSuccess();
+
+        //then
+        assertThat(flushed).isTrue();
+        assertThat(exporter.batchSizes).containsExactly(10, 10, 5);
+        assertThat(meterRegistry.get("library.tracing.spans.exported.total").tag("result", "success").counter().count())
+                .isEqualTo(25);
+        assertThat(processor.queueDepth()).isZero();
+    }
+
+    private NonBlockingSpanProcessor newProcessor(SpanExporter exporter, int capacity, int maxBatchSize,
+                                                  Duration scheduleDelay, Duration exportTimeout) {
+        return new NonBlockingSpanProcessor(exporter, capacity, maxBatchSize, scheduleDelay, exportTimeout, meterRegistry);
+    }
+
+    private Tracer tracer(NonBlockingSpanProcessor processor) {
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        return tracerProvider.get("test");
+    }
+
+    private static final class RecordingExporter implements SpanExporter {
+
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            batchSizes.add(spans.size());
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}